@@ -0,0 +1,76 @@
+package entity.mapping.authenticateprovider;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * AccessTokenFilter authenticates requests that carry a bearer token issued by /login.
+ *
+ * The token is verified by its signature alone, so no user lookup happens on the request
+ * path. Requests without a bearer token continue down the chain unchanged; requests with
+ * an invalid or expired token are rejected with 401.
+ */
+public class AccessTokenFilter extends OncePerRequestFilter {
+
+	/**
+	 * Prefix of the Authorization header value carrying a token.
+	 */
+	private static final String BEARER_PREFIX = "Bearer ";
+
+	/**
+	 * Service used to verify the presented tokens.
+	 */
+	private final AccessTokenService accessTokenService;
+
+	/**
+	 * Constructs an AccessTokenFilter.
+	 *
+	 * @param accessTokenService the service used to verify tokens.
+	 */
+	public AccessTokenFilter(AccessTokenService accessTokenService) {
+		this.accessTokenService = accessTokenService;
+	}
+
+	/**
+	 * Verifies the bearer token, if any, and stores the authenticated user in the
+	 * security context for the rest of the request.
+	 *
+	 * @param request     the current request.
+	 * @param response    the current response.
+	 * @param filterChain the remaining filters.
+	 * @throws ServletException if a later filter fails.
+	 * @throws IOException      if writing the response fails.
+	 */
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+		if (header == null || !header.startsWith(BEARER_PREFIX)) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		Authentication authentication = accessTokenService.verify(header.substring(BEARER_PREFIX.length()).trim());
+		if (authentication == null) {
+			response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+			response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid or expired token");
+			return;
+		}
+
+		SecurityContext context = SecurityContextHolder.createEmptyContext();
+		context.setAuthentication(authentication);
+		SecurityContextHolder.setContext(context);
+		filterChain.doFilter(request, response);
+	}
+
+}
@@ -0,0 +1,217 @@
+package entity.mapping.authenticateprovider;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+/**
+ * AccessTokenService issues and verifies the stateless access tokens returned by /login
+ * when token mode is enabled.
+ *
+ * A token has the form {@code keyId.payload.signature}. The payload carries the email,
+ * the authorities and the expiry time; the signature is an HMAC-SHA256 over the key ID
+ * and the payload. Tokens are always signed with the active key, but are accepted with
+ * any configured key, so keys can be rotated by adding a new key, making it active, and
+ * removing the old one once its tokens have expired.
+ */
+@Component
+public class AccessTokenService {
+
+	/**
+	 * HMAC algorithm used to sign tokens.
+	 */
+	private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+
+	/**
+	 * Minimum key length in bytes, matching the output size of the HMAC.
+	 */
+	private static final int MIN_KEY_LENGTH = 32;
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	/**
+	 * Whether /login issues tokens and requests are authenticated with them.
+	 */
+	private final boolean enabled;
+
+	/**
+	 * How long an issued token stays valid.
+	 */
+	private final Duration ttl;
+
+	/**
+	 * ID of the key new tokens are signed with.
+	 */
+	private final String activeKeyId;
+
+	/**
+	 * Initialized MAC per key ID, cloned for every signature.
+	 */
+	private final Map<String, Mac> keys = new HashMap<>();
+
+	/**
+	 * Clock used to stamp and check expiry times.
+	 */
+	private final Clock clock;
+
+	/**
+	 * Constructs an AccessTokenService from the application properties.
+	 *
+	 * @param enabled     whether token mode is enabled.
+	 * @param ttl         how long issued tokens stay valid.
+	 * @param activeKeyId the ID of the key used to sign new tokens.
+	 * @param keys        the signing keys, as comma separated {@code id:base64Secret} pairs.
+	 */
+	@Autowired
+	public AccessTokenService(@Value("${auth.token.enabled:false}") boolean enabled,
+			@Value("${auth.token.ttl:15m}") Duration ttl,
+			@Value("${auth.token.active-key-id:}") String activeKeyId,
+			@Value("${auth.token.keys:}") String keys) {
+		this(enabled, ttl, activeKeyId, keys, Clock.systemUTC());
+	}
+
+	/**
+	 * Constructs an AccessTokenService with an explicit clock.
+	 *
+	 * @param enabled     whether token mode is enabled.
+	 * @param ttl         how long issued tokens stay valid.
+	 * @param activeKeyId the ID of the key used to sign new tokens.
+	 * @param keys        the signing keys, as comma separated {@code id:base64Secret} pairs.
+	 * @param clock       the clock used for expiry times.
+	 * @throws IllegalStateException if token mode is enabled without a valid active key.
+	 */
+	public AccessTokenService(boolean enabled, Duration ttl, String activeKeyId, String keys, Clock clock) {
+		this.enabled = enabled;
+		this.ttl = ttl;
+		this.activeKeyId = activeKeyId;
+		this.clock = clock;
+		if (!enabled) {
+			return;
+		}
+		for (String pair : keys.split(",")) {
+			String[] parts = pair.trim().split(":", 2);
+			if (parts.length != 2) {
+				throw new IllegalStateException("auth.token.keys entries must have the form id:base64Secret");
+			}
+			byte[] secret = Base64.getDecoder().decode(parts[1].trim());
+			if (secret.length < MIN_KEY_LENGTH) {
+				throw new IllegalStateException("Token key " + parts[0] + " must be at least " + MIN_KEY_LENGTH + " bytes");
+			}
+			try {
+				Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+				mac.init(new SecretKeySpec(secret, SIGNATURE_ALGORITHM));
+				this.keys.put(parts[0].trim(), mac);
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException("Cannot initialize token key " + parts[0], e);
+			}
+		}
+		if (!this.keys.containsKey(activeKeyId)) {
+			throw new IllegalStateException("auth.token.active-key-id must name one of auth.token.keys");
+		}
+	}
+
+	/**
+	 * Indicates whether token mode is enabled.
+	 *
+	 * @return true if /login issues tokens and the security filter chain is stateless.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Gets how long issued tokens stay valid.
+	 *
+	 * @return the token time to live.
+	 */
+	public Duration getTtl() {
+		return ttl;
+	}
+
+	/**
+	 * Issues a token for an authenticated user.
+	 *
+	 * @param authentication the result of a successful authentication.
+	 * @return the signed token.
+	 */
+	public String issue(Authentication authentication) {
+		String authorities = authentication.getAuthorities().stream()
+				.map(GrantedAuthority::getAuthority)
+				.collect(Collectors.joining(","));
+		long expiresAt = clock.instant().plus(ttl).getEpochSecond();
+		String payload = authentication.getName() + "\n" + authorities + "\n" + expiresAt;
+		String encodedPayload = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+		return activeKeyId + "." + encodedPayload + "." + ENCODER.encodeToString(sign(activeKeyId, encodedPayload));
+	}
+
+	/**
+	 * Verifies a token and rebuilds the authentication it carries, without any lookup.
+	 *
+	 * @param token the token presented by the client.
+	 * @return the authenticated user, or null if the token is malformed, forged, signed
+	 *         with an unknown key, or expired.
+	 */
+	public Authentication verify(String token) {
+		String[] parts = token.split("\\.");
+		if (parts.length != 3 || !keys.containsKey(parts[0])) {
+			return null;
+		}
+		try {
+			byte[] signature = DECODER.decode(parts[2]);
+			if (!MessageDigest.isEqual(signature, sign(parts[0], parts[1]))) {
+				return null;
+			}
+			String[] claims = new String(DECODER.decode(parts[1]), StandardCharsets.UTF_8).split("\n", -1);
+			if (claims.length != 3 || Long.parseLong(claims[2]) <= clock.instant().getEpochSecond()) {
+				return null;
+			}
+			List<GrantedAuthority> authorities = Stream.of(claims[1].split(","))
+					.filter(authority -> !authority.isEmpty())
+					.map(authority -> (GrantedAuthority) new SimpleGrantedAuthority(authority))
+					.toList();
+			return UsernamePasswordAuthenticationToken.authenticated(claims[0], null, authorities);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Signs the key ID and the encoded payload with the given key.
+	 *
+	 * @param keyId          the ID of the signing key.
+	 * @param encodedPayload the Base64 encoded payload.
+	 * @return the HMAC signature.
+	 */
+	private byte[] sign(String keyId, String encodedPayload) {
+		try {
+			Mac mac = (Mac) keys.get(keyId).clone();
+			mac.update(keyId.getBytes(StandardCharsets.UTF_8));
+			mac.update((byte) '.');
+			return mac.doFinal(encodedPayload.getBytes(StandardCharsets.UTF_8));
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException("Cannot compute token signature", e);
+		}
+	}
+
+}
@@ -0,0 +1,206 @@
+package entity.mapping.authenticateprovider;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * AuthenticationCache remembers recently verified credentials, so that repeated requests
+ * from the same user skip both the user lookup and the BCrypt check.
+ *
+ * Entries are keyed on the email. A successful entry holds an HMAC-SHA256 digest of the
+ * presented password, computed with a random key generated at startup, so the cache
+ * never holds the password itself and the digests cannot be reused outside this process.
+ * Unknown emails are cached as negative entries with a shorter time to live.
+ */
+@Component
+public class AuthenticationCache {
+
+	/**
+	 * HMAC algorithm used to digest presented passwords.
+	 */
+	private static final String DIGEST_ALGORITHM = "HmacSHA256";
+
+	/**
+	 * A cached authentication outcome for one email.
+	 *
+	 * @param credentialDigest the digest of the verified password, or null for an unknown email.
+	 * @param authorities      the authorities granted to the user, or null for an unknown email.
+	 */
+	private record Entry(byte[] credentialDigest, List<GrantedAuthority> authorities) {
+
+		boolean isUnknownUser() {
+			return credentialDigest == null;
+		}
+	}
+
+	/**
+	 * Whether the cache is used at all.
+	 */
+	private final boolean enabled;
+
+	/**
+	 * Cached outcomes keyed by email.
+	 */
+	private final Cache<String, Entry> entries;
+
+	/**
+	 * Initialized MAC that is cloned for every digest, so the key is only set up once.
+	 */
+	private final Mac macPrototype;
+
+	/**
+	 * Constructs an AuthenticationCache.
+	 *
+	 * @param enabled     whether the cache is used.
+	 * @param ttl         how long a verified credential is trusted.
+	 * @param negativeTtl how long an unknown email is remembered.
+	 * @param maxSize     the maximum number of cached emails.
+	 */
+	public AuthenticationCache(@Value("${auth.cache.enabled:true}") boolean enabled,
+			@Value("${auth.cache.ttl:60s}") Duration ttl,
+			@Value("${auth.cache.negative-ttl:5s}") Duration negativeTtl,
+			@Value("${auth.cache.max-size:10000}") long maxSize) {
+		this.enabled = enabled;
+		this.entries = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfter(new Expiry<String, Entry>() {
+					@Override
+					public long expireAfterCreate(String email, Entry entry, long currentTime) {
+						return (entry.isUnknownUser() ? negativeTtl : ttl).toNanos();
+					}
+
+					@Override
+					public long expireAfterUpdate(String email, Entry entry, long currentTime, long currentDuration) {
+						return expireAfterCreate(email, entry, currentTime);
+					}
+
+					@Override
+					public long expireAfterRead(String email, Entry entry, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.build();
+
+		byte[] key = new byte[32];
+		new SecureRandom().nextBytes(key);
+		try {
+			this.macPrototype = Mac.getInstance(DIGEST_ALGORITHM);
+			this.macPrototype.init(new SecretKeySpec(key, DIGEST_ALGORITHM));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Cannot initialize credential digest", e);
+		}
+	}
+
+	/**
+	 * Returns the authorities of a user whose credentials were recently verified.
+	 *
+	 * @param email    the presented email.
+	 * @param password the presented password.
+	 * @return the cached authorities, or null if the credentials must be verified again.
+	 */
+	public Collection<GrantedAuthority> getAuthorities(String email, String password) {
+		if (!enabled || email == null || password == null) {
+			return null;
+		}
+		Entry entry = entries.getIfPresent(email);
+		if (entry == null || entry.isUnknownUser()) {
+			return null;
+		}
+		return MessageDigest.isEqual(entry.credentialDigest(), digest(email, password)) ? entry.authorities() : null;
+	}
+
+	/**
+	 * Indicates whether the email was recently looked up and found not to exist.
+	 *
+	 * @param email the presented email.
+	 * @return true if the email is known not to exist.
+	 */
+	public boolean isUnknownUser(String email) {
+		if (!enabled || email == null) {
+			return false;
+		}
+		Entry entry = entries.getIfPresent(email);
+		return entry != null && entry.isUnknownUser();
+	}
+
+	/**
+	 * Remembers credentials that were just verified.
+	 *
+	 * @param email       the verified email.
+	 * @param password    the verified password.
+	 * @param authorities the authorities granted to the user.
+	 */
+	public void putVerified(String email, String password, Collection<? extends GrantedAuthority> authorities) {
+		if (enabled) {
+			List<GrantedAuthority> copy = authorities.stream()
+					.map(authority -> (GrantedAuthority) new SimpleGrantedAuthority(authority.getAuthority()))
+					.toList();
+			entries.put(email, new Entry(digest(email, password), copy));
+		}
+	}
+
+	/**
+	 * Remembers that no user exists with the given email.
+	 *
+	 * @param email the email that was not found.
+	 */
+	public void putUnknownUser(String email) {
+		if (enabled && email != null) {
+			entries.put(email, new Entry(null, null));
+		}
+	}
+
+	/**
+	 * Forgets the cached outcome for one email.
+	 *
+	 * @param email the email whose entry is removed.
+	 */
+	public void invalidate(String email) {
+		if (email != null) {
+			entries.invalidate(email);
+		}
+	}
+
+	/**
+	 * Forgets all cached outcomes.
+	 */
+	public void invalidateAll() {
+		entries.invalidateAll();
+	}
+
+	/**
+	 * Computes the keyed digest of a presented credential.
+	 *
+	 * @param email    the presented email, bound into the digest.
+	 * @param password the presented password.
+	 * @return the HMAC of the email and password.
+	 */
+	private byte[] digest(String email, String password) {
+		try {
+			Mac mac = (Mac) macPrototype.clone();
+			mac.update(email.getBytes(StandardCharsets.UTF_8));
+			mac.update((byte) 0);
+			return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException("Cannot compute credential digest", e);
+		}
+	}
+
+}
@@ -1,20 +1,37 @@
 package entity.mapping.authenticateprovider;
 
+import java.util.Collection;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import entity.mapping.bulkhead.AdaptiveLimiter;
+import entity.mapping.bulkhead.BulkheadRegistry;
 import entity.mapping.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * CustomAuthenticationProvider is an implementation of AuthenticationProvider 
  * that provides custom authentication logic for user login.
+ * 
+ * Verified credentials are remembered by the {@link AuthenticationCache}, so repeated
+ * requests from the same user neither query the database nor run BCrypt again.
+ * 
+ * Every attempt is counted as "auth.attempts", tagged with the outcome (success or
+ * failure) and the source of the decision (cache or database).
+ * 
+ * Checks that reach the database run in the "login" bulkhead, so a burst of logins
+ * against a slow database is shed with a 503 instead of tying up every request thread.
  */
 @Component
 public class CustomAuthenticationProvider implements AuthenticationProvider {
@@ -26,24 +43,104 @@ public class CustomAuthenticationProvider implements AuthenticationProvider {
 	@Autowired
 	private UserService  userDetailsService;
 
+	/**
+	 * Encoder used to check the presented password against the stored hash.
+	 * Injected lazily because it is defined by SecurityConfig, which depends on this provider.
+	 */
+	@Autowired
+	@Lazy
+	private PasswordEncoder passwordEncoder;
+
+	/**
+	 * Cache of recently verified credentials and unknown emails.
+	 */
+	@Autowired
+	private AuthenticationCache authenticationCache;
+
+	/**
+	 * Registry the authentication counters are recorded in.
+	 */
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Registry providing the bulkhead for database-backed credential checks.
+	 */
+	@Autowired
+	private BulkheadRegistry bulkheadRegistry;
+
 	/**
 	 * Authenticates a user based on the provided authentication details.
 	 *
 	 * @param authentication the authentication request containing the username and password.
 	 * @return an Authentication object containing the authenticated user's details.
 	 * @throws BadCredentialsException if the username is not found or the credentials are invalid.
+	 * @throws entity.mapping.bulkhead.BulkheadRejectedException if the login bulkhead is saturated.
 	 */
 	@Override
 	public Authentication authenticate(Authentication authentication) {
+		String email = authentication.getName();
+		String password = authentication.getCredentials() == null ? null : authentication.getCredentials().toString();
+
+		Collection<GrantedAuthority> cachedAuthorities = authenticationCache.getAuthorities(email, password);
+		if (cachedAuthorities != null) {
+			countAttempt("success", "cache");
+			return new UsernamePasswordAuthenticationToken(email, null, cachedAuthorities);
+		}
+		if (authenticationCache.isUnknownUser(email)) {
+			countAttempt("failure", "cache");
+			throw new BadCredentialsException("Invalid Credentials");
+		}
+
+		AdaptiveLimiter limiter = bulkheadRegistry.get(BulkheadRegistry.LOGIN);
+		if (limiter == null) {
+			return authenticateWithDatabase(email, password);
+		}
+		limiter.acquire();
+		long start = System.nanoTime();
+		try {
+			return authenticateWithDatabase(email, password);
+		} finally {
+			limiter.release(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Checks the credentials against the stored user and caches the outcome.
+	 *
+	 * @param email    the presented email.
+	 * @param password the presented password.
+	 * @return an Authentication object containing the authenticated user's details.
+	 * @throws BadCredentialsException if the username is not found or the credentials are invalid.
+	 */
+	private Authentication authenticateWithDatabase(String email, String password) {
 		try {
-			UserDetails userDetails = userDetailsService.loadUserByUsername(authentication.getName());
+			UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+			if (password == null || !passwordEncoder.matches(password, userDetails.getPassword())) {
+				countAttempt("failure", "database");
+				throw new BadCredentialsException("Invalid Credentials");
+			}
+			authenticationCache.putVerified(email, password, userDetails.getAuthorities());
+			countAttempt("success", "database");
 			return new UsernamePasswordAuthenticationToken(userDetails.getUsername(), userDetails.getPassword(), userDetails.getAuthorities());
 
 		}catch(UsernameNotFoundException e) {
+			authenticationCache.putUnknownUser(email);
+			countAttempt("failure", "database");
 			throw new BadCredentialsException("Invalid Credentials");
 		}
 	}
 
+	/**
+	 * Counts an authentication attempt.
+	 *
+	 * @param outcome whether the attempt succeeded or failed.
+	 * @param source  whether the decision came from the cache or the database.
+	 */
+	private void countAttempt(String outcome, String source) {
+		meterRegistry.counter("auth.attempts", "outcome", outcome, "source", source).increment();
+	}
+
 	/**
 	 * Indicates whether this provider supports the specified authentication type.
 	 *
@@ -0,0 +1,79 @@
+package entity.mapping.authenticateprovider;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import entity.mapping.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * UserChangeListener is a JPA entity listener that evicts cached authentications as soon
+ * as a User row changes, so new passwords and roles take effect immediately.
+ *
+ * Entries are evicted when the change is flushed and again when the transaction
+ * completes, so a lookup running concurrently with the transaction cannot put the
+ * previous credentials back into the cache.
+ */
+@Component
+public class UserChangeListener {
+
+	/**
+	 * The cache of verified credentials.
+	 */
+	@Autowired
+	private AuthenticationCache authenticationCache;
+
+	/**
+	 * Evicts the negative entry of a newly registered email.
+	 *
+	 * @param user the user that was inserted.
+	 */
+	@PostPersist
+	public void userCreated(User user) {
+		evict(user.getEmail(), false);
+	}
+
+	/**
+	 * Evicts all entries when a user is updated, because the email itself may have changed.
+	 *
+	 * @param user the user that was updated.
+	 */
+	@PostUpdate
+	public void userUpdated(User user) {
+		evict(user.getEmail(), true);
+	}
+
+	/**
+	 * Evicts the entry of a deleted user.
+	 *
+	 * @param user the user that was deleted.
+	 */
+	@PostRemove
+	public void userRemoved(User user) {
+		evict(user.getEmail(), false);
+	}
+
+	/**
+	 * Evicts now and, if a transaction is active, once more after it completes.
+	 *
+	 * @param email the email of the changed user.
+	 * @param all   whether to evict every entry instead of the one email.
+	 */
+	private void evict(String email, boolean all) {
+		Runnable eviction = all ? authenticationCache::invalidateAll : () -> authenticationCache.invalidate(email);
+		eviction.run();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					eviction.run();
+				}
+			});
+		}
+	}
+
+}
@@ -0,0 +1,336 @@
+package entity.mapping.bulkhead;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AdaptiveLimiter bounds the number of calls in flight, queues a bounded number of
+ * further calls, and rejects the rest straight away.
+ *
+ * Queued calls are admitted in arrival order; a call that finds the queue full, or that
+ * waits longer than the maximum wait, is rejected with a
+ * {@link BulkheadRejectedException}, so overload turns into fast failures instead of
+ * requests piling up behind the database.
+ *
+ * When adaptive, the limit follows the observed latency in the way TCP congestion
+ * control follows round trip times. Latencies are averaged over windows of roughly one
+ * limit's worth of calls and compared with a baseline, the lowest window average seen.
+ * If a window is slower than the baseline by more than the tolerance, the limit is cut
+ * by a quarter; if it is not, and the limit was actually reached during the window, the
+ * limit grows by one. The baseline drifts upwards by an eighth per window, so a
+ * permanent change in the database's speed is eventually accepted as the new normal.
+ */
+public class AdaptiveLimiter {
+
+	/**
+	 * Smallest number of calls a window is averaged over.
+	 */
+	private static final int MIN_WINDOW = 10;
+
+	/**
+	 * Factor the limit is multiplied by when latency degrades.
+	 */
+	private static final double BACKOFF = 0.75;
+
+	/**
+	 * The name of the bulkhead, used in rejections.
+	 */
+	private final String name;
+
+	/**
+	 * Bounds within which the limit adapts.
+	 */
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	/**
+	 * Number of calls that may wait for a permit.
+	 */
+	private final int maxQueue;
+
+	/**
+	 * How long a queued call waits before it is rejected, in nanoseconds.
+	 */
+	private final long maxWaitNanos;
+
+	/**
+	 * Whether the limit adapts to the observed latency.
+	 */
+	private final boolean adaptive;
+
+	/**
+	 * How much slower than the baseline a window may be before the limit is cut.
+	 */
+	private final double tolerance;
+
+	/**
+	 * Retry delay suggested to rejected callers.
+	 */
+	private final Duration retryAfter;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Signalled whenever a permit may have become available.
+	 */
+	private final Condition permitAvailable = lock.newCondition();
+
+	private int limit;
+
+	private int inFlight;
+
+	private int queued;
+
+	/**
+	 * Lowest average latency of a window, in nanoseconds, or zero before the first window.
+	 */
+	private long baselineNanos;
+
+	private long windowLatencyNanos;
+
+	private int windowSamples;
+
+	/**
+	 * Whether the limit was reached during the current window.
+	 */
+	private boolean windowSaturated;
+
+	private final AtomicLong rejectedQueueFull = new AtomicLong();
+
+	private final AtomicLong rejectedTimeout = new AtomicLong();
+
+	/**
+	 * Constructs an AdaptiveLimiter.
+	 *
+	 * @param name         the name of the bulkhead.
+	 * @param initialLimit the number of calls allowed in flight at first.
+	 * @param minLimit     the lowest the limit may adapt to.
+	 * @param maxLimit     the highest the limit may adapt to.
+	 * @param maxQueue     the number of calls that may wait for a permit.
+	 * @param maxWait      how long a queued call waits before it is rejected.
+	 * @param adaptive     whether the limit adapts to the observed latency.
+	 * @param tolerance    how much slower than the baseline latency may become, e.g. 2.0.
+	 * @param retryAfter   the retry delay suggested to rejected callers.
+	 */
+	public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, int maxQueue, Duration maxWait,
+			boolean adaptive, double tolerance, Duration retryAfter) {
+		if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+			throw new IllegalArgumentException("Bulkhead " + name + " needs 1 <= min-limit <= limit <= max-limit");
+		}
+		this.name = name;
+		this.limit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.maxQueue = maxQueue;
+		this.maxWaitNanos = maxWait.toNanos();
+		this.adaptive = adaptive;
+		this.tolerance = tolerance;
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * Takes a permit, waiting in the queue if the limit is reached.
+	 *
+	 * @throws BulkheadRejectedException if the queue is full, the wait times out or the
+	 *                                   calling thread is interrupted while waiting.
+	 */
+	public void acquire() {
+		lock.lock();
+		try {
+			if (queued == 0 && inFlight < limit) {
+				admit();
+				return;
+			}
+			if (queued >= maxQueue) {
+				rejectedQueueFull.incrementAndGet();
+				throw new BulkheadRejectedException(name, "queue full", retryAfter);
+			}
+			windowSaturated = true;
+			queued++;
+			try {
+				long remaining = maxWaitNanos;
+				while (inFlight >= limit) {
+					if (remaining <= 0) {
+						rejectedTimeout.incrementAndGet();
+						throw new BulkheadRejectedException(name, "timed out waiting for a permit", retryAfter);
+					}
+					remaining = permitAvailable.awaitNanos(remaining);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				if (inFlight < limit) {
+					permitAvailable.signal();
+				}
+				throw new BulkheadRejectedException(name, "interrupted while waiting for a permit", retryAfter);
+			} finally {
+				queued--;
+			}
+			admit();
+			if (inFlight < limit && queued > 0) {
+				permitAvailable.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns a permit and, when adaptive, records how long the call took.
+	 *
+	 * @param latencyNanos the time the call held the permit, in nanoseconds.
+	 */
+	public void release(long latencyNanos) {
+		lock.lock();
+		try {
+			inFlight--;
+			if (adaptive) {
+				sample(latencyNanos);
+			}
+			permitAvailable.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns a permit without recording how long the call took, for calls whose duration
+	 * depends on the amount of data they handle rather than on how loaded the database is.
+	 */
+	public void release() {
+		lock.lock();
+		try {
+			inFlight--;
+			permitAvailable.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Counts a call as in flight. Must be called with the lock held.
+	 */
+	private void admit() {
+		inFlight++;
+		if (inFlight >= limit) {
+			windowSaturated = true;
+		}
+	}
+
+	/**
+	 * Adds a latency to the current window and adapts the limit once the window is
+	 * complete. Must be called with the lock held.
+	 *
+	 * @param latencyNanos the latency of a completed call.
+	 */
+	private void sample(long latencyNanos) {
+		windowLatencyNanos += latencyNanos;
+		windowSamples++;
+		if (windowSamples < Math.max(limit, MIN_WINDOW)) {
+			return;
+		}
+
+		long average = windowLatencyNanos / windowSamples;
+		if (baselineNanos == 0) {
+			baselineNanos = average;
+		} else if (average > baselineNanos * tolerance) {
+			limit = Math.max(minLimit, (int) (limit * BACKOFF));
+		} else if (windowSaturated && limit < maxLimit) {
+			limit++;
+			permitAvailable.signal();
+		}
+		baselineNanos = Math.min(average, baselineNanos + baselineNanos / 8);
+
+		windowLatencyNanos = 0;
+		windowSamples = 0;
+		windowSaturated = inFlight >= limit;
+	}
+
+	/**
+	 * Gets the name of the bulkhead.
+	 *
+	 * @return the bulkhead name.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Gets the current concurrency limit.
+	 *
+	 * @return the number of calls allowed in flight.
+	 */
+	public int getLimit() {
+		lock.lock();
+		try {
+			return limit;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of calls holding a permit.
+	 *
+	 * @return the calls in flight.
+	 */
+	public int getInFlight() {
+		lock.lock();
+		try {
+			return inFlight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of calls waiting for a permit.
+	 *
+	 * @return the queued calls.
+	 */
+	public int getQueued() {
+		lock.lock();
+		try {
+			return queued;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the baseline latency the limit is adapted against.
+	 *
+	 * @param unit the unit to return the latency in.
+	 * @return the baseline latency, or zero before the first window completed.
+	 */
+	public double getBaselineLatency(TimeUnit unit) {
+		lock.lock();
+		try {
+			return (double) baselineNanos / unit.toNanos(1);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of calls rejected because the queue was full.
+	 *
+	 * @return the rejection count.
+	 */
+	public long getRejectedQueueFull() {
+		return rejectedQueueFull.get();
+	}
+
+	/**
+	 * Gets the number of calls rejected because they waited too long.
+	 *
+	 * @return the rejection count.
+	 */
+	public long getRejectedTimeout() {
+		return rejectedTimeout.get();
+	}
+
+}
@@ -0,0 +1,39 @@
+package entity.mapping.bulkhead;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a service method that may only run while a permit of the named bulkhead is held.
+ *
+ * Calls beyond the bulkhead's concurrency limit wait in its bounded queue, and are
+ * rejected with a {@link BulkheadRejectedException} when the queue is full or the wait
+ * times out. See {@link BulkheadRegistry} for the available bulkheads.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+
+	/**
+	 * The name of the bulkhead, one of {@link BulkheadRegistry#READ},
+	 * {@link BulkheadRegistry#WRITE} or {@link BulkheadRegistry#LOGIN}.
+	 *
+	 * @return the bulkhead name.
+	 */
+	String value();
+
+	/**
+	 * Whether the latency of the call adapts the bulkhead's limit. Long running bulk
+	 * operations, such as exports and bulk deletions, take long because of how much they
+	 * handle, not because the database is overloaded, so they hold a permit without
+	 * skewing the latency average of the short calls.
+	 *
+	 * @return false if the call is left out of the latency samples.
+	 */
+	boolean sampled() default true;
+
+}
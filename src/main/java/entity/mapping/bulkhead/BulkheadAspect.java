@@ -0,0 +1,66 @@
+package entity.mapping.bulkhead;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * BulkheadAspect runs methods annotated with {@link Bulkhead} only while a permit of
+ * the named bulkhead is held.
+ *
+ * The aspect is ordered before the transaction and timer advice, so a queued call does not hold a
+ * transaction or a connection while it waits. Calls made while the thread already holds
+ * a permit, such as one service method calling another through its proxy, are not
+ * limited again, which rules out a thread waiting on a permit it holds itself.
+ */
+@Aspect
+@Component
+@Order(0)
+public class BulkheadAspect {
+
+	/**
+	 * Marks threads that currently hold a bulkhead permit.
+	 */
+	private static final ThreadLocal<Boolean> HOLDING_PERMIT = new ThreadLocal<>();
+
+	/**
+	 * Registry the bulkheads are looked up in.
+	 */
+	@Autowired
+	private BulkheadRegistry bulkheadRegistry;
+
+	/**
+	 * Takes a permit of the annotated bulkhead for the duration of the call.
+	 *
+	 * @param joinPoint the intercepted call.
+	 * @param bulkhead  the annotation naming the bulkhead.
+	 * @return the result of the call.
+	 * @throws Throwable whatever the call throws, or a {@link BulkheadRejectedException}
+	 *                   if the call is not admitted.
+	 */
+	@Around("@annotation(bulkhead)")
+	public Object limit(ProceedingJoinPoint joinPoint, Bulkhead bulkhead) throws Throwable {
+		AdaptiveLimiter limiter = bulkheadRegistry.get(bulkhead.value());
+		if (limiter == null || HOLDING_PERMIT.get() != null) {
+			return joinPoint.proceed();
+		}
+
+		limiter.acquire();
+		HOLDING_PERMIT.set(Boolean.TRUE);
+		long start = System.nanoTime();
+		try {
+			return joinPoint.proceed();
+		} finally {
+			HOLDING_PERMIT.remove();
+			if (bulkhead.sampled()) {
+				limiter.release(System.nanoTime() - start);
+			} else {
+				limiter.release();
+			}
+		}
+	}
+
+}
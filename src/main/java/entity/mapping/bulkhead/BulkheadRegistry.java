@@ -0,0 +1,141 @@
+package entity.mapping.bulkhead;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * BulkheadRegistry holds the bulkheads that keep one kind of work from starving the
+ * others when the database slows down.
+ *
+ * There are three bulkheads: "read" for customer queries, "write" for customer changes
+ * and "login" for credential checks that miss the authentication cache. Each is
+ * configured with {@code bulkhead.<name>.limit}, {@code .min-limit}, {@code .max-limit},
+ * {@code .max-queue} and {@code .max-wait}; {@code bulkhead.adaptive} and
+ * {@code bulkhead.latency-tolerance} control how the limits follow the observed latency.
+ *
+ * Every bulkhead is exposed as the gauges "bulkhead.limit", "bulkhead.in_flight",
+ * "bulkhead.queued" and "bulkhead.baseline_latency" and the counter "bulkhead.rejected",
+ * tagged with its name and, for rejections, the reason.
+ */
+@Component
+public class BulkheadRegistry {
+
+	/**
+	 * Bulkhead for customer queries.
+	 */
+	public static final String READ = "read";
+
+	/**
+	 * Bulkhead for customer inserts, updates and deletes.
+	 */
+	public static final String WRITE = "write";
+
+	/**
+	 * Bulkhead for credential checks against the database.
+	 */
+	public static final String LOGIN = "login";
+
+	/**
+	 * Whether calls are limited at all.
+	 */
+	private final boolean enabled;
+
+	/**
+	 * The bulkheads by name.
+	 */
+	private final Map<String, AdaptiveLimiter> limiters = new LinkedHashMap<>();
+
+	/**
+	 * Constructs a BulkheadRegistry from the application properties and registers the
+	 * metrics of every bulkhead.
+	 *
+	 * @param environment   the environment the bulkhead properties are read from.
+	 * @param meterRegistry the registry the bulkhead metrics are exposed in.
+	 */
+	public BulkheadRegistry(Environment environment, MeterRegistry meterRegistry) {
+		this.enabled = environment.getProperty("bulkhead.enabled", Boolean.class, true);
+		int processors = Runtime.getRuntime().availableProcessors();
+		register(environment, READ, 8, 32, 50);
+		register(environment, WRITE, 4, 16, 20);
+		register(environment, LOGIN, processors, 2 * processors, 20);
+		limiters.values().forEach(limiter -> bindMetrics(limiter, meterRegistry));
+	}
+
+	/**
+	 * Gets a bulkhead by name.
+	 *
+	 * @param name the bulkhead name.
+	 * @return the bulkhead, or null if bulkheads are disabled.
+	 * @throws IllegalArgumentException if no bulkhead has the given name.
+	 */
+	public AdaptiveLimiter get(String name) {
+		AdaptiveLimiter limiter = limiters.get(name);
+		if (limiter == null) {
+			throw new IllegalArgumentException("Unknown bulkhead: " + name);
+		}
+		return enabled ? limiter : null;
+	}
+
+	/**
+	 * Creates a bulkhead from its properties.
+	 *
+	 * @param environment     the environment the properties are read from.
+	 * @param name            the bulkhead name.
+	 * @param defaultLimit    the initial limit if none is configured.
+	 * @param defaultMaxLimit the maximum limit if none is configured.
+	 * @param defaultMaxQueue the queue size if none is configured.
+	 */
+	private void register(Environment environment, String name, int defaultLimit, int defaultMaxLimit,
+			int defaultMaxQueue) {
+		String prefix = "bulkhead." + name + ".";
+		int limit = environment.getProperty(prefix + "limit", Integer.class, defaultLimit);
+		limiters.put(name, new AdaptiveLimiter(name,
+				limit,
+				environment.getProperty(prefix + "min-limit", Integer.class, 1),
+				environment.getProperty(prefix + "max-limit", Integer.class, Math.max(limit, defaultMaxLimit)),
+				environment.getProperty(prefix + "max-queue", Integer.class, defaultMaxQueue),
+				environment.getProperty(prefix + "max-wait", Duration.class, Duration.ofMillis(500)),
+				environment.getProperty("bulkhead.adaptive", Boolean.class, true),
+				environment.getProperty("bulkhead.latency-tolerance", Double.class, 2.0),
+				environment.getProperty("bulkhead.retry-after", Duration.class, Duration.ofSeconds(1))));
+	}
+
+	/**
+	 * Registers the gauges and rejection counters of a bulkhead.
+	 *
+	 * @param limiter       the bulkhead.
+	 * @param meterRegistry the registry the metrics are registered in.
+	 */
+	private static void bindMetrics(AdaptiveLimiter limiter, MeterRegistry meterRegistry) {
+		String name = limiter.getName();
+		Gauge.builder("bulkhead.limit", limiter, AdaptiveLimiter::getLimit)
+				.tag("name", name)
+				.register(meterRegistry);
+		Gauge.builder("bulkhead.in_flight", limiter, AdaptiveLimiter::getInFlight)
+				.tag("name", name)
+				.register(meterRegistry);
+		Gauge.builder("bulkhead.queued", limiter, AdaptiveLimiter::getQueued)
+				.tag("name", name)
+				.register(meterRegistry);
+		Gauge.builder("bulkhead.baseline_latency", limiter, l -> l.getBaselineLatency(TimeUnit.SECONDS))
+				.tag("name", name)
+				.baseUnit("seconds")
+				.register(meterRegistry);
+		FunctionCounter.builder("bulkhead.rejected", limiter, AdaptiveLimiter::getRejectedQueueFull)
+				.tags("name", name, "reason", "queue_full")
+				.register(meterRegistry);
+		FunctionCounter.builder("bulkhead.rejected", limiter, AdaptiveLimiter::getRejectedTimeout)
+				.tags("name", name, "reason", "timeout")
+				.register(meterRegistry);
+	}
+
+}
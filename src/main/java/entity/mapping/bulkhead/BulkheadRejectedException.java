@@ -0,0 +1,56 @@
+package entity.mapping.bulkhead;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a call is not admitted by a bulkhead, either because its wait queue is
+ * full or because no permit became available in time.
+ *
+ * {@link BulkheadRejectionFilter} turns it into a 503 response with a Retry-After header.
+ */
+public class BulkheadRejectedException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The name of the bulkhead that rejected the call.
+	 */
+	private final String bulkhead;
+
+	/**
+	 * How long the client should wait before trying again.
+	 */
+	private final Duration retryAfter;
+
+	/**
+	 * Constructs a BulkheadRejectedException.
+	 *
+	 * @param bulkhead   the name of the bulkhead that rejected the call.
+	 * @param reason     why the call was rejected.
+	 * @param retryAfter how long the client should wait before trying again.
+	 */
+	public BulkheadRejectedException(String bulkhead, String reason, Duration retryAfter) {
+		super("Bulkhead " + bulkhead + " rejected the call: " + reason);
+		this.bulkhead = bulkhead;
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * Gets the name of the bulkhead that rejected the call.
+	 *
+	 * @return the bulkhead name.
+	 */
+	public String getBulkhead() {
+		return bulkhead;
+	}
+
+	/**
+	 * Gets how long the client should wait before trying again.
+	 *
+	 * @return the suggested retry delay.
+	 */
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+
+}
@@ -0,0 +1,73 @@
+package entity.mapping.bulkhead;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * BulkheadRejectionFilter answers requests rejected by a bulkhead with 503 Service
+ * Unavailable and a Retry-After header.
+ *
+ * It runs before the security filter chain, so rejections raised while authenticating,
+ * whether by HTTP Basic or by /login, are handled the same way as rejections raised by
+ * the controllers.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class BulkheadRejectionFilter extends OncePerRequestFilter {
+
+	/**
+	 * Passes the request on and turns a bulkhead rejection into a 503 response.
+	 *
+	 * @param request     the current request.
+	 * @param response    the current response.
+	 * @param filterChain the remaining filters.
+	 * @throws ServletException if a later filter fails for another reason.
+	 * @throws IOException      if writing the response fails.
+	 */
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		try {
+			filterChain.doFilter(request, response);
+		} catch (ServletException | RuntimeException e) {
+			BulkheadRejectedException rejection = findRejection(e);
+			if (rejection == null || response.isCommitted()) {
+				throw e;
+			}
+			long seconds = Math.max(1, (rejection.getRetryAfter().toMillis() + 999) / 1000);
+			response.resetBuffer();
+			response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+			response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+			response.getOutputStream().write(rejection.getMessage().getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Finds a bulkhead rejection in the cause chain of an exception.
+	 *
+	 * @param e the exception thrown by the filter chain.
+	 * @return the rejection, or null if the exception was not caused by one.
+	 */
+	private static BulkheadRejectedException findRejection(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof BulkheadRejectedException rejection) {
+				return rejection;
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,544 @@
+package entity.mapping.changelog;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entity.mapping.dto.CustomerChange;
+import entity.mapping.dto.CustomerChangePage;
+import entity.mapping.entity.CustomerOutboxEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * CustomerChangeLog is the append-only log of committed customer changes that
+ * consumers read incrementally from /customerChanges.
+ *
+ * Every change has an offset, its position in the log, starting at 0. The log is split
+ * into segment files of at most {@code customer.changes.segment-size} bytes in
+ * {@code customer.changes.dir}, each named after the offset of its first change. A
+ * change is stored as a frame of its length, a CRC32C checksum, the ID of the outbox
+ * event it came from and the change as JSON. The start position of every frame is kept
+ * in memory, so a read seeks straight to its offset and reads all requested frames of a
+ * segment with one positional read.
+ *
+ * Changes are appended by {@link CustomerChangeRelay} only, in batches that are forced
+ * to disk before they become visible to readers. On startup every segment is checked;
+ * a torn frame at the end of the last segment, left by a crash during an append, is cut
+ * off, since its batch was never acknowledged to the outbox and is appended again.
+ *
+ * The directory is locked while the log is open, and holds the ID of the log, which
+ * the relay uses to claim the outbox for this log, see {@link CustomerChangeRelay}. The
+ * next offset is exposed as the gauge "customer.changes.log.end_offset". Disabled with
+ * {@code customer.changes.enabled=false}.
+ */
+@Component
+public class CustomerChangeLog {
+
+	private static final Logger log = LoggerFactory.getLogger(CustomerChangeLog.class);
+
+	/**
+	 * Bytes in front of every change: length, checksum and outbox event ID.
+	 */
+	private static final int HEADER = Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	/**
+	 * File in the directory holding the identity of the log.
+	 */
+	private static final String ID_FILE = "log.id";
+
+	/**
+	 * Whether changes are recorded and published at all.
+	 */
+	@Value("${customer.changes.enabled:true}")
+	private boolean enabled;
+
+	/**
+	 * Directory holding the segment files. Required when the log is enabled, and must be
+	 * on storage that survives a restart.
+	 */
+	@Value("${customer.changes.dir:}")
+	private String directory;
+
+	/**
+	 * Size at which a new segment is started.
+	 */
+	@Value("${customer.changes.segment-size:64MB}")
+	private DataSize segmentSize;
+
+	/**
+	 * Largest number of changes returned by one read.
+	 */
+	@Value("${customer.changes.max-read:1000}")
+	private int maxRead;
+
+	/**
+	 * Object mapper the stored changes are read with.
+	 */
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Registry the end offset is exposed in.
+	 */
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Segments by the offset of their first change.
+	 */
+	private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+	/**
+	 * The segment changes are appended to. Guarded by this.
+	 */
+	private Segment active;
+
+	/**
+	 * Offset of the next change; everything below it has been forced to disk.
+	 */
+	private volatile long endOffset;
+
+	/**
+	 * Identity of the log, kept in the directory so it survives restarts.
+	 */
+	private String logId;
+
+	private FileChannel lockChannel;
+
+	private FileLock lock;
+
+	/**
+	 * Locks the directory, checks the segments and registers the end offset gauge.
+	 *
+	 * @throws IOException           if the segments cannot be read.
+	 * @throws IllegalStateException if no directory is configured, the directory is
+	 *                               locked or a segment other than the last one is
+	 *                               corrupt.
+	 */
+	@PostConstruct
+	void open() throws IOException {
+		if (!enabled) {
+			return;
+		}
+		if (directory.isBlank()) {
+			throw new IllegalStateException("customer.changes.dir must be set when customer.changes.enabled is true");
+		}
+		Path dir = Path.of(directory);
+		Files.createDirectories(dir);
+		lockChannel = FileChannel.open(dir.resolve("lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		try {
+			lock = lockChannel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			lock = null;
+		}
+		if (lock == null) {
+			lockChannel.close();
+			throw new IllegalStateException("Change log " + dir + " is in use");
+		}
+		Path idFile = dir.resolve(ID_FILE);
+		logId = Files.exists(idFile) ? Files.readString(idFile, StandardCharsets.US_ASCII).trim() : "";
+		if (logId.isEmpty()) {
+			logId = UUID.randomUUID().toString();
+			Path temp = dir.resolve(ID_FILE + ".tmp");
+			Files.writeString(temp, logId, StandardCharsets.US_ASCII);
+			Files.move(temp, idFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+
+		List<Path> files;
+		try (Stream<Path> list = Files.list(dir)) {
+			files = list.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+		}
+		for (int i = 0; i < files.size(); i++) {
+			Segment segment = Segment.open(files.get(i), i == files.size() - 1);
+			segments.put(segment.base, segment);
+		}
+		if (segments.isEmpty()) {
+			segments.put(0L, Segment.create(dir, 0));
+		}
+		active = segments.lastEntry().getValue();
+		endOffset = active.base + active.count;
+		log.info("Opened change log {} with {} segments up to offset {}", dir, segments.size(), endOffset);
+
+		Gauge.builder("customer.changes.log.end_offset", this, CustomerChangeLog::getEndOffset)
+				.description("Offset of the next change appended to the customer change log")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Forces the active segment to disk and closes all segments.
+	 *
+	 * @throws IOException if a segment cannot be closed.
+	 */
+	@PreDestroy
+	synchronized void close() throws IOException {
+		if (lock == null) {
+			return;
+		}
+		active.channel.force(false);
+		for (Segment segment : segments.values()) {
+			segment.channel.close();
+		}
+		segments.clear();
+		lock.release();
+		lockChannel.close();
+		lock = null;
+	}
+
+	/**
+	 * Indicates whether changes are recorded and published.
+	 *
+	 * @return false if disabled with {@code customer.changes.enabled=false}.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Returns the identity of the log, which stays the same across restarts as long as
+	 * the directory does.
+	 *
+	 * @return the log ID, or null if the log is not open.
+	 */
+	public String getLogId() {
+		return logId;
+	}
+
+	/**
+	 * Returns the offset the next change will be appended at.
+	 *
+	 * @return the end offset, which is also the number of changes in the log.
+	 */
+	public long getEndOffset() {
+		return endOffset;
+	}
+
+	/**
+	 * Appends outbox events to the log, starting new segments as needed, and forces them
+	 * to disk before readers can see them.
+	 *
+	 * If writing fails, the segments are cut back to where they were, so the events can
+	 * be appended again.
+	 *
+	 * @param events the events, in the order they get their offsets.
+	 * @return the new end offset.
+	 * @throws IOException if the events cannot be written.
+	 */
+	public synchronized long append(List<CustomerOutboxEvent> events) throws IOException {
+		checkOpen();
+		Segment original = active;
+		int originalCount = original.count;
+		long offset = endOffset;
+		try {
+			ByteBuffer frames = ByteBuffer.allocate(0);
+			for (CustomerOutboxEvent event : events) {
+				byte[] payload = event.getPayload().getBytes(StandardCharsets.UTF_8);
+				int frameSize = HEADER + payload.length;
+				if (active.count > 0 && active.size() + frameSize > segmentSize.toBytes()) {
+					active.write(frames.flip());
+					active.channel.force(false);
+					frames.clear();
+					active = Segment.create(Path.of(directory), offset);
+					segments.put(offset, active);
+				}
+				if (frames.remaining() < frameSize) {
+					frames = ByteBuffer.allocate(Math.max(frames.capacity() * 2, frames.position() + frameSize))
+							.put(frames.flip());
+				}
+				active.add(active.size() + frameSize);
+				frames.putInt(payload.length).putInt(checksum(event.getId(), payload)).putLong(event.getId()).put(payload);
+				offset++;
+			}
+			active.write(frames.flip());
+			active.channel.force(false);
+		} catch (IOException | RuntimeException e) {
+			for (Segment added : segments.tailMap(original.base, false).values()) {
+				segments.remove(added.base);
+				added.channel.close();
+				Files.deleteIfExists(added.file);
+			}
+			original.truncate(originalCount);
+			active = original;
+			throw e;
+		}
+		endOffset = offset;
+		return offset;
+	}
+
+	/**
+	 * Reads changes starting at an offset.
+	 *
+	 * @param fromOffset the offset of the first change to read, at most the end offset.
+	 * @param limit      the largest number of changes to read, capped at
+	 *                   {@code customer.changes.max-read}.
+	 * @return the changes and the offset to continue from.
+	 * @throws IllegalArgumentException if the offset is out of range or the limit is not positive.
+	 * @throws IOException              if the segments cannot be read.
+	 */
+	public CustomerChangePage read(long fromOffset, int limit) throws IOException {
+		checkOpen();
+		long end = endOffset;
+		if (fromOffset < 0 || fromOffset > end) {
+			throw new IllegalArgumentException("Offset must be between 0 and " + end + " but was " + fromOffset);
+		}
+		if (limit < 1) {
+			throw new IllegalArgumentException("Limit must be positive");
+		}
+		long to = Math.min(end, fromOffset + Math.min(limit, maxRead));
+		List<CustomerChange> changes = new ArrayList<>((int) (to - fromOffset));
+		scan(fromOffset, to, (offset, eventId, payload) -> changes
+				.add(objectMapper.readValue(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining(),
+						CustomerChange.class).withOffset(offset)));
+		return new CustomerChangePage(logId, changes, to, end);
+	}
+
+	/**
+	 * Returns the outbox event IDs of the last changes in the log, so that events appended
+	 * before a crash, but not yet removed from the outbox, are not appended twice.
+	 *
+	 * @param count the number of changes to look at.
+	 * @return the event IDs of up to that many changes at the end of the log.
+	 * @throws IOException if the segments cannot be read.
+	 */
+	public Set<Long> lastEventIds(int count) throws IOException {
+		checkOpen();
+		long end = endOffset;
+		Set<Long> eventIds = new HashSet<>();
+		scan(Math.max(0, end - count), end, (offset, eventId, payload) -> eventIds.add(eventId));
+		return eventIds;
+	}
+
+	/**
+	 * Visits the changes in a range of offsets, reading each segment once.
+	 *
+	 * @param from    the first offset, inclusive.
+	 * @param to      the last offset, exclusive, at most the end offset.
+	 * @param visitor called for every change, in offset order.
+	 * @throws IOException if the segments cannot be read.
+	 */
+	private void scan(long from, long to, FrameVisitor visitor) throws IOException {
+		long offset = from;
+		while (offset < to) {
+			Map.Entry<Long, Segment> entry = segments.floorEntry(offset);
+			Segment segment = entry.getValue();
+			Long next = segments.higherKey(segment.base);
+			long segmentTo = next == null ? to : Math.min(to, next);
+			long[] positions = segment.positions;
+			long start = positions[(int) (offset - segment.base)];
+			ByteBuffer frames = ByteBuffer.allocate((int) (positions[(int) (segmentTo - segment.base)] - start));
+			while (frames.hasRemaining()) {
+				if (segment.channel.read(frames, start + frames.position()) < 0) {
+					throw new IOException("Unexpected end of change log segment " + segment.file);
+				}
+			}
+			frames.flip();
+			for (; offset < segmentTo; offset++) {
+				int length = frames.getInt();
+				frames.getInt();
+				long eventId = frames.getLong();
+				ByteBuffer payload = frames.slice(frames.position(), length);
+				visitor.visit(offset, eventId, payload);
+				frames.position(frames.position() + length);
+			}
+		}
+	}
+
+	private void checkOpen() {
+		if (!enabled) {
+			throw new IllegalStateException("The customer change log is disabled");
+		}
+	}
+
+	/**
+	 * Computes the checksum stored with a change.
+	 *
+	 * @param eventId the outbox event ID.
+	 * @param payload the change as JSON.
+	 * @return the CRC32C of both.
+	 */
+	private static int checksum(long eventId, byte[] payload) {
+		CRC32C crc = new CRC32C();
+		crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, eventId));
+		crc.update(payload);
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Receives the changes visited by {@link CustomerChangeLog#scan(long, long, FrameVisitor)}.
+	 */
+	@FunctionalInterface
+	private interface FrameVisitor {
+
+		void visit(long offset, long eventId, ByteBuffer payload) throws IOException;
+
+	}
+
+	/**
+	 * One segment file with the positions of its changes.
+	 */
+	private static final class Segment {
+
+		final long base;
+
+		final Path file;
+
+		final FileChannel channel;
+
+		/**
+		 * Start position of every change, followed by the end of the last one. Replaced
+		 * when it grows, so readers always see a consistent copy.
+		 */
+		volatile long[] positions = new long[1024];
+
+		/**
+		 * Number of changes in the segment. Guarded by the log.
+		 */
+		int count;
+
+		private Segment(long base, Path file, FileChannel channel) {
+			this.base = base;
+			this.file = file;
+			this.channel = channel;
+		}
+
+		/**
+		 * Creates an empty segment.
+		 *
+		 * @param dir  the log directory.
+		 * @param base the offset of its first change.
+		 * @return the segment.
+		 * @throws IOException if the file cannot be created.
+		 */
+		static Segment create(Path dir, long base) throws IOException {
+			Path file = dir.resolve(String.format("%020d%s", base, SEGMENT_SUFFIX));
+			return new Segment(base, file, FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+					StandardOpenOption.WRITE));
+		}
+
+		/**
+		 * Opens a segment and finds its changes, verifying every checksum.
+		 *
+		 * @param file the segment file.
+		 * @param last whether it is the last segment, whose end may be torn.
+		 * @return the segment.
+		 * @throws IOException if the file cannot be read.
+		 */
+		static Segment open(Path file, boolean last) throws IOException {
+			String name = file.getFileName().toString();
+			long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+			Segment segment = new Segment(base, file, FileChannel.open(file, StandardOpenOption.READ,
+					StandardOpenOption.WRITE));
+			long fileSize = segment.channel.size();
+			long valid = 0;
+			try (InputStream stream = Files.newInputStream(file);
+					DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+				while (valid + HEADER <= fileSize) {
+					int length = in.readInt();
+					int checksum = in.readInt();
+					long eventId = in.readLong();
+					if (length < 0 || valid + HEADER + length > fileSize) {
+						break;
+					}
+					if (checksum(eventId, in.readNBytes(length)) != checksum) {
+						break;
+					}
+					valid += HEADER + length;
+					segment.add(valid);
+				}
+			}
+			if (valid < fileSize) {
+				if (!last) {
+					segment.channel.close();
+					throw new IllegalStateException("Change log segment " + file + " is corrupt at position " + valid);
+				}
+				log.warn("Cutting off {} bytes of an incomplete append at the end of {}", fileSize - valid, file);
+				segment.channel.truncate(valid);
+				segment.channel.force(false);
+			}
+			return segment;
+		}
+
+		/**
+		 * Returns the size of the changes in the segment.
+		 *
+		 * @return the end position of the last change.
+		 */
+		long size() {
+			return positions[count];
+		}
+
+		/**
+		 * Records the next change.
+		 *
+		 * @param end the end position of the change.
+		 */
+		void add(long end) {
+			long[] current = positions;
+			if (count + 1 == current.length) {
+				current = Arrays.copyOf(current, current.length * 2);
+			}
+			current[count + 1] = end;
+			positions = current;
+			count++;
+		}
+
+		/**
+		 * Writes frames at the end of the segment.
+		 *
+		 * @param frames the frames, from position to limit.
+		 * @throws IOException if writing fails.
+		 */
+		void write(ByteBuffer frames) throws IOException {
+			long position = positions[count] - frames.remaining();
+			while (frames.hasRemaining()) {
+				position += channel.write(frames, position);
+			}
+		}
+
+		/**
+		 * Cuts the segment back to a number of changes, discarding any later ones.
+		 *
+		 * @param keep the number of changes to keep.
+		 * @throws IOException if the file cannot be truncated.
+		 */
+		void truncate(int keep) throws IOException {
+			count = keep;
+			channel.truncate(positions[keep]);
+		}
+
+	}
+
+}
@@ -0,0 +1,305 @@
+package entity.mapping.changelog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import entity.mapping.entity.CustomerChangeRelayLease;
+import entity.mapping.entity.CustomerOutboxEvent;
+import entity.mapping.repository.CustomerChangeRelayLeaseRepository;
+import entity.mapping.repository.CustomerOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * CustomerChangeRelay moves committed customer changes from the outbox table to the
+ * {@link CustomerChangeLog}.
+ *
+ * A single thread reads the oldest {@code customer.changes.relay.batch-size} events,
+ * appends them to the log, which forces them to disk, and then deletes them from the
+ * outbox, all in one transaction. It runs whenever a transaction with changes commits,
+ * and otherwise every {@code customer.changes.relay.interval}, so events left over from
+ * a failed attempt are picked up too.
+ *
+ * If the application stops between the append and the delete, the events are still in
+ * the outbox on the next start. The event IDs of the last batch are therefore read back
+ * from the log, and events found there are deleted without being appended again, so
+ * every change is appended exactly once.
+ *
+ * The outbox is relayed to a single log. Every batch first locks the one-row relay
+ * lease, which makes relays on other nodes wait for it, and takes or renews it for
+ * {@code customer.changes.relay.lease}. A relay whose log does not hold the lease stands
+ * by, and takes over once the lease has expired, that is when the owner has stopped
+ * relaying for that long. Consumers of /customerChanges must read from the node holding
+ * the lease, and start over when the log ID of the pages they read changes.
+ *
+ * On shutdown the relay stops after the write-behind queue has been written out, and
+ * publishes what is left in the outbox first. Relayed events are counted as
+ * "customer.changes.relayed" and each batch is timed as "customer.changes.relay".
+ */
+@Component
+public class CustomerChangeRelay implements SmartLifecycle {
+
+	private static final Logger log = LoggerFactory.getLogger(CustomerChangeRelay.class);
+
+	/**
+	 * Whether changes are relayed at all.
+	 */
+	@Value("${customer.changes.enabled:true}")
+	private boolean enabled;
+
+	/**
+	 * Largest number of events appended per batch.
+	 */
+	@Value("${customer.changes.relay.batch-size:500}")
+	private int batchSize;
+
+	/**
+	 * Longest time between two looks at the outbox.
+	 */
+	@Value("${customer.changes.relay.interval:1s}")
+	private Duration interval;
+
+	/**
+	 * How long the relay lease lasts without being renewed; must be well above the
+	 * interval and the clock difference between nodes.
+	 */
+	@Value("${customer.changes.relay.lease:30s}")
+	private Duration leaseDuration;
+
+	/**
+	 * Log the events are appended to.
+	 */
+	@Autowired
+	private CustomerChangeLog changeLog;
+
+	/**
+	 * Repository the events are read from and deleted with.
+	 */
+	@Autowired
+	private CustomerOutboxRepository outboxRepo;
+
+	/**
+	 * Repository the relay lease is locked and renewed with.
+	 */
+	@Autowired
+	private CustomerChangeRelayLeaseRepository leaseRepo;
+
+	/**
+	 * Template running every batch in its own transaction.
+	 */
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	/**
+	 * Registry the relay metrics are recorded in.
+	 */
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Released to make the relay look at the outbox before the interval has passed.
+	 */
+	private final Semaphore signal = new Semaphore(0);
+
+	/**
+	 * Event IDs of the last batch appended to the log, which may still be in the outbox.
+	 * Only used by the relay thread.
+	 */
+	private Set<Long> appended;
+
+	/**
+	 * ID of the log last seen holding the lease, to log when it changes. Only used by the
+	 * relay thread.
+	 */
+	private String leaseHolder;
+
+	private Counter relayed;
+
+	private Timer relayTimer;
+
+	private volatile boolean stopping;
+
+	private Thread relayThread;
+
+	/**
+	 * Wakes up the relay, typically because a transaction with changes has committed.
+	 */
+	public void wakeUp() {
+		signal.release();
+	}
+
+	/**
+	 * Starts the relay thread.
+	 */
+	@Override
+	public synchronized void start() {
+		if (!enabled) {
+			return;
+		}
+		if (leaseDuration.compareTo(interval) <= 0) {
+			throw new IllegalStateException("customer.changes.relay.lease must be longer than customer.changes.relay.interval");
+		}
+		relayed = meterRegistry.counter("customer.changes.relayed");
+		relayTimer = Timer.builder("customer.changes.relay")
+				.description("Appends of one batch of outbox events to the customer change log")
+				.register(meterRegistry);
+		stopping = false;
+		relayThread = new Thread(this::run, "customer-change-relay");
+		relayThread.start();
+	}
+
+	/**
+	 * Stops the relay once the outbox has been published.
+	 */
+	@Override
+	public synchronized void stop() {
+		if (relayThread == null) {
+			return;
+		}
+		stopping = true;
+		wakeUp();
+		try {
+			relayThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		relayThread = null;
+	}
+
+	/**
+	 * Indicates whether the relay thread is running.
+	 *
+	 * @return true between start and stop.
+	 */
+	@Override
+	public synchronized boolean isRunning() {
+		return relayThread != null;
+	}
+
+	/**
+	 * Stops after the write-behind queue, whose last batches record changes too.
+	 *
+	 * @return a phase below that of the write-behind queue.
+	 */
+	@Override
+	public int getPhase() {
+		return SmartLifecycle.DEFAULT_PHASE - 8192;
+	}
+
+	/**
+	 * Relays batches until the outbox is empty, then waits for a commit or the interval;
+	 * after a failure it waits for the interval before trying again.
+	 */
+	private void run() {
+		while (true) {
+			try {
+				while (relayBatch() == batchSize) {
+					// a full batch, more events may be waiting
+				}
+			} catch (Exception e) {
+				log.error("Relaying customer changes failed, retrying in {}", interval, e);
+				if (stopping) {
+					return;
+				}
+				try {
+					Thread.sleep(interval);
+				} catch (InterruptedException interrupted) {
+					return;
+				}
+				continue;
+			}
+			if (stopping) {
+				return;
+			}
+			try {
+				signal.tryAcquire(interval.toNanos(), TimeUnit.NANOSECONDS);
+				signal.drainPermits();
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Appends the oldest events of the outbox to the log and deletes them, in one
+	 * transaction holding the relay lease.
+	 *
+	 * @return the number of events read from the outbox, 0 if another log holds the lease.
+	 * @throws Exception if the outbox or the log cannot be accessed.
+	 */
+	private int relayBatch() throws Exception {
+		if (appended == null) {
+			appended = changeLog.lastEventIds(batchSize);
+		}
+		long start = System.nanoTime();
+		int count = transactionTemplate.execute(status -> {
+			if (!claimLease()) {
+				return 0;
+			}
+			List<CustomerOutboxEvent> events = outboxRepo.findOldest(Limit.of(batchSize));
+			if (events.isEmpty()) {
+				return 0;
+			}
+			List<CustomerOutboxEvent> fresh = events.stream().filter(event -> !appended.contains(event.getId())).toList();
+			if (!fresh.isEmpty()) {
+				try {
+					changeLog.append(fresh);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				appended = Set.copyOf(fresh.stream().map(CustomerOutboxEvent::getId).toList());
+				relayed.increment(fresh.size());
+			}
+			outboxRepo.deleteAllByIdInBatch(events.stream().map(CustomerOutboxEvent::getId).toList());
+			return events.size();
+		});
+		if (count > 0) {
+			relayTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+		return count;
+	}
+
+	/**
+	 * Locks the relay lease until the end of the current transaction and takes or renews
+	 * it for this log, unless another log holds it.
+	 *
+	 * @return true if this log holds the lease.
+	 */
+	private boolean claimLease() {
+		CustomerChangeRelayLease lease = leaseRepo.findLockedById(CustomerChangeRelayLease.ID)
+				.orElseGet(() -> leaseRepo.saveAndFlush(new CustomerChangeRelayLease(CustomerChangeRelayLease.ID)));
+		Instant now = Instant.now();
+		String logId = changeLog.getLogId();
+		String holder = lease.isHeldByOther(logId, now) ? lease.getOwner() : logId;
+		if (!holder.equals(leaseHolder)) {
+			if (holder.equals(logId)) {
+				log.info("Relaying the customer outbox to change log {}", logId);
+			} else {
+				log.info("Change log {} holds the customer outbox, standing by", holder);
+			}
+			leaseHolder = holder;
+		}
+		if (!holder.equals(logId)) {
+			return false;
+		}
+		lease.hold(logId, now.plus(leaseDuration));
+		return true;
+	}
+
+}
@@ -0,0 +1,172 @@
+package entity.mapping.changelog;
+
+import java.time.Instant;
+import java.util.Collection;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entity.mapping.dto.CustomerChange;
+import entity.mapping.dto.CustomerDetailRow;
+import entity.mapping.dto.CustomerView;
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.CustomerOutboxEvent;
+import entity.mapping.repository.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+
+/**
+ * CustomerOutbox records customer changes in the outbox table, in the transaction that
+ * makes them, for {@link CustomerChangeRelay} to append to the {@link CustomerChangeLog}.
+ *
+ * A change is recorded with the customer as it is committed. The pending changes are
+ * flushed first, so the customer rows are already locked when the event gets its ID;
+ * two changes of the same customer therefore get their IDs in commit order. Once the
+ * transaction commits, the relay is woken up so the change is published right away.
+ *
+ * A failed flush is translated like a repository call, so a version conflict surfaces
+ * as an OptimisticLockingFailureException that {@code OptimisticRetry} can retry.
+ *
+ * Nothing is recorded when the change log is disabled.
+ */
+@Component
+public class CustomerOutbox {
+
+	/**
+	 * Entity manager of the transaction making the change.
+	 */
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Repository used to read customers that were changed without being loaded.
+	 */
+	@Autowired
+	private CustomerRepository repo;
+
+	/**
+	 * Object mapper the changes are serialized with.
+	 */
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Log the changes end up in, consulted for whether it is enabled.
+	 */
+	@Autowired
+	private CustomerChangeLog changeLog;
+
+	/**
+	 * Relay woken up when recorded changes commit.
+	 */
+	@Autowired
+	private CustomerChangeRelay relay;
+
+	/**
+	 * Records that customers were created or updated through the current persistence
+	 * context.
+	 *
+	 * @param type      CREATED or UPDATED.
+	 * @param customers the managed customers, with their person and gadgets.
+	 */
+	public void recordSaved(CustomerOutboxEvent.Type type, Collection<Customer> customers) {
+		if (!changeLog.isEnabled()) {
+			return;
+		}
+		flush();
+		Instant now = Instant.now();
+		for (Customer customer : customers) {
+			CustomerView view = CustomerView.of(customer);
+			record(new CustomerChange(null, type, customer.getId(), view.version(), now, view));
+		}
+	}
+
+	/**
+	 * Records that a customer was updated without being loaded, reading it back as it
+	 * is now in the current transaction.
+	 *
+	 * @param id the ID of the customer.
+	 */
+	public void recordUpdated(Integer id) {
+		if (!changeLog.isEnabled()) {
+			return;
+		}
+		flush();
+		Instant now = Instant.now();
+		for (CustomerView customer : CustomerDetailRow.toViews(repo.findDetailRowsById(id))) {
+			record(new CustomerChange(null, CustomerOutboxEvent.Type.UPDATED, id, customer.version(), now, customer));
+		}
+	}
+
+	/**
+	 * Records that customers are about to be deleted in the current transaction. Only the
+	 * customers that exist are recorded, so it must be called before the deletion.
+	 *
+	 * @param ids the IDs of the customers to delete.
+	 */
+	public void recordDeleted(Collection<Integer> ids) {
+		if (!changeLog.isEnabled()) {
+			return;
+		}
+		Instant now = Instant.now();
+		for (Integer id : repo.findExistingIds(ids)) {
+			record(new CustomerChange(null, CustomerOutboxEvent.Type.DELETED, id, null, now, null));
+		}
+	}
+
+	/**
+	 * Flushes the pending changes, translating a failure into Spring's data access
+	 * exceptions.
+	 *
+	 * @throws DataAccessException if the flush fails, such as an
+	 *                             OptimisticLockingFailureException on a version conflict.
+	 */
+	private void flush() {
+		try {
+			entityManager.flush();
+		} catch (PersistenceException e) {
+			DataAccessException translated = EntityManagerFactoryUtils.convertJpaAccessExceptionIfPossible(e);
+			throw translated != null ? translated : e;
+		}
+	}
+
+	/**
+	 * Persists one change in the outbox and wakes up the relay after commit.
+	 *
+	 * @param change the change, without an offset.
+	 */
+	private void record(CustomerChange change) {
+		String payload;
+		try {
+			payload = objectMapper.writeValueAsString(change);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Cannot serialize the change of customer " + change.customerId(), e);
+		}
+		entityManager.persist(new CustomerOutboxEvent(change.customerId(), change.type(), payload));
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()
+				&& TransactionSynchronizationManager.getResource(this) == null) {
+			TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					relay.wakeUp();
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(CustomerOutbox.this);
+				}
+			});
+		}
+	}
+
+}
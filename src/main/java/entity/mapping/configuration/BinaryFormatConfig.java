@@ -0,0 +1,58 @@
+package entity.mapping.configuration;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * BinaryFormatConfig lets clients exchange the JSON model in the binary CBOR
+ * ({@code application/cbor}) and Smile ({@code application/x-jackson-smile}) formats.
+ *
+ * Spring MVC registers a CBOR and a Smile converter on its own once their Jackson data
+ * formats are on the classpath, but with a plain Jackson configuration. They are
+ * replaced in place by converters built from the application's Jackson configuration,
+ * so the field names, ignored properties, modules and spring.jackson settings are the
+ * same as for JSON. They stay behind the JSON converter, so JSON remains the default
+ * when the client does not ask for anything else.
+ */
+@Configuration
+public class BinaryFormatConfig implements WebMvcConfigurer {
+
+	/**
+	 * Source of builders carrying the application's Jackson settings and modules; every
+	 * call returns a new builder.
+	 */
+	@Autowired
+	private ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilders;
+
+	/**
+	 * Replaces the default CBOR and Smile converters.
+	 *
+	 * @param converters the converters configured so far.
+	 */
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.replaceAll(converter -> {
+			if (converter instanceof MappingJackson2CborHttpMessageConverter) {
+				return new MappingJackson2CborHttpMessageConverter(
+						objectMapperBuilders.getObject().factory(new CBORFactory()).build());
+			}
+			if (converter instanceof MappingJackson2SmileHttpMessageConverter) {
+				return new MappingJackson2SmileHttpMessageConverter(
+						objectMapperBuilders.getObject().factory(new SmileFactory()).build());
+			}
+			return converter;
+		});
+	}
+
+}
@@ -0,0 +1,166 @@
+package entity.mapping.configuration;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * ConcurrencyLimitedDataSource limits the number of connections that can be held at the
+ * same time with a fair semaphore.
+ *
+ * With virtual threads the number of concurrent requests is no longer bounded by the
+ * Tomcat thread pool, so far more requests than the pool has connections can ask for
+ * one at once. The semaphore queues them in arrival order and fails fast with a
+ * transient exception once the acquire timeout is exceeded. A permit is taken before a
+ * connection is obtained and returned when the connection is closed.
+ */
+public class ConcurrencyLimitedDataSource extends DelegatingDataSource {
+
+	/**
+	 * Permits for the connections that may be held at once.
+	 */
+	private final Semaphore permits;
+
+	/**
+	 * The number of permits.
+	 */
+	private final int maxPermits;
+
+	/**
+	 * How long a caller waits for a permit before giving up.
+	 */
+	private final Duration acquireTimeout;
+
+	/**
+	 * Constructs a ConcurrencyLimitedDataSource.
+	 *
+	 * @param targetDataSource the data source connections are obtained from.
+	 * @param maxPermits       the number of connections that may be held at once.
+	 * @param acquireTimeout   how long a caller waits for a permit.
+	 */
+	public ConcurrencyLimitedDataSource(DataSource targetDataSource, int maxPermits, Duration acquireTimeout) {
+		super(targetDataSource);
+		this.permits = new Semaphore(maxPermits, true);
+		this.maxPermits = maxPermits;
+		this.acquireTimeout = acquireTimeout;
+	}
+
+	/**
+	 * Obtains a connection once a permit is available.
+	 *
+	 * @return a connection that returns its permit when closed.
+	 * @throws SQLException if no permit becomes available in time or the target fails.
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		acquire();
+		try {
+			return limit(obtainTargetDataSource().getConnection());
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Obtains a connection for the given user once a permit is available.
+	 *
+	 * @param username the database user.
+	 * @param password the user's password.
+	 * @return a connection that returns its permit when closed.
+	 * @throws SQLException if no permit becomes available in time or the target fails.
+	 */
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		acquire();
+		try {
+			return limit(obtainTargetDataSource().getConnection(username, password));
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Gets the number of callers waiting for a permit.
+	 *
+	 * @return an estimate of the queue length.
+	 */
+	public int getWaitingCount() {
+		return permits.getQueueLength();
+	}
+
+	/**
+	 * Gets the number of permits currently held.
+	 *
+	 * @return the number of connections held through this data source.
+	 */
+	public int getActiveCount() {
+		return maxPermits - permits.availablePermits();
+	}
+
+	/**
+	 * Waits for a permit.
+	 *
+	 * @throws SQLTransientConnectionException if the timeout expires or the thread is interrupted.
+	 */
+	private void acquire() throws SQLTransientConnectionException {
+		try {
+			if (!permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+				throw new SQLTransientConnectionException("No database connection available within " + acquireTimeout
+						+ ", all " + maxPermits + " are in use");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+		}
+	}
+
+	/**
+	 * Wraps a connection so that closing it returns its permit, exactly once.
+	 *
+	 * @param target the connection obtained from the target data source.
+	 * @return the wrapped connection.
+	 */
+	private Connection limit(Connection target) {
+		AtomicBoolean released = new AtomicBoolean();
+		return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+				new Class<?>[] { ConnectionProxy.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "equals":
+						return proxy == args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					case "getTargetConnection":
+						return target;
+					case "close":
+						try {
+							target.close();
+						} finally {
+							if (released.compareAndSet(false, true)) {
+								permits.release();
+							}
+						}
+						return null;
+					default:
+						try {
+							return method.invoke(target, args);
+						} catch (InvocationTargetException e) {
+							throw e.getTargetException();
+						}
+					}
+				});
+	}
+
+}
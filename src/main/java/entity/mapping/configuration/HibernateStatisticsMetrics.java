@@ -0,0 +1,91 @@
+package entity.mapping.configuration;
+
+import java.util.function.ToDoubleFunction;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * HibernateStatisticsMetrics exposes the Hibernate session factory statistics as meters
+ * named "hibernate.*".
+ *
+ * The counters are read from {@link Statistics} when the registry is scraped, so they
+ * add no work to the request path beyond the statistics Hibernate already collects
+ * when hibernate.generate_statistics is enabled.
+ */
+@Component
+public class HibernateStatisticsMetrics implements MeterBinder {
+
+	/**
+	 * Entity manager factory whose statistics are exposed.
+	 */
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	/**
+	 * Registers the Hibernate meters.
+	 * 
+	 * @param registry the registry to bind the meters to.
+	 */
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+		counter(registry, statistics, "hibernate.sessions.open", "Sessions opened", Statistics::getSessionOpenCount);
+		counter(registry, statistics, "hibernate.sessions.closed", "Sessions closed", Statistics::getSessionCloseCount);
+		counter(registry, statistics, "hibernate.transactions", "Transactions completed", Statistics::getTransactionCount);
+		counter(registry, statistics, "hibernate.connections.obtained", "JDBC connections obtained",
+				Statistics::getConnectCount);
+		counter(registry, statistics, "hibernate.statements.prepared", "JDBC statements prepared",
+				Statistics::getPrepareStatementCount);
+		counter(registry, statistics, "hibernate.flushes", "Flushes executed", Statistics::getFlushCount);
+		counter(registry, statistics, "hibernate.entities.loaded", "Entities loaded", Statistics::getEntityLoadCount);
+		counter(registry, statistics, "hibernate.entities.fetched", "Entities fetched lazily",
+				Statistics::getEntityFetchCount);
+		counter(registry, statistics, "hibernate.entities.inserted", "Entities inserted", Statistics::getEntityInsertCount);
+		counter(registry, statistics, "hibernate.entities.updated", "Entities updated", Statistics::getEntityUpdateCount);
+		counter(registry, statistics, "hibernate.entities.deleted", "Entities deleted", Statistics::getEntityDeleteCount);
+		counter(registry, statistics, "hibernate.collections.fetched", "Collections fetched lazily",
+				Statistics::getCollectionFetchCount);
+		counter(registry, statistics, "hibernate.queries.executed", "Queries executed",
+				Statistics::getQueryExecutionCount);
+		counter(registry, statistics, "hibernate.second.level.cache.hits", "Second-level cache hits",
+				Statistics::getSecondLevelCacheHitCount);
+		counter(registry, statistics, "hibernate.second.level.cache.misses", "Second-level cache misses",
+				Statistics::getSecondLevelCacheMissCount);
+		counter(registry, statistics, "hibernate.second.level.cache.puts", "Second-level cache puts",
+				Statistics::getSecondLevelCachePutCount);
+		counter(registry, statistics, "hibernate.optimistic.failures", "Optimistic lock failures",
+				Statistics::getOptimisticFailureCount);
+
+		Gauge.builder("hibernate.queries.max.time", statistics, Statistics::getQueryExecutionMaxTime)
+				.description("Slowest query execution time")
+				.baseUnit("milliseconds")
+				.register(registry);
+	}
+
+	/**
+	 * Registers a counter that reads its value from the statistics.
+	 * 
+	 * @param registry    the registry to bind the counter to.
+	 * @param statistics  the Hibernate statistics.
+	 * @param name        the meter name.
+	 * @param description the meter description.
+	 * @param value       the statistic backing the counter.
+	 */
+	private static void counter(MeterRegistry registry, Statistics statistics, String name, String description,
+			ToDoubleFunction<Statistics> value) {
+		FunctionCounter.builder(name, statistics, value)
+				.description(description)
+				.register(registry);
+	}
+
+}
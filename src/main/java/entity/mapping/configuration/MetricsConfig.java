@@ -0,0 +1,33 @@
+package entity.mapping.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * MetricsConfig enables the {@link io.micrometer.core.annotation.Timed} annotation on
+ * Spring beans.
+ *
+ * Services annotated with {@code @Timed("service.method")} get one timer per method,
+ * tagged with the class and method name. Repository calls are timed by Spring Boot as
+ * {@code spring.data.repository.invocations}, the Hikari pool is bound automatically
+ * and the Hibernate statistics by {@link HibernateStatisticsMetrics}. Everything is
+ * exposed at /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+	/**
+	 * Creates the aspect that records the timers of {@code @Timed} beans.
+	 * 
+	 * @param meterRegistry the registry the timers are recorded in.
+	 * @return the timed aspect.
+	 */
+	@Bean
+	public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+		return new TimedAspect(meterRegistry);
+	}
+
+}
@@ -0,0 +1,213 @@
+package entity.mapping.configuration;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * ReplicaDataSourceConfig routes read-only transactions to read replicas. It is active
+ * when datasource.replicas.urls lists at least one replica; the primary database is
+ * still configured through spring.datasource.*.
+ *
+ * The application data source is a LazyConnectionDataSourceProxy over a
+ * {@link ReplicaRoutingDataSource}, so the read-only flag of a transaction is known
+ * by the time its connection is chosen. Every replica pool is a bean of its own, so it
+ * gets the spring.datasource.hikari settings, the hikaricp metrics and the bean post
+ * processors of the primary pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.urls")
+public class ReplicaDataSourceConfig {
+
+	/**
+	 * Name prefix of the replica pool beans, followed by the position of the replica.
+	 */
+	static final String REPLICA_BEAN_PREFIX = "replicaDataSource";
+
+	/**
+	 * Creates the primary connection pool from the spring.datasource properties.
+	 * 
+	 * @param properties the spring.datasource properties.
+	 * @return the primary pool.
+	 */
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		primary.setPoolName("primary");
+		return primary;
+	}
+
+	/**
+	 * Registers one connection pool bean per replica, named replicaDataSource0,
+	 * replicaDataSource1 and so on. As beans, the replica pools are instrumented and
+	 * post-processed like the primary pool.
+	 * 
+	 * @param environment the environment listing the replicas.
+	 * @return the post processor registering the pools.
+	 */
+	@Bean
+	public static BeanDefinitionRegistryPostProcessor replicaDataSourceRegistrar(Environment environment) {
+		return new BeanDefinitionRegistryPostProcessor() {
+			@Override
+			public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+				List<String> urls = replicaUrls(environment);
+				for (int i = 0; i < urls.size(); i++) {
+					int index = i;
+					RootBeanDefinition definition = new RootBeanDefinition(HikariDataSource.class,
+							() -> createReplica(environment, index, urls.get(index)));
+					definition.setDestroyMethodName(AbstractBeanDefinition.INFER_METHOD);
+					registry.registerBeanDefinition(REPLICA_BEAN_PREFIX + i, definition);
+				}
+			}
+
+			@Override
+			public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+			}
+		};
+	}
+
+	/**
+	 * Creates the routing data source over the replica pool beans.
+	 * 
+	 * @param primary              the primary data source.
+	 * @param beanFactory          the bean factory holding the replica pools.
+	 * @param environment          the environment listing the replicas.
+	 * @param selection            how a replica is chosen.
+	 * @param readYourWritesWindow how long after a write reads stay on the primary.
+	 * @return the routing data source.
+	 */
+	@Bean
+	public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("primaryDataSource") DataSource primary,
+			BeanFactory beanFactory, Environment environment,
+			@Value("${datasource.replicas.selection:round-robin}") String selection,
+			@Value("${datasource.replicas.read-your-writes-window:5s}") Duration readYourWritesWindow) {
+		List<DataSource> replicas = new ArrayList<>();
+		for (int i = 0; i < replicaUrls(environment).size(); i++) {
+			replicas.add(beanFactory.getBean(REPLICA_BEAN_PREFIX + i, DataSource.class));
+		}
+		return new ReplicaRoutingDataSource(primary, replicas,
+				ReplicaRoutingDataSource.Selection.valueOf(selection.toUpperCase().replace('-', '_')),
+				readYourWritesWindow);
+	}
+
+	/**
+	 * Creates the application data source, which obtains the routed connection lazily.
+	 * 
+	 * @param routingDataSource the routing data source.
+	 * @return the data source used by JPA and the transaction manager.
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+		return new LazyConnectionDataSourceProxy(routingDataSource);
+	}
+
+	/**
+	 * Makes Hibernate release its connection at the end of every transaction. By default
+	 * the connection is held until the entity manager closes, which with open-in-view is
+	 * the end of the request, so every transaction of a request would use the database
+	 * chosen for the first one.
+	 * 
+	 * @return the customizer setting the connection handling mode.
+	 */
+	@Bean
+	public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+		return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+				PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+	}
+
+	/**
+	 * Clears the read-your-writes marker at the end of every request, so a write in one
+	 * request does not send the next request on the same thread to the primary.
+	 * 
+	 * @return the filter clearing the marker.
+	 */
+	@Bean
+	public OncePerRequestFilter replicaRoutingRequestFilter() {
+		return new OncePerRequestFilter() {
+			@Override
+			protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+					FilterChain filterChain) throws ServletException, IOException {
+				try {
+					filterChain.doFilter(request, response);
+				} finally {
+					ReplicaRoutingDataSource.clearLastWrite();
+				}
+			}
+		};
+	}
+
+	/**
+	 * Reads the replica URLs.
+	 * 
+	 * @param environment the environment.
+	 * @return the trimmed JDBC URLs from datasource.replicas.urls.
+	 */
+	private static List<String> replicaUrls(Environment environment) {
+		return Binder.get(environment).bind("datasource.replicas.urls", Bindable.listOf(String.class))
+				.orElse(List.of()).stream().map(String::trim).filter(url -> !url.isEmpty()).toList();
+	}
+
+	/**
+	 * Creates the pool of one replica. It takes the spring.datasource.hikari settings of
+	 * the primary pool, then the replica URL and credentials; the pool size can be set
+	 * apart with datasource.replicas.maximum-pool-size.
+	 * 
+	 * @param environment the environment.
+	 * @param index       the position of the replica in datasource.replicas.urls.
+	 * @param url         the JDBC URL of the replica.
+	 * @return the replica pool, not started yet.
+	 */
+	private static HikariDataSource createReplica(Environment environment, int index, String url) {
+		HikariDataSource replica = new HikariDataSource();
+		Binder binder = Binder.get(environment);
+		binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+		replica.setPoolName("replica-" + index);
+		replica.setDriverClassName(environment.getProperty("spring.datasource.driver-class-name",
+				DatabaseDriver.fromJdbcUrl(url).getDriverClassName()));
+		replica.setJdbcUrl(url);
+		replica.setUsername(environment.getProperty("datasource.replicas.username",
+				environment.getProperty("spring.datasource.username", "")));
+		replica.setPassword(environment.getProperty("datasource.replicas.password",
+				environment.getProperty("spring.datasource.password", "")));
+		binder.bind("datasource.replicas.maximum-pool-size", Integer.class).ifBound(replica::setMaximumPoolSize);
+		replica.setReadOnly(true);
+		return replica;
+	}
+
+}
@@ -0,0 +1,170 @@
+package entity.mapping.configuration;
+
+import java.io.Closeable;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * ReplicaRoutingDataSource sends read-only transactions to a read replica and everything
+ * else to the primary database.
+ *
+ * The routing decision is taken when a connection is obtained, so the data source must
+ * be wrapped in a LazyConnectionDataSourceProxy: the transaction manager then only
+ * obtains the physical connection at the first statement, after the read-only flag of
+ * the transaction has been set.
+ *
+ * A replica may lag behind the primary. Once the current thread has run a read-write
+ * transaction, its read-only transactions go to the primary for the configured window,
+ * so a request reads its own writes. The marker is cleared at the end of every request.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+	/**
+	 * Lookup key of the primary database.
+	 */
+	static final String PRIMARY = "primary";
+
+	/**
+	 * How a replica is chosen for a read-only transaction.
+	 */
+	public enum Selection {
+
+		/**
+		 * The replicas take turns.
+		 */
+		ROUND_ROBIN,
+
+		/**
+		 * The replica with the fewest connections in use is chosen.
+		 */
+		LEAST_LOADED
+	}
+
+	/**
+	 * Time of the last read-write transaction of the current thread, in nanoseconds.
+	 */
+	private static final ThreadLocal<Long> LAST_WRITE = new ThreadLocal<>();
+
+	/**
+	 * The replica pools, in configuration order, unwrapped from the replica data sources.
+	 */
+	private final List<HikariDataSource> replicas;
+
+	/**
+	 * How a replica is chosen.
+	 */
+	private final Selection selection;
+
+	/**
+	 * How long after a write the current thread keeps reading from the primary.
+	 */
+	private final Duration readYourWritesWindow;
+
+	/**
+	 * Position of the next replica for round robin selection.
+	 */
+	private final AtomicInteger next = new AtomicInteger();
+
+	/**
+	 * Constructs a ReplicaRoutingDataSource.
+	 *
+	 * @param primary              the primary database.
+	 * @param replicas             the replica data sources, at least one, each a Hikari
+	 *                             pool or a wrapper of one.
+	 * @param selection            how a replica is chosen.
+	 * @param readYourWritesWindow how long after a write reads stay on the primary.
+	 * @throws IllegalArgumentException if a replica is not backed by a Hikari pool.
+	 */
+	public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas, Selection selection,
+			Duration readYourWritesWindow) {
+		this.replicas = new ArrayList<>();
+		for (DataSource replica : replicas) {
+			try {
+				this.replicas.add(replica.unwrap(HikariDataSource.class));
+			} catch (SQLException e) {
+				throw new IllegalArgumentException("Replica data source is not a Hikari pool: " + replica, e);
+			}
+		}
+		this.selection = selection;
+		this.readYourWritesWindow = readYourWritesWindow;
+
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		for (int i = 0; i < replicas.size(); i++) {
+			targets.put(i, replicas.get(i));
+		}
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		setLenientFallback(false);
+		afterPropertiesSet();
+	}
+
+	/**
+	 * Forgets the last write of the current thread, at the end of a request.
+	 */
+	public static void clearLastWrite() {
+		LAST_WRITE.remove();
+	}
+
+	/**
+	 * Chooses the database for the connection being obtained.
+	 * 
+	 * @return the primary key, or the index of the chosen replica.
+	 */
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			if (TransactionSynchronizationManager.isActualTransactionActive()) {
+				LAST_WRITE.set(System.nanoTime());
+			}
+			return PRIMARY;
+		}
+		Long lastWrite = LAST_WRITE.get();
+		if (lastWrite != null && System.nanoTime() - lastWrite < readYourWritesWindow.toNanos()) {
+			return PRIMARY;
+		}
+		return selection == Selection.LEAST_LOADED ? leastLoadedReplica()
+				: Math.floorMod(next.getAndIncrement(), replicas.size());
+	}
+
+	/**
+	 * Closes the replica pools.
+	 */
+	@Override
+	public void close() {
+		replicas.forEach(HikariDataSource::close);
+	}
+
+	/**
+	 * Finds the replica with the fewest connections in use.
+	 * 
+	 * @return the index of the replica.
+	 */
+	private int leastLoadedReplica() {
+		int best = 0;
+		int bestActive = Integer.MAX_VALUE;
+		for (int i = 0; i < replicas.size(); i++) {
+			HikariPoolMXBean pool = replicas.get(i).getHikariPoolMXBean();
+			int active = pool == null ? 0 : pool.getActiveConnections();
+			if (active < bestActive) {
+				best = i;
+				bestActive = active;
+			}
+		}
+		return best;
+	}
+
+}
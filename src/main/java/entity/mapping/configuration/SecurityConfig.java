@@ -19,9 +19,16 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import entity.mapping.authenticateprovider.AccessTokenFilter;
+import entity.mapping.authenticateprovider.AccessTokenService;
 import entity.mapping.authenticateprovider.CustomAuthenticationProvider;
+import entity.mapping.ratelimit.FailedAuthenticationLimitFilter;
+import entity.mapping.ratelimit.RateLimitFilter;
+import entity.mapping.ratelimit.RateLimitService;
 import entity.mapping.service.MyUserDetails;
 import entity.mapping.service.UserService;
 import jakarta.servlet.http.HttpServletResponse;
@@ -42,6 +49,18 @@ public class SecurityConfig  {
 	@Autowired
 	private CustomAuthenticationProvider authenticationProvider;
 
+	/**
+	 * Service issuing and verifying the stateless access tokens.
+	 */
+	@Autowired
+	private AccessTokenService accessTokenService;
+
+	/**
+	 * Service holding the per-client rate limits.
+	 */
+	@Autowired
+	private RateLimitService rateLimitService;
+
 	/**
 	 * Constructs a SecurityConfig with the specified UserService.
 	 * 
@@ -89,6 +108,15 @@ public class SecurityConfig  {
 	/**
 	 * Configures the security filter chain for HTTP requests.
 	 * 
+	 * When token mode is enabled, bearer tokens issued by /login are verified before
+	 * HTTP Basic authentication and no HTTP session is created or used, so any node can
+	 * serve any request.
+	 * 
+	 * Rate limits are applied after authentication, per principal for authenticated
+	 * requests and per remote address for anonymous ones. Failed authentications are
+	 * limited per remote address before authentication, so wrong credentials cannot be
+	 * retried faster than that limit.
+	 * 
 	 * @param http the HttpSecurity object used to configure security settings.
 	 * @return a SecurityFilterChain with configured security settings.
 	 * @throws Exception if an error occurs during configuration.
@@ -108,6 +136,12 @@ public class SecurityConfig  {
 		.and()
 		.authenticationProvider(authenticationProvider);
 
+		if (accessTokenService.isEnabled()) {
+			http.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+			.addFilterBefore(new AccessTokenFilter(accessTokenService), BasicAuthenticationFilter.class);
+		}
+		http.addFilterBefore(new FailedAuthenticationLimitFilter(rateLimitService), UsernamePasswordAuthenticationFilter.class)
+		.addFilterAfter(new RateLimitFilter(rateLimitService), BasicAuthenticationFilter.class);
 
 		return http.build();
 	}
@@ -0,0 +1,76 @@
+package entity.mapping.configuration;
+
+import java.time.Duration;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * VirtualThreadConfig applies the settings that only matter when requests are served on
+ * virtual threads, which is enabled by the "virtual" profile.
+ *
+ * Connection pool beans are wrapped in a {@link ConcurrencyLimitedDataSource}, so
+ * requests queue fairly for a connection, and the queues are exposed as
+ * "datasource.concurrency.*" gauges. Pinned virtual threads are reported by
+ * {@link VirtualThreadPinningMonitor}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+	/**
+	 * Wraps every connection pool in a {@link ConcurrencyLimitedDataSource}.
+	 * 
+	 * @param maxPermits     the number of connections that may be held at once.
+	 * @param acquireTimeout how long a request waits for a connection.
+	 * @return the post processor wrapping the data source.
+	 */
+	@Bean
+	public static BeanPostProcessor concurrencyLimitedDataSourcePostProcessor(
+			@Value("${datasource.concurrency.max-permits:10}") int maxPermits,
+			@Value("${datasource.concurrency.acquire-timeout:30s}") Duration acquireTimeout) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof HikariDataSource pool) {
+					return new ConcurrencyLimitedDataSource(pool, maxPermits, acquireTimeout);
+				}
+				return bean;
+			}
+		};
+	}
+
+	/**
+	 * Exposes the number of requests holding and waiting for a connection, per pool.
+	 * 
+	 * @param dataSources the data source beans by name.
+	 * @return the binder registering the gauges.
+	 */
+	@Bean
+	public MeterBinder dataSourceConcurrencyMetrics(Map<String, DataSource> dataSources) {
+		return registry -> dataSources.forEach((name, dataSource) -> {
+			if (dataSource instanceof ConcurrencyLimitedDataSource limited) {
+				Gauge.builder("datasource.concurrency.active", limited, ConcurrencyLimitedDataSource::getActiveCount)
+						.description("Connections held through the concurrency limit")
+						.tag("name", name)
+						.register(registry);
+				Gauge.builder("datasource.concurrency.waiting", limited, ConcurrencyLimitedDataSource::getWaitingCount)
+						.description("Requests waiting for a connection")
+						.tag("name", name)
+						.register(registry);
+			}
+		});
+	}
+
+}
@@ -0,0 +1,118 @@
+package entity.mapping.configuration;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * VirtualThreadPinningMonitor reports virtual threads that stay pinned to their carrier
+ * thread, which happens when they block inside a synchronized block or a native frame.
+ * A pinned virtual thread occupies one of the few carrier threads, so a pinning hot spot
+ * caps throughput just like a small platform thread pool would.
+ *
+ * The monitor streams the JFR "jdk.VirtualThreadPinned" event in-process. Every pinning
+ * longer than the threshold is counted as "jvm.threads.virtual.pinned" and logged with
+ * the top of its stack, so the offending code can be found.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+	private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+	/**
+	 * Name of the JFR event emitted when a virtual thread blocks while pinned.
+	 */
+	private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+	/**
+	 * Number of stack frames included in the log message.
+	 */
+	private static final int LOGGED_FRAMES = 8;
+
+	/**
+	 * Shortest pinning that is reported.
+	 */
+	@Value("${virtual-threads.pinned-threshold:20ms}")
+	private Duration threshold;
+
+	/**
+	 * Registry the pinning counter is recorded in.
+	 */
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * The JFR stream, while running.
+	 */
+	private RecordingStream stream;
+
+	/**
+	 * Starts streaming pinning events.
+	 */
+	@Override
+	public synchronized void start() {
+		Counter pinned = Counter.builder("jvm.threads.virtual.pinned")
+				.description("Virtual threads that blocked while pinned to their carrier")
+				.register(meterRegistry);
+		stream = new RecordingStream();
+		stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+		stream.onEvent(PINNED_EVENT, event -> {
+			pinned.increment();
+			log.warn("Virtual thread pinned for {} ms:\n{}", event.getDuration().toMillis(), topFrames(event));
+		});
+		stream.startAsync();
+	}
+
+	/**
+	 * Stops streaming pinning events.
+	 */
+	@Override
+	public synchronized void stop() {
+		if (stream != null) {
+			stream.close();
+			stream = null;
+		}
+	}
+
+	/**
+	 * Indicates whether events are being streamed.
+	 * 
+	 * @return true between start and stop.
+	 */
+	@Override
+	public synchronized boolean isRunning() {
+		return stream != null;
+	}
+
+	/**
+	 * Formats the top of the stack of a pinning event.
+	 * 
+	 * @param event the pinning event.
+	 * @return one line per frame.
+	 */
+	private static String topFrames(RecordedEvent event) {
+		if (event.getStackTrace() == null) {
+			return "\t(no stack trace)";
+		}
+		return event.getStackTrace().getFrames().stream()
+				.limit(LOGGED_FRAMES)
+				.map(RecordedFrame::getMethod)
+				.map(method -> "\tat " + method.getType().getName() + "." + method.getName())
+				.collect(Collectors.joining("\n"));
+	}
+
+}
@@ -0,0 +1,35 @@
+package entity.mapping.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import entity.mapping.dto.CacheRegionUsage;
+import entity.mapping.service.CacheStatisticsService;
+
+/**
+ * The CacheController class exposes the usage of the second-level cache, so that the
+ * size and time to live of its regions can be tuned.
+ */
+@RestController
+public class CacheController {
+
+	/**
+	 * The service that collects the cache region statistics.
+	 */
+	@Autowired
+	private CacheStatisticsService cacheStatisticsService;
+
+	/**
+	 * Retrieves hit, miss, put and eviction counts for every cache region.
+	 * 
+	 * @return The statistics per region, empty when the cache is not enabled.
+	 */
+	@GetMapping("/cacheStatistics")
+	public List<CacheRegionUsage> getCacheStatistics() {
+		return cacheStatisticsService.getRegionStatistics();
+	}
+
+}
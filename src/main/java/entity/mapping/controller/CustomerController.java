@@ -1,27 +1,71 @@
 package entity.mapping.controller;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entity.mapping.changelog.CustomerChangeLog;
+import entity.mapping.dto.BulkDeleteRequest;
+import entity.mapping.dto.BulkDeleteResult;
+import entity.mapping.dto.BulkIngestResult;
+import entity.mapping.dto.CustomerChangePage;
+import entity.mapping.dto.CustomerIngestStatus;
+import entity.mapping.dto.CustomerListingVersion;
+import entity.mapping.dto.CustomerPage;
+import entity.mapping.dto.CustomerSearchPage;
+import entity.mapping.dto.CustomerView;
 import entity.mapping.entity.Customer;
+import entity.mapping.service.CustomerIngestService;
 import entity.mapping.service.CustomerService;
+import entity.mapping.service.CustomerVersionMismatchException;
+import entity.mapping.service.CustomerWriteBehind;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 /**
  * The CustomerController class handles HTTP requests related to customers.
  * It provides endpoints to add, retrieve, update, and delete customer information.
+ * 
+ * Customers are exchanged as JSON by default, and as CBOR or Smile when the client
+ * asks for them with Accept or sends them with Content-Type, see
+ * {@link entity.mapping.configuration.BinaryFormatConfig}.
  */
 @RestController
 public class CustomerController {
 
+	/**
+	 * The formats customers are served in, in order of preference.
+	 */
+	private static final List<MediaType> CUSTOMER_FORMATS = List.of(MediaType.APPLICATION_JSON,
+			MediaType.APPLICATION_CBOR, MediaType.parseMediaType("application/x-jackson-smile"));
+
 	/**
 	 * The CustomerService instance used to handle business logic for customer operations.
 	 * This service provides methods to add, retrieve, update, and delete customers.
@@ -29,6 +73,37 @@ public class CustomerController {
 	@Autowired
 	private CustomerService service;
 
+	/**
+	 * The CustomerIngestService instance used to store customers in bulk.
+	 */
+	@Autowired
+	private CustomerIngestService ingestService;
+
+	/**
+	 * The queue that stores customers added asynchronously.
+	 */
+	@Autowired
+	private CustomerWriteBehind writeBehind;
+
+	/**
+	 * The log of committed customer changes.
+	 */
+	@Autowired
+	private CustomerChangeLog changeLog;
+
+	/**
+	 * The ObjectMapper used to read bulk request bodies record by record.
+	 */
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * The content negotiation of Spring MVC, used to choose the format of a customer
+	 * response before its ETag is computed.
+	 */
+	@Autowired
+	private ContentNegotiationManager contentNegotiationManager;
+
 	/**
 	 * Adds a new customer.
 	 * 
@@ -40,57 +115,362 @@ public class CustomerController {
 		return service.addCustomer(customer);
 	}
 
+	/**
+	 * Accepts a new customer and stores it in the background, batched with other
+	 * customers added the same way. The response is sent before the customer is stored;
+	 * its outcome can be looked up at the returned Location.
+	 * 
+	 * @param customer The customer object containing the information to add.
+	 * @return A 202 response with the tracking ID of the customer, or 503 with Retry-After
+	 *         if the queue is full.
+	 */
+	@PostMapping("/addCustomerAsync")
+	public ResponseEntity<CustomerIngestStatus> addCustomerAsync(@RequestBody Customer customer) {
+		CustomerIngestStatus status = writeBehind.submit(customer);
+		return ResponseEntity.accepted()
+				.location(URI.create("/customerIngestStatus/" + status.trackingId()))
+				.body(status);
+	}
+
+	/**
+	 * Looks up what became of a customer added with /addCustomerAsync.
+	 * 
+	 * @param trackingId The tracking ID returned when the customer was accepted.
+	 * @return The status of the customer, or 404 if the ID is unknown or has expired.
+	 */
+	@GetMapping("/customerIngestStatus/{trackingId}")
+	public ResponseEntity<CustomerIngestStatus> getCustomerIngestStatus(@PathVariable UUID trackingId) {
+		CustomerIngestStatus status = writeBehind.getStatus(trackingId);
+		return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+	}
+
+	/**
+	 * Adds many customers in one request. The body is either a JSON array of customers
+	 * or newline-delimited JSON with one customer per line; it is read record by record
+	 * while the customers are written in batches.
+	 * 
+	 * @param request The request whose body contains the customers.
+	 * @return The outcome of every record and the ingest throughput.
+	 * @throws IOException If the request body cannot be read.
+	 */
+	@PostMapping(value = "/bulkAddCustomers", consumes = { "application/json", "application/x-ndjson" })
+	public BulkIngestResult bulkAddCustomers(HttpServletRequest request) throws IOException {
+		try (MappingIterator<Customer> customers = objectMapper.readerFor(Customer.class)
+				.readValues(request.getInputStream())) {
+			return ingestService.ingest(customers);
+		}
+	}
+
 	/**
 	 * Retrieves all customers.
 	 * 
-	 * @return A list of all customers.
+	 * The response carries a strong ETag of the listing in the negotiated format. A
+	 * request whose If-None-Match still matches is answered with 304 from an aggregate of
+	 * the customer IDs and versions, without reading or serializing the customers. Both
+	 * responses vary by Accept.
+	 * 
+	 * @param request The current request, checked for Accept and If-None-Match.
+	 * @return A list of all customers, as read-only views, or an empty 304 response.
+	 * @throws HttpMediaTypeNotAcceptableException If no customer format is acceptable.
 	 */
 	@GetMapping("/getAllCustomers")
-	public List<Customer> getAllCustomers() {
-		return service.getAllCustomers();
+	public ResponseEntity<List<CustomerView>> getAllCustomers(NativeWebRequest request)
+			throws HttpMediaTypeNotAcceptableException {
+		MediaType format = negotiateFormat(request);
+		if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+			String etag = formatEtag(service.getAllCustomersEtag(), format);
+			if (request.checkNotModified(etag)) {
+				return notModified(etag);
+			}
+		}
+		List<CustomerView> customers = service.getAllCustomerViews();
+		return ResponseEntity.ok()
+				.contentType(format)
+				.eTag(formatEtag(CustomerListingVersion.of(customers).toEtag(), format))
+				.varyBy(HttpHeaders.ACCEPT)
+				.body(customers);
+	}
+
+	/**
+	 * Exports all customers as newline-delimited JSON, one customer per line.
+	 * The response is streamed, so large tables can be exported without buffering them.
+	 * 
+	 * @param response The response the customers are written to.
+	 * @throws IOException If writing the response fails.
+	 */
+	@GetMapping(value = "/exportCustomers", produces = "application/x-ndjson")
+	public void exportCustomers(HttpServletResponse response) throws IOException {
+		response.setContentType("application/x-ndjson");
+		response.setCharacterEncoding("UTF-8");
+		service.exportCustomers(response.getOutputStream());
+	}
+
+	/**
+	 * Retrieves one page of customers. The first page is requested without a token,
+	 * following pages with the token returned by the previous page.
+	 * 
+	 * @param pageSize  The number of customers per page, capped by the server.
+	 * @param pageToken The opaque token of the page to fetch, absent for the first page.
+	 * @return The customers on the page and the token for the next page.
+	 */
+	@GetMapping("/getCustomersPage")
+	public CustomerPage getCustomersPage(@RequestParam(defaultValue = "20") int pageSize,
+			@RequestParam(required = false) String pageToken) {
+		return service.getCustomerPage(pageSize, pageToken);
+	}
+
+	/**
+	 * Searches customers by name or phone number, for example
+	 * {@code /searchCustomers?q=smi} or {@code /searchCustomers?q=555 01&field=phone&match=contains}.
+	 * Names match regardless of case and accents, phone numbers by their digits alone.
+	 * 
+	 * @param q         The text to search for.
+	 * @param field     The field to match, "name" or "phone".
+	 * @param match     Whether the text must start the field ("prefix") or may occur anywhere ("contains").
+	 * @param pageSize  The number of customers per page, capped by the server.
+	 * @param pageToken The opaque token of the page to fetch, absent for the first page.
+	 * @return The matching customers on the page and the token for the next page.
+	 */
+	@GetMapping("/searchCustomers")
+	public CustomerSearchPage searchCustomers(@RequestParam String q, @RequestParam(defaultValue = "name") String field,
+			@RequestParam(defaultValue = "prefix") String match, @RequestParam(defaultValue = "20") int pageSize,
+			@RequestParam(required = false) String pageToken) {
+		return service.searchCustomers(q, field, match, pageSize, pageToken);
+	}
+
+	/**
+	 * Reads committed customer changes from the change log, for consumers that keep up
+	 * with the customers incrementally instead of polling /getAllCustomers. A consumer
+	 * stores the returned nextOffset and passes it as fromOffset on its next call, and
+	 * starts over from offset 0 if the returned logId differs from the one it stored.
+	 * 
+	 * @param fromOffset The offset of the first change to read, 0 for the whole history.
+	 * @param limit      The largest number of changes to return, capped by the server.
+	 * @return The changes and the offset to continue from, or 404 if the change log is disabled.
+	 * @throws IOException if the change log cannot be read.
+	 */
+	@GetMapping("/customerChanges")
+	public ResponseEntity<CustomerChangePage> getCustomerChanges(@RequestParam(defaultValue = "0") long fromOffset,
+			@RequestParam(defaultValue = "100") int limit) throws IOException {
+		if (!changeLog.isEnabled()) {
+			return ResponseEntity.notFound().build();
+		}
+		return ResponseEntity.ok(changeLog.read(fromOffset, limit));
 	}
 
 	/**
 	 * Retrieves a customer by their ID.
 	 * 
-	 * @param id The ID of the customer to retrieve.
-	 * @return The customer object with the specified ID.
+	 * The response carries a strong ETag derived from the customer version and the
+	 * negotiated format. A request whose If-None-Match still matches is answered with 304
+	 * after looking up the version alone, without loading or serializing the customer.
+	 * Both responses vary by Accept.
+	 * 
+	 * @param id      The ID of the customer to retrieve.
+	 * @param request The current request, checked for Accept and If-None-Match.
+	 * @return The view of the customer with the specified ID, or an empty 304 response.
+	 * @throws HttpMediaTypeNotAcceptableException If no customer format is acceptable.
 	 */
 	@GetMapping("/getCustomer/{id}")
-	public Customer getCustomer(@PathVariable Integer id) {
-		return service.getCustomerById(id);
+	public ResponseEntity<CustomerView> getCustomer(@PathVariable Integer id, NativeWebRequest request)
+			throws HttpMediaTypeNotAcceptableException {
+		MediaType format = negotiateFormat(request);
+		if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+			String etag = service.getCustomerEtag(id);
+			if (etag != null && request.checkNotModified(formatEtag(etag, format))) {
+				return notModified(formatEtag(etag, format));
+			}
+		}
+		CustomerView customer = service.getCustomerView(id);
+		if (customer == null) {
+			return ResponseEntity.ok().build();
+		}
+		return ResponseEntity.ok()
+				.contentType(format)
+				.eTag(formatEtag(customer.toEtag(), format))
+				.varyBy(HttpHeaders.ACCEPT)
+				.body(customer);
 	}
 
 	/**
 	 * Updates an existing customer.
 	 * 
+	 * With an If-Match header carrying an ETag of the customer, the update is only made
+	 * if the customer has not changed since; otherwise it is answered with 412.
+	 * 
 	 * @param id The ID of the customer to update.
 	 * @param customer The customer object containing updated information.
+	 * @param ifMatch The If-Match header, if any.
 	 * @return A response entity with a success message.
 	 */
 	@PutMapping("/updateCustomer/{id}")
-	public ResponseEntity<String> updateCustomer(@PathVariable Integer id,@RequestBody Customer customer) {
+	public ResponseEntity<String> updateCustomer(@PathVariable Integer id,@RequestBody Customer customer,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 
-		service.updateCustomer(id, customer);
+		service.updateCustomer(id, customer, expectedVersion(id, ifMatch));
 		return ResponseEntity.ok("Data Saved");
 	}
 
 	/**
-	 * Deletes a customer by their ID.
+	 * Partially updates an existing customer. Only the fields present in the body are
+	 * changed, for example {@code {"phonenumber": "555-0100"}} or
+	 * {@code {"person": {"gender": "F"}}}. If-Match is honoured as for updates.
+	 * 
+	 * @param id The ID of the customer to update.
+	 * @param patch The JSON object containing the fields to change.
+	 * @param ifMatch The If-Match header, if any.
+	 * @return A response entity with a success message.
+	 */
+	@PatchMapping("/patchCustomer/{id}")
+	public ResponseEntity<String> patchCustomer(@PathVariable Integer id, @RequestBody JsonNode patch,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		service.patchCustomer(id, patch, expectedVersion(id, ifMatch));
+		return ResponseEntity.ok("Data Saved");
+	}
+
+	/**
+	 * Deletes a customer by their ID, together with their person and gadgets.
 	 * 
 	 * @param id The ID of the customer to delete.
 	 * @return A message indicating the deletion result.
-	 * @throws RuntimeException If the customer with the specified ID is not found.
+	 * @throws EntityNotFoundException If the customer with the specified ID is not found.
 	 */
 	@DeleteMapping("/deleteCustomer/{id}")
 	public String deleteCustomer(@PathVariable Integer id) {
-		//	        return service.deleteCustomer(id);
-
-		Customer customer=service.getCustomerById(id);
-		if(customer==null)
-			throw new RuntimeException("Customer not found with that id ...deletion not possible");
 		service.deleteCustomer(id);
 		return "Deleted Customer id is "+id;
 
 	}
+
+	/**
+	 * Deletes many customers, given either as a list of IDs or as an inclusive ID range,
+	 * in chunks of one transaction each.
+	 * 
+	 * @param request The IDs, or fromId and toId, of the customers to delete.
+	 * @return The number of customers deleted.
+	 */
+	@PostMapping("/bulkDeleteCustomers")
+	public BulkDeleteResult bulkDeleteCustomers(@RequestBody BulkDeleteRequest request) {
+		return service.deleteCustomers(request);
+	}
+
+	/**
+	 * Maps invalid request arguments, such as a malformed page token, to a 400 response.
+	 * 
+	 * @param e The exception raised while handling the request.
+	 * @return A response entity with the error message.
+	 */
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+		return ResponseEntity.badRequest().body(e.getMessage());
+	}
+
+	/**
+	 * Maps an update that kept conflicting with concurrent updates of the same customer
+	 * to a 409 response; the client may retry it later.
+	 * 
+	 * @param e The exception raised while handling the request.
+	 * @return A response entity with the error message.
+	 */
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	public ResponseEntity<String> handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+		return ResponseEntity.status(HttpStatus.CONFLICT).body("Customer was changed concurrently, please retry.");
+	}
+
+	/**
+	 * Maps a conditional update of a customer that has changed since to a 412 response;
+	 * the client should read the customer again before deciding on its change.
+	 * 
+	 * @param e The exception raised while handling the request.
+	 * @return A response entity with the error message.
+	 */
+	@ExceptionHandler(CustomerVersionMismatchException.class)
+	public ResponseEntity<String> handleVersionMismatch(CustomerVersionMismatchException e) {
+		return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+	}
+
+	/**
+	 * Maps a missing customer on update or delete to a 404 response.
+	 * 
+	 * @param e The exception raised while handling the request.
+	 * @return A response entity with the error message.
+	 */
+	@ExceptionHandler(EntityNotFoundException.class)
+	public ResponseEntity<String> handleEntityNotFound(EntityNotFoundException e) {
+		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+	}
+
+	/**
+	 * Chooses the format of a customer response the way Spring MVC would: the first
+	 * acceptable type, by quality and specificity, that one of the customer formats
+	 * matches.
+	 * 
+	 * @param request The current request.
+	 * @return JSON, CBOR or Smile.
+	 * @throws HttpMediaTypeNotAcceptableException If no customer format is acceptable.
+	 */
+	private MediaType negotiateFormat(NativeWebRequest request) throws HttpMediaTypeNotAcceptableException {
+		for (MediaType accepted : contentNegotiationManager.resolveMediaTypes(request)) {
+			for (MediaType format : CUSTOMER_FORMATS) {
+				if (accepted.isCompatibleWith(format)) {
+					return format;
+				}
+			}
+		}
+		throw new HttpMediaTypeNotAcceptableException(CUSTOMER_FORMATS);
+	}
+
+	/**
+	 * Makes an ETag specific to a format, since a strong ETag identifies one exact
+	 * representation.
+	 * 
+	 * @param etag   The quoted ETag of the customer data.
+	 * @param format The format of the response.
+	 * @return The quoted ETag of the data in that format.
+	 */
+	private static String formatEtag(String etag, MediaType format) {
+		return etag.substring(0, etag.length() - 1) + "-" + format.getSubtype() + "\"";
+	}
+
+	/**
+	 * Reads the customer version a conditional write is based on from its If-Match header.
+	 * The ETags of all formats of a customer carry its version, so any of them may be sent.
+	 * Weak ETags never match, as If-Match compares strongly.
+	 * 
+	 * @param id      The ID of the customer to write.
+	 * @param ifMatch The If-Match header, or null.
+	 * @return The version, or null if the write is unconditional or If-Match is "*".
+	 * @throws CustomerVersionMismatchException If no ETag in the header belongs to the customer.
+	 */
+	private static Long expectedVersion(Integer id, String ifMatch) {
+		if (ifMatch == null || ifMatch.trim().equals("*")) {
+			return null;
+		}
+		for (String tag : ifMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+				continue;
+			}
+			String[] parts = tag.substring(1, tag.length() - 1).split("-", 3);
+			if (parts.length >= 2 && parts[0].equals(String.valueOf(id))) {
+				try {
+					return Long.valueOf(parts[1]);
+				} catch (NumberFormatException e) {
+					// not one of our ETags; try the next one
+				}
+			}
+		}
+		throw new CustomerVersionMismatchException("If-Match does not name a version of customer " + id + ".");
+	}
+
+	/**
+	 * Builds a 304 response carrying the same ETag and Vary as the full response.
+	 * 
+	 * @param <T>  The body type of the full response.
+	 * @param etag The quoted ETag that matched.
+	 * @return The response without a body.
+	 */
+	private static <T> ResponseEntity<T> notModified(String etag) {
+		return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+	}
 }
@@ -17,6 +17,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import entity.mapping.authenticateprovider.AccessTokenService;
+import entity.mapping.dto.AccessTokenResponse;
 import entity.mapping.dto.UserDto;
 import entity.mapping.entity.Customer;
 import entity.mapping.entity.User;
@@ -56,6 +58,12 @@ public class UserController {
 	@Autowired
 	private AuthenticationManager authenticationManager;
 
+	/**
+	 * Service issuing stateless access tokens when token mode is enabled.
+	 */
+	@Autowired
+	private AccessTokenService accessTokenService;
+
 	/**
 	 * Registers a new user in the system.
 	 *
@@ -72,18 +80,27 @@ public class UserController {
 
 	/**
 	 * Authenticates a user based on their login credentials.
+	 * 
+	 * In token mode the response carries a signed access token that authenticates later
+	 * requests without any server-side state; otherwise the authentication is stored in
+	 * the security context.
 	 *
 	 * @param loginRequest The UserDto object containing email and password.
-	 * @return A response entity containing a success message if authentication is successful.
+	 * @return A response entity containing the access token in token mode, or a success
+	 *         message otherwise.
 	 */
 	@PostMapping("/login")
-	public ResponseEntity<String> loginUser(@RequestBody UserDto loginRequest) {
+	public ResponseEntity<?> loginUser(@RequestBody UserDto loginRequest) {
 		Authentication authentication = authenticationManager.authenticate(
 				new UsernamePasswordAuthenticationToken(
 						loginRequest.getEmail(),
 						loginRequest.getPassword()
 						)
 				);
+		if (accessTokenService.isEnabled()) {
+			return ResponseEntity.ok(new AccessTokenResponse(accessTokenService.issue(authentication),
+					accessTokenService.getTtl().toSeconds()));
+		}
 		SecurityContextHolder.getContext().setAuthentication(authentication);
 
 		return ResponseEntity.ok("Login successful for user: " + loginRequest.getEmail());
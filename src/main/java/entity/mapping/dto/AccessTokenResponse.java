@@ -0,0 +1,63 @@
+package entity.mapping.dto;
+
+/**
+ * The AccessTokenResponse class represents the body returned by /login in token mode.
+ * The token is sent back by the client in an {@code Authorization: Bearer} header.
+ */
+public class AccessTokenResponse {
+
+	/**
+	 * The signed access token.
+	 */
+	private String accessToken;
+
+	/**
+	 * The type of the token, always "Bearer".
+	 */
+	private String tokenType;
+
+	/**
+	 * The number of seconds the token stays valid.
+	 */
+	private long expiresIn;
+
+	/**
+	 * Constructs an AccessTokenResponse.
+	 *
+	 * @param accessToken the signed access token.
+	 * @param expiresIn   the number of seconds the token stays valid.
+	 */
+	public AccessTokenResponse(String accessToken, long expiresIn) {
+		this.accessToken = accessToken;
+		this.tokenType = "Bearer";
+		this.expiresIn = expiresIn;
+	}
+
+	/**
+	 * Gets the signed access token.
+	 *
+	 * @return the access token.
+	 */
+	public String getAccessToken() {
+		return accessToken;
+	}
+
+	/**
+	 * Gets the type of the token.
+	 *
+	 * @return the token type.
+	 */
+	public String getTokenType() {
+		return tokenType;
+	}
+
+	/**
+	 * Gets the number of seconds the token stays valid.
+	 *
+	 * @return the token lifetime in seconds.
+	 */
+	public long getExpiresIn() {
+		return expiresIn;
+	}
+
+}
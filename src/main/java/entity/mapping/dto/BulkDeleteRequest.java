@@ -0,0 +1,80 @@
+package entity.mapping.dto;
+
+import java.util.List;
+
+/**
+ * The BulkDeleteRequest class selects the customers to delete in bulk, either as a list
+ * of IDs or as an inclusive range of IDs.
+ */
+public class BulkDeleteRequest {
+
+	/**
+	 * The IDs of the customers to delete.
+	 */
+	private List<Integer> ids;
+
+	/**
+	 * The first ID of the range to delete, inclusive.
+	 */
+	private Integer fromId;
+
+	/**
+	 * The last ID of the range to delete, inclusive.
+	 */
+	private Integer toId;
+
+	/**
+	 * Gets the IDs of the customers to delete.
+	 *
+	 * @return the IDs, or null if a range is given.
+	 */
+	public List<Integer> getIds() {
+		return ids;
+	}
+
+	/**
+	 * Sets the IDs of the customers to delete.
+	 *
+	 * @param ids the IDs to set.
+	 */
+	public void setIds(List<Integer> ids) {
+		this.ids = ids;
+	}
+
+	/**
+	 * Gets the first ID of the range to delete.
+	 *
+	 * @return the first ID, inclusive.
+	 */
+	public Integer getFromId() {
+		return fromId;
+	}
+
+	/**
+	 * Sets the first ID of the range to delete.
+	 *
+	 * @param fromId the first ID, inclusive.
+	 */
+	public void setFromId(Integer fromId) {
+		this.fromId = fromId;
+	}
+
+	/**
+	 * Gets the last ID of the range to delete.
+	 *
+	 * @return the last ID, inclusive.
+	 */
+	public Integer getToId() {
+		return toId;
+	}
+
+	/**
+	 * Sets the last ID of the range to delete.
+	 *
+	 * @param toId the last ID, inclusive.
+	 */
+	public void setToId(Integer toId) {
+		this.toId = toId;
+	}
+
+}
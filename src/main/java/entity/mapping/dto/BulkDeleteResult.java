@@ -0,0 +1,63 @@
+package entity.mapping.dto;
+
+/**
+ * The BulkDeleteResult class summarizes a bulk customer deletion.
+ */
+public class BulkDeleteResult {
+
+	/**
+	 * The number of customers deleted.
+	 */
+	private int deleted;
+
+	/**
+	 * The number of chunks, each deleted in its own transaction.
+	 */
+	private int chunks;
+
+	/**
+	 * The wall-clock time spent on the deletion, in milliseconds.
+	 */
+	private long elapsedMillis;
+
+	/**
+	 * Constructs a BulkDeleteResult.
+	 *
+	 * @param deleted      the number of customers deleted.
+	 * @param chunks       the number of chunks.
+	 * @param elapsedNanos the time spent on the deletion, in nanoseconds.
+	 */
+	public BulkDeleteResult(int deleted, int chunks, long elapsedNanos) {
+		this.deleted = deleted;
+		this.chunks = chunks;
+		this.elapsedMillis = elapsedNanos / 1_000_000;
+	}
+
+	/**
+	 * Gets the number of customers deleted.
+	 *
+	 * @return the deleted count.
+	 */
+	public int getDeleted() {
+		return deleted;
+	}
+
+	/**
+	 * Gets the number of chunks.
+	 *
+	 * @return the number of transactions used.
+	 */
+	public int getChunks() {
+		return chunks;
+	}
+
+	/**
+	 * Gets the time spent on the deletion.
+	 *
+	 * @return the elapsed time in milliseconds.
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+}
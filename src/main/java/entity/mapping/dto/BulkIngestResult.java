@@ -0,0 +1,100 @@
+package entity.mapping.dto;
+
+import java.util.List;
+
+/**
+ * The BulkIngestResult class summarizes a bulk customer ingest. It contains the
+ * outcome of every record together with the overall counts and throughput.
+ */
+public class BulkIngestResult {
+
+	/**
+	 * The number of customers stored.
+	 */
+	private int inserted;
+
+	/**
+	 * The number of records rejected.
+	 */
+	private int failed;
+
+	/**
+	 * The wall-clock time spent on the ingest, in milliseconds.
+	 */
+	private long elapsedMillis;
+
+	/**
+	 * The number of customers stored per second.
+	 */
+	private double rowsPerSecond;
+
+	/**
+	 * The outcome of every record, in request order.
+	 */
+	private List<BulkRecordResult> results;
+
+	/**
+	 * Constructs a BulkIngestResult from the per-record results and the elapsed time.
+	 *
+	 * @param results      the outcome of every record.
+	 * @param elapsedNanos the time spent on the ingest, in nanoseconds.
+	 */
+	public BulkIngestResult(List<BulkRecordResult> results, long elapsedNanos) {
+		this.results = results;
+		for (BulkRecordResult result : results) {
+			if (BulkRecordResult.INSERTED.equals(result.getStatus())) {
+				inserted++;
+			} else {
+				failed++;
+			}
+		}
+		this.elapsedMillis = elapsedNanos / 1_000_000;
+		this.rowsPerSecond = elapsedNanos > 0 ? inserted * 1_000_000_000d / elapsedNanos : 0;
+	}
+
+	/**
+	 * Gets the number of customers stored.
+	 *
+	 * @return the inserted count.
+	 */
+	public int getInserted() {
+		return inserted;
+	}
+
+	/**
+	 * Gets the number of records rejected.
+	 *
+	 * @return the failed count.
+	 */
+	public int getFailed() {
+		return failed;
+	}
+
+	/**
+	 * Gets the time spent on the ingest.
+	 *
+	 * @return the elapsed time in milliseconds.
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * Gets the ingest throughput.
+	 *
+	 * @return the number of customers stored per second.
+	 */
+	public double getRowsPerSecond() {
+		return rowsPerSecond;
+	}
+
+	/**
+	 * Gets the outcome of every record.
+	 *
+	 * @return the per-record results, in request order.
+	 */
+	public List<BulkRecordResult> getResults() {
+		return results;
+	}
+
+}
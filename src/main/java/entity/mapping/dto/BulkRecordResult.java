@@ -0,0 +1,112 @@
+package entity.mapping.dto;
+
+/**
+ * The BulkRecordResult class represents the outcome of a single record in a bulk
+ * customer ingest. Records are identified by their position in the request body.
+ */
+public class BulkRecordResult {
+
+	/**
+	 * Status of a record that was stored.
+	 */
+	public static final String INSERTED = "INSERTED";
+
+	/**
+	 * Status of a record that was rejected.
+	 */
+	public static final String FAILED = "FAILED";
+
+	/**
+	 * The zero-based position of the record in the request.
+	 */
+	private int index;
+
+	/**
+	 * The ID assigned to the stored customer, or null if the record failed.
+	 */
+	private Integer id;
+
+	/**
+	 * The status of the record, either INSERTED or FAILED.
+	 */
+	private String status;
+
+	/**
+	 * The reason the record failed, or null if it was stored.
+	 */
+	private String error;
+
+	/**
+	 * Constructs a BulkRecordResult.
+	 *
+	 * @param index  the position of the record in the request.
+	 * @param id     the ID assigned to the customer, or null.
+	 * @param status the status of the record.
+	 * @param error  the failure reason, or null.
+	 */
+	public BulkRecordResult(int index, Integer id, String status, String error) {
+		this.index = index;
+		this.id = id;
+		this.status = status;
+		this.error = error;
+	}
+
+	/**
+	 * Creates the result of a stored record.
+	 *
+	 * @param index the position of the record in the request.
+	 * @param id    the ID assigned to the customer.
+	 * @return the result for the record.
+	 */
+	public static BulkRecordResult inserted(int index, Integer id) {
+		return new BulkRecordResult(index, id, INSERTED, null);
+	}
+
+	/**
+	 * Creates the result of a rejected record.
+	 *
+	 * @param index the position of the record in the request.
+	 * @param error the reason the record was rejected.
+	 * @return the result for the record.
+	 */
+	public static BulkRecordResult failed(int index, String error) {
+		return new BulkRecordResult(index, null, FAILED, error);
+	}
+
+	/**
+	 * Gets the position of the record in the request.
+	 *
+	 * @return the zero-based record index.
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Gets the ID assigned to the stored customer.
+	 *
+	 * @return the customer ID, or null if the record failed.
+	 */
+	public Integer getId() {
+		return id;
+	}
+
+	/**
+	 * Gets the status of the record.
+	 *
+	 * @return INSERTED or FAILED.
+	 */
+	public String getStatus() {
+		return status;
+	}
+
+	/**
+	 * Gets the reason the record failed.
+	 *
+	 * @return the failure reason, or null if the record was stored.
+	 */
+	public String getError() {
+		return error;
+	}
+
+}
@@ -0,0 +1,112 @@
+package entity.mapping.dto;
+
+/**
+ * The CacheRegionUsage class represents the usage counters of one second-level
+ * cache region, used to size the cache.
+ */
+public class CacheRegionUsage {
+
+	/**
+	 * The name of the cache region.
+	 */
+	private String region;
+
+	/**
+	 * The number of lookups answered from the region.
+	 */
+	private long hits;
+
+	/**
+	 * The number of lookups that had to go to the database.
+	 */
+	private long misses;
+
+	/**
+	 * The number of entries written to the region.
+	 */
+	private long puts;
+
+	/**
+	 * The number of entries removed to respect the size bound, or -1 if unknown.
+	 */
+	private long evictions;
+
+	/**
+	 * The number of entries currently held in memory, or -1 if unknown.
+	 */
+	private long size;
+
+	/**
+	 * Constructs a CacheRegionUsage.
+	 *
+	 * @param region    the name of the region.
+	 * @param hits      the number of cache hits.
+	 * @param misses    the number of cache misses.
+	 * @param puts      the number of entries written.
+	 * @param evictions the number of entries evicted, or -1 if unknown.
+	 * @param size      the number of entries in memory, or -1 if unknown.
+	 */
+	public CacheRegionUsage(String region, long hits, long misses, long puts, long evictions, long size) {
+		this.region = region;
+		this.hits = hits;
+		this.misses = misses;
+		this.puts = puts;
+		this.evictions = evictions;
+		this.size = size;
+	}
+
+	/**
+	 * Gets the name of the region.
+	 *
+	 * @return the region name.
+	 */
+	public String getRegion() {
+		return region;
+	}
+
+	/**
+	 * Gets the number of cache hits.
+	 *
+	 * @return the hit count.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of cache misses.
+	 *
+	 * @return the miss count.
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Gets the number of entries written.
+	 *
+	 * @return the put count.
+	 */
+	public long getPuts() {
+		return puts;
+	}
+
+	/**
+	 * Gets the number of entries evicted to respect the size bound.
+	 *
+	 * @return the eviction count, or -1 if unknown.
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Gets the number of entries held in memory.
+	 *
+	 * @return the entry count, or -1 if unknown.
+	 */
+	public long getSize() {
+		return size;
+	}
+
+}
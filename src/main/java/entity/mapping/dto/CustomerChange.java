@@ -0,0 +1,41 @@
+package entity.mapping.dto;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import entity.mapping.entity.CustomerOutboxEvent;
+
+/**
+ * The CustomerChange record is one committed change of a customer, as read from the
+ * change log by /customerChanges.
+ *
+ * Changes of one customer appear in the log in commit order as long as a single node
+ * writes customers. With several writers, each node draws outbox IDs from its own block
+ * of the sequence, so a later change can be relayed before an earlier one; consumers
+ * that must not go back in time skip a change whose version is not above the one they
+ * have applied. Customer IDs are never reused, so a deletion is final.
+ *
+ * @param offset     the position of the change in the change log; null while the change
+ *                   is still in the outbox.
+ * @param type       CREATED, UPDATED or DELETED.
+ * @param customerId the ID of the changed customer.
+ * @param version    the customer version the change committed, or null if it was deleted.
+ * @param occurredAt when the change was made.
+ * @param customer   the customer as it was committed, or null if it was deleted.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CustomerChange(Long offset, CustomerOutboxEvent.Type type, Integer customerId, Long version,
+		Instant occurredAt, CustomerView customer) {
+
+	/**
+	 * Returns this change at its position in the change log.
+	 *
+	 * @param offset the offset of the change.
+	 * @return the change with its offset.
+	 */
+	public CustomerChange withOffset(long offset) {
+		return new CustomerChange(offset, type, customerId, version, occurredAt, customer);
+	}
+
+}
@@ -0,0 +1,19 @@
+package entity.mapping.dto;
+
+import java.util.List;
+
+/**
+ * The CustomerChangePage record is one read of the change log by /customerChanges.
+ *
+ * Offsets are only meaningful within one log. When the relay lease fails over to another
+ * node, that node serves its own log with its own offsets, so a consumer that sees the
+ * log ID change has to start over from offset 0 of the new log.
+ *
+ * @param logId      the identity of the log the offsets refer to.
+ * @param changes    the changes read, in log order.
+ * @param nextOffset the offset to read from next time.
+ * @param endOffset  the offset the next change will be appended at; the consumer has
+ *                   caught up when nextOffset reaches it.
+ */
+public record CustomerChangePage(String logId, List<CustomerChange> changes, long nextOffset, long endOffset) {
+}
@@ -0,0 +1,54 @@
+package entity.mapping.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The CustomerDetailRow record is one row of the customer detail projection: the
+ * columns of a customer and its person, joined with one of its gadgets.
+ *
+ * A customer without gadgets yields one row whose gadget columns are null, and a
+ * customer with several gadgets yields one row per gadget. The rows of a customer are
+ * adjacent, so they can be folded into views with {@link #toViews(List)}.
+ *
+ * @param customerId  the customer ID.
+ * @param version     the customer version.
+ * @param name        the customer name.
+ * @param phonenumber the customer phone number.
+ * @param personId    the person ID, or null if the customer has no person.
+ * @param gender      the gender of the person.
+ * @param gadgetId    the gadget ID, or null if the customer has no gadgets.
+ * @param gadgetName  the name of the gadget.
+ * @param years       how many years the gadget has been owned.
+ */
+public record CustomerDetailRow(Integer customerId, Long version, String name, String phonenumber, Integer personId, String gender,
+		UUID gadgetId, String gadgetName, Float years) {
+
+	/**
+	 * Folds rows ordered by customer ID into one view per customer.
+	 *
+	 * @param rows the rows, with the rows of every customer adjacent.
+	 * @return the customer views, in the order of the rows.
+	 */
+	public static List<CustomerView> toViews(List<CustomerDetailRow> rows) {
+		List<CustomerView> views = new ArrayList<>();
+		int start = 0;
+		while (start < rows.size()) {
+			CustomerDetailRow first = rows.get(start);
+			List<GadgetView> gadgets = new ArrayList<>();
+			int end = start;
+			while (end < rows.size() && rows.get(end).customerId().equals(first.customerId())) {
+				CustomerDetailRow row = rows.get(end++);
+				if (row.gadgetId() != null) {
+					gadgets.add(new GadgetView(row.gadgetId(), row.gadgetName(), row.years()));
+				}
+			}
+			PersonView person = first.personId() == null ? null : new PersonView(first.personId(), first.gender());
+			views.add(new CustomerView(first.customerId(), first.version(), first.name(), first.phonenumber(), person, gadgets));
+			start = end;
+		}
+		return views;
+	}
+
+}
@@ -0,0 +1,53 @@
+package entity.mapping.dto;
+
+import java.util.UUID;
+
+/**
+ * The CustomerIngestStatus record tells a client what became of a customer accepted by
+ * /addCustomerAsync.
+ *
+ * @param trackingId the ID handed out when the customer was accepted.
+ * @param status     QUEUED while the customer waits to be written, then INSERTED or FAILED.
+ * @param customerId the ID of the stored customer, or null unless INSERTED.
+ * @param error      the reason the customer was not stored, or null unless FAILED.
+ */
+public record CustomerIngestStatus(UUID trackingId, String status, Integer customerId, String error) {
+
+	/**
+	 * Status of a customer that is waiting in the write-behind queue.
+	 */
+	public static final String QUEUED = "QUEUED";
+
+	/**
+	 * Creates the status of a customer that was just accepted.
+	 *
+	 * @param trackingId the tracking ID.
+	 * @return the status.
+	 */
+	public static CustomerIngestStatus queued(UUID trackingId) {
+		return new CustomerIngestStatus(trackingId, QUEUED, null, null);
+	}
+
+	/**
+	 * Creates the status of a customer from the outcome of its write.
+	 *
+	 * @param trackingId the tracking ID.
+	 * @param result     the outcome of the customer in its batch.
+	 * @return the status.
+	 */
+	public static CustomerIngestStatus of(UUID trackingId, BulkRecordResult result) {
+		return new CustomerIngestStatus(trackingId, result.getStatus(), result.getId(), result.getError());
+	}
+
+	/**
+	 * Creates the status of a customer whose batch could not be written at all.
+	 *
+	 * @param trackingId the tracking ID.
+	 * @param error      the reason.
+	 * @return the status.
+	 */
+	public static CustomerIngestStatus failed(UUID trackingId, String error) {
+		return new CustomerIngestStatus(trackingId, BulkRecordResult.FAILED, null, error);
+	}
+
+}
@@ -0,0 +1,48 @@
+package entity.mapping.dto;
+
+import java.util.List;
+
+/**
+ * The CustomerListingVersion record is a fingerprint of the complete customer listing.
+ *
+ * Every update of a customer graph increments its version, and every new customer gets
+ * an ID above all existing ones, so any insert, update or delete changes at least one
+ * of the four values. The fingerprint can be computed by the database without reading
+ * the listing, or from a listing that has been read, and both give the same ETag.
+ *
+ * @param count      the number of customers.
+ * @param maxId      the highest customer ID.
+ * @param idSum      the sum of all customer IDs.
+ * @param versionSum the sum of all customer versions.
+ */
+public record CustomerListingVersion(long count, long maxId, long idSum, long versionSum) {
+
+	/**
+	 * Computes the fingerprint of a listing that has been read.
+	 *
+	 * @param customers the customers of the listing.
+	 * @return the fingerprint.
+	 */
+	public static CustomerListingVersion of(List<CustomerView> customers) {
+		long maxId = 0;
+		long idSum = 0;
+		long versionSum = 0;
+		for (CustomerView customer : customers) {
+			maxId = Math.max(maxId, customer.id());
+			idSum += customer.id();
+			versionSum += customer.version() == null ? 0 : customer.version();
+		}
+		return new CustomerListingVersion(customers.size(), maxId, idSum, versionSum);
+	}
+
+	/**
+	 * Gets the strong ETag of the listing.
+	 *
+	 * @return the quoted entity tag.
+	 */
+	public String toEtag() {
+		return "\"" + Long.toHexString(count) + "-" + Long.toHexString(maxId) + "-" + Long.toHexString(idSum) + "-"
+				+ Long.toHexString(versionSum) + "\"";
+	}
+
+}
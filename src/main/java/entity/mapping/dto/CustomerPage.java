@@ -0,0 +1,52 @@
+package entity.mapping.dto;
+
+import java.util.List;
+
+import entity.mapping.entity.Customer;
+
+/**
+ * The CustomerPage class represents one page of a keyset paginated customer listing.
+ * It contains the customers of the page and the token used to request the next page.
+ */
+public class CustomerPage {
+
+	/**
+	 * The customers on this page, in ascending ID order.
+	 */
+	private List<Customer> customers;
+
+	/**
+	 * The opaque token for the next page, or null if this is the last page.
+	 */
+	private String nextPageToken;
+
+	/**
+	 * Constructs a CustomerPage with the given customers and next-page token.
+	 *
+	 * @param customers     the customers on this page.
+	 * @param nextPageToken the token for the next page, or null if there is none.
+	 */
+	public CustomerPage(List<Customer> customers, String nextPageToken) {
+		this.customers = customers;
+		this.nextPageToken = nextPageToken;
+	}
+
+	/**
+	 * Gets the customers on this page.
+	 *
+	 * @return the list of customers.
+	 */
+	public List<Customer> getCustomers() {
+		return customers;
+	}
+
+	/**
+	 * Gets the token for the next page.
+	 *
+	 * @return the next-page token, or null if this is the last page.
+	 */
+	public String getNextPageToken() {
+		return nextPageToken;
+	}
+
+}
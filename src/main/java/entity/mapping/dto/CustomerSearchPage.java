@@ -0,0 +1,12 @@
+package entity.mapping.dto;
+
+import java.util.List;
+
+/**
+ * The CustomerSearchPage record is one page of the results of /searchCustomers.
+ *
+ * @param customers     the matching customers on this page, in ascending ID order.
+ * @param nextPageToken the opaque token for the next page, or null if this is the last page.
+ */
+public record CustomerSearchPage(List<CustomerView> customers, String nextPageToken) {
+}
@@ -0,0 +1,12 @@
+package entity.mapping.dto;
+
+/**
+ * The CustomerSearchRow record holds the search keys of one customer, as stored in the
+ * normalized name and phone columns. It is what the in-memory search index is built from.
+ *
+ * @param id          the customer ID.
+ * @param nameKey     the normalized name, or null.
+ * @param phoneDigits the digits of the phone number, or null.
+ */
+public record CustomerSearchRow(Integer id, String nameKey, String phoneDigits) {
+}
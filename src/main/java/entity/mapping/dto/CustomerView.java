@@ -0,0 +1,59 @@
+package entity.mapping.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import entity.mapping.entity.Customer;
+
+/**
+ * The CustomerView record is the read-only view of a customer returned by
+ * /getAllCustomers and /getCustomer. It serializes to the same JSON as the
+ * {@link Customer} entity, but is built from the selected columns alone, without
+ * managed entities, dirty-checking snapshots or proxies.
+ *
+ * @param id          the customer ID.
+ * @param version     the customer version, which is not serialized but identifies the
+ *                    representation in the ETag.
+ * @param name        the customer name.
+ * @param phonenumber the customer phone number.
+ * @param person      the person of the customer, or null if there is none.
+ * @param gadgets     the gadgets of the customer.
+ */
+public record CustomerView(Integer id, @JsonIgnore Long version, String name, String phonenumber, PersonView person, List<GadgetView> gadgets) {
+
+	/**
+	 * Creates the view of a loaded customer, for example one served from the
+	 * second-level cache.
+	 *
+	 * @param customer the customer.
+	 * @return the view.
+	 */
+	public static CustomerView of(Customer customer) {
+		List<GadgetView> gadgets = customer.getGadgets() == null ? List.of()
+				: customer.getGadgets().stream().map(GadgetView::of).toList();
+		return new CustomerView(customer.getId(), customer.getVersion(), customer.getName(), customer.getPhonenumber(),
+				PersonView.of(customer.getPerson()), gadgets);
+	}
+
+	/**
+	 * Gets the strong ETag of a customer's representation.
+	 *
+	 * @param id      the customer ID.
+	 * @param version the customer version.
+	 * @return the quoted entity tag.
+	 */
+	public static String etag(Integer id, Long version) {
+		return "\"" + id + "-" + version + "\"";
+	}
+
+	/**
+	 * Gets the strong ETag of this view.
+	 *
+	 * @return the quoted entity tag.
+	 */
+	public String toEtag() {
+		return etag(id, version);
+	}
+
+}
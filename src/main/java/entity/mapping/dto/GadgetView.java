@@ -0,0 +1,29 @@
+package entity.mapping.dto;
+
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import entity.mapping.entity.Gadgets;
+
+/**
+ * The GadgetView record is the read-only view of a gadget returned by the read
+ * endpoints. It serializes to the same JSON as the {@link Gadgets} entity.
+ *
+ * @param id         the gadget ID.
+ * @param gadgetName the name of the gadget.
+ * @param years      how many years the gadget has been owned.
+ */
+public record GadgetView(UUID id, @JsonProperty("gadget_name") String gadgetName, Float years) {
+
+	/**
+	 * Creates the view of a loaded gadget.
+	 *
+	 * @param gadget the gadget.
+	 * @return the view.
+	 */
+	public static GadgetView of(Gadgets gadget) {
+		return new GadgetView(gadget.getId(), gadget.getGadget_name(), gadget.getYears());
+	}
+
+}
@@ -0,0 +1,24 @@
+package entity.mapping.dto;
+
+import entity.mapping.entity.Person;
+
+/**
+ * The PersonView record is the read-only view of a customer's person returned by the
+ * read endpoints. It serializes to the same JSON as the {@link Person} entity.
+ *
+ * @param id     the person ID, which is the customer ID.
+ * @param gender the gender of the person.
+ */
+public record PersonView(Integer id, String gender) {
+
+	/**
+	 * Creates the view of a loaded person.
+	 *
+	 * @param person the person, may be null.
+	 * @return the view, or null if there is no person.
+	 */
+	public static PersonView of(Person person) {
+		return person == null ? null : new PersonView(person.getId(), person.getGender());
+	}
+
+}
@@ -2,40 +2,90 @@ package entity.mapping.entity;
 
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.PrimaryKeyJoinColumn;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 /**
  * Represents a customer entity in the system
  * 
+ * The {@value #DETAIL_GRAPH} entity graph loads the customer together with its person
+ * and gadgets in one statement, for read paths that return the whole graph.
+ * 
+ * The customer and its gadgets collection are kept in the second-level cache when the
+ * l2cache profile is active; otherwise the cache annotations have no effect.
+ * 
+ * The name and phone number are also stored normalized, see {@link SearchKeys}, in
+ * indexed columns that customer search runs against.
+ * 
  * @author Sowmya
  *
  */
 @Entity
+@Table(indexes = {
+		@Index(name = "idx_customer_name_key", columnList = "name_key"),
+		@Index(name = "idx_customer_phone_digits", columnList = "phone_digits")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customer")
+@NamedEntityGraph(name = Customer.DETAIL_GRAPH, attributeNodes = {
+		@NamedAttributeNode("person"),
+		@NamedAttributeNode("gadgets")
+})
 public class Customer {
 
+	/**
+	 * Name of the entity graph that fetches the person and gadgets with the customer.
+	 */
+	public static final String DETAIL_GRAPH = "Customer.detail";
+
 	/**
 	 * Represents the unique identifier for the entity.
 	 *
-	 * This field is automatically generated using the 
-	 * identity strategy for primary key generation.
+	 * This field is automatically generated from the "customer_seq" sequence
+	 * (a table on databases without sequences) using the pooled optimizer. IDs are
+	 * reserved in blocks, so inserts do not need a round trip per row and can be
+	 * sent to the database in JDBC batches.
 	 * 
 	 */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_seq")
+	@SequenceGenerator(name = "customer_seq", sequenceName = "customer_seq", allocationSize = 50)
 	@Column(name = "id")
 	private Integer id;
 
+	/**
+	 * The version of the customer and everything it owns.
+	 *
+	 * Hibernate increments it whenever the customer row or its gadgets collection
+	 * changes; CustomerService also increments it when only the person or a gadget
+	 * changes, so a changed version always means a changed customer graph. It is the
+	 * source of the ETags of the read endpoints and is not part of the JSON.
+	 */
+	@Version
+	@JsonIgnore
+	private Long version;
+
 	/**
 	 * The name of the customer.
 	 */
@@ -46,6 +96,20 @@ public class Customer {
 	 */
 	private String phonenumber;
 
+	/**
+	 * The normalized name, kept in step with the name by {@link #setName(String)}.
+	 */
+	@JsonIgnore
+	@Column(name = "name_key")
+	private String nameKey;
+
+	/**
+	 * The digits of the phone number, kept in step with it by {@link #setPhonenumber(String)}.
+	 */
+	@JsonIgnore
+	@Column(name = "phone_digits")
+	private String phoneDigits;
+
 	/**
 	 * The person entity associated with this customer.
 	 * This field is mapped by the "customer" field in the Person entity.
@@ -60,12 +124,23 @@ public class Customer {
 	 * A list of gadgets associated with the customer.
 	 * Each gadget is linked to the customer through the "customer_id" column.
 	 * Changes to the customer will cascade to all associated gadgets.
+	 * The column is written with the gadget insert and never reassigned, so Hibernate
+	 * does not follow every insert with an extra UPDATE of the foreign key.
+	 * Gadgets removed from the list are deleted.
 	 */
-	@OneToMany(cascade=CascadeType.ALL)
-	@JoinColumn(name="customer_id", referencedColumnName ="id", nullable=false)
+	@OneToMany(cascade=CascadeType.ALL, orphanRemoval=true)
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customer-gadgets")
+	@JoinColumn(name="customer_id", referencedColumnName ="id", nullable=false, updatable=false)
 	private List<Gadgets> gadgets;
 
 
+	/**
+	 * Default constructor for Customer class, required by JPA and Jackson.
+	 */
+	public Customer() {
+		super();
+	}
+
 	/**
 	 * Constructor to initialize a Customer object.
 	 * 
@@ -77,11 +152,20 @@ public class Customer {
 	public Customer(Integer id, String name, Person person, List<Gadgets> gadgets) {
 		super();
 		this.id = id;
-		this.name = name;
+		setName(name);
 		this.person = person;
 		this.gadgets = gadgets;
 	}
 
+	/**
+	 * Gets the version of the customer.
+	 *
+	 * @return the version, incremented on every change of the customer graph.
+	 */
+	public Long getVersion() {
+		return version;
+	}
+
 	/**
 	 * Gets the unique identifier of the customer.
 	 *
@@ -116,6 +200,7 @@ public class Customer {
 	 */
 	public void setName(String name) {
 		this.name = name;
+		this.nameKey = SearchKeys.name(name);
 	}
 
 	/**
@@ -170,6 +255,7 @@ public class Customer {
 	 */
 	public void setPhonenumber(String phonenumber) {
 		this.phonenumber = phonenumber;
+		this.phoneDigits = SearchKeys.phonenumber(phonenumber);
 	}
 
 
@@ -0,0 +1,109 @@
+package entity.mapping.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * The lease that makes one change log the only one the outbox is relayed to.
+ *
+ * The table holds a single row. A relay locks it for the whole of every batch, so two
+ * relays never read, append and delete the same events, and only relays to its own log
+ * while the lease is held by that log or has expired. The owner renews the lease with
+ * every batch.
+ */
+@Entity
+@Table(name = "customer_change_relay_lease")
+public class CustomerChangeRelayLease {
+
+	/**
+	 * ID of the only row.
+	 */
+	public static final int ID = 1;
+
+	/**
+	 * Always {@link #ID}.
+	 */
+	@Id
+	private Integer id;
+
+	/**
+	 * ID of the change log holding the lease, or null if it was never taken.
+	 */
+	@Column(length = 36)
+	private String owner;
+
+	/**
+	 * Time until which the lease is held.
+	 */
+	@Column(name = "lease_until")
+	private Instant leaseUntil;
+
+	/**
+	 * Constructs an empty lease, for Hibernate.
+	 */
+	protected CustomerChangeRelayLease() {
+	}
+
+	/**
+	 * Constructs the lease row, not held by anyone.
+	 *
+	 * @param id the ID of the row, {@link #ID}.
+	 */
+	public CustomerChangeRelayLease(Integer id) {
+		this.id = id;
+	}
+
+	/**
+	 * Returns the ID of the row.
+	 *
+	 * @return {@link #ID}.
+	 */
+	public Integer getId() {
+		return id;
+	}
+
+	/**
+	 * Returns the ID of the change log holding the lease.
+	 *
+	 * @return the owner, or null if the lease was never taken.
+	 */
+	public String getOwner() {
+		return owner;
+	}
+
+	/**
+	 * Returns the time until which the lease is held.
+	 *
+	 * @return the end of the lease, or null if it was never taken.
+	 */
+	public Instant getLeaseUntil() {
+		return leaseUntil;
+	}
+
+	/**
+	 * Gives the lease to a change log.
+	 *
+	 * @param owner      the ID of the change log.
+	 * @param leaseUntil the time until which it is held.
+	 */
+	public void hold(String owner, Instant leaseUntil) {
+		this.owner = owner;
+		this.leaseUntil = leaseUntil;
+	}
+
+	/**
+	 * Indicates whether another change log holds the lease at a given time.
+	 *
+	 * @param owner the ID of the change log asking.
+	 * @param now   the current time.
+	 * @return true if the lease belongs to another log and has not expired.
+	 */
+	public boolean isHeldByOther(String owner, Instant now) {
+		return this.owner != null && !this.owner.equals(owner) && leaseUntil.isAfter(now);
+	}
+
+}
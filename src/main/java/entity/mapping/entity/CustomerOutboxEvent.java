@@ -0,0 +1,119 @@
+package entity.mapping.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+/**
+ * A change of a customer that has been committed but not yet appended to the change log.
+ *
+ * Rows are written in the same transaction as the change itself, so a change is
+ * recorded if and only if it commits, and are deleted by the relay once it has appended
+ * them to the change log. The payload is the change exactly as it is appended.
+ *
+ * IDs come from the pooled "customer_outbox_seq" allocator, so the rows of a bulk write
+ * are inserted in JDBC batches like the customers themselves.
+ */
+@Entity
+@Table(name = "customer_outbox")
+public class CustomerOutboxEvent {
+
+	/**
+	 * Kinds of change recorded for a customer.
+	 */
+	public enum Type {
+		CREATED, UPDATED, DELETED
+	}
+
+	/**
+	 * The ID of the event. Within one application instance, later changes of the same
+	 * customer always get higher IDs.
+	 */
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_outbox_seq")
+	@SequenceGenerator(name = "customer_outbox_seq", sequenceName = "customer_outbox_seq", allocationSize = 50)
+	private Long id;
+
+	/**
+	 * The ID of the changed customer.
+	 */
+	@Column(name = "customer_id", nullable = false)
+	private Integer customerId;
+
+	/**
+	 * The kind of change.
+	 */
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 16)
+	private Type type;
+
+	/**
+	 * The change as JSON, see {@link entity.mapping.dto.CustomerChange}.
+	 */
+	@Lob
+	@Column(nullable = false)
+	private String payload;
+
+	/**
+	 * Constructs an empty event, for Hibernate.
+	 */
+	protected CustomerOutboxEvent() {
+	}
+
+	/**
+	 * Constructs an event.
+	 *
+	 * @param customerId the ID of the changed customer.
+	 * @param type       the kind of change.
+	 * @param payload    the change as JSON.
+	 */
+	public CustomerOutboxEvent(Integer customerId, Type type, String payload) {
+		this.customerId = customerId;
+		this.type = type;
+		this.payload = payload;
+	}
+
+	/**
+	 * Returns the ID of the event.
+	 *
+	 * @return the event ID.
+	 */
+	public Long getId() {
+		return id;
+	}
+
+	/**
+	 * Returns the ID of the changed customer.
+	 *
+	 * @return the customer ID.
+	 */
+	public Integer getCustomerId() {
+		return customerId;
+	}
+
+	/**
+	 * Returns the kind of change.
+	 *
+	 * @return the change type.
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the change as JSON.
+	 *
+	 * @return the payload.
+	 */
+	public String getPayload() {
+		return payload;
+	}
+
+}
@@ -2,32 +2,42 @@ package entity.mapping.entity;
 
 import java.util.UUID;
 
-import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
 
 /**
  * The Gadgets class represents a gadget entity with a unique ID, name, and the 
  * number of years of usage or ownership. It generates a unique ID automatically 
- * when a new gadget is created.
+ * when a new gadget is created. IDs are time-ordered and stored as 16 bytes, and are
+ * rendered as UUID strings in JSON.
  * 
  * This entity is used to store gadget information in the system.
+ * Gadgets are kept in the second-level cache when the l2cache profile is active.
  * 
  * @author Sowmya
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "gadgets")
 public class Gadgets {
 
 	/**
 	 * The unique identifier for the gadget. It is automatically generated 
-	 * using a UUID before the entity is persisted.
+	 * using a time-ordered UUID before the entity is persisted, so new rows are
+	 * appended to the end of the primary key index.
 	 */
 	@Id
-	private String gadget_id;
+	@JdbcTypeCode(SqlTypes.BINARY)
+	@Column(length = 16)
+	private UUID gadget_id;
 
 	/**
 	 * The name of the gadget.
@@ -40,11 +50,11 @@ public class Gadgets {
 	private Float years;
 
 	/**
-	 * Automatically generates a unique UUID for the gadget_id before persisting the entity.
+	 * Automatically generates a time-ordered UUID for the gadget_id before persisting the entity.
 	 */
 	@PrePersist
 	protected void onCreate() {
-		this.gadget_id = UUID.randomUUID().toString();
+		this.gadget_id = TimeOrderedUuid.next();
 	}
 
 	/**
@@ -59,7 +69,7 @@ public class Gadgets {
 	 * 
 	 * @return the gadget ID.
 	 */
-	public String getId() {
+	public UUID getId() {
 		return gadget_id;
 	}
 
@@ -68,7 +78,7 @@ public class Gadgets {
 	 * 
 	 * @param gadget_id the gadget ID to set.
 	 */
-	public void setId(String gadget_id) {
+	public void setId(UUID gadget_id) {
 		this.gadget_id = gadget_id;
 	}
 
@@ -1,7 +1,11 @@
 package entity.mapping.entity;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.fasterxml.jackson.annotation.JsonBackReference;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -16,8 +20,12 @@ import jakarta.persistence.OneToOne;
  * 
  * This class includes a mapped ID to associate the person with a specific 
  * customer using a primary key.
+ * 
+ * Persons are kept in the second-level cache when the l2cache profile is active.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "person")
 public class Person {
 
 	/**
@@ -0,0 +1,59 @@
+package entity.mapping.entity;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * The SearchKeys class normalizes customer names and phone numbers into the keys they
+ * are searched by.
+ *
+ * A name key is lower case, without accents or control characters, and with runs of
+ * whitespace collapsed into one space, so "  Zoë  Smith" is found by "zoe s". A phone
+ * key keeps only the digits, so "+1 (555) 010-0123" is found by "555 010". The same
+ * functions normalize stored values and search input.
+ */
+public final class SearchKeys {
+
+	/**
+	 * Combining marks left over after decomposing accented characters.
+	 */
+	private static final Pattern MARKS = Pattern.compile("[\\p{M}\\p{Cntrl}]+");
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private static final Pattern NON_DIGITS = Pattern.compile("[^0-9]+");
+
+	private SearchKeys() {
+	}
+
+	/**
+	 * Normalizes a customer name.
+	 *
+	 * @param name the name, may be null.
+	 * @return the name key, or null if the name has no searchable characters.
+	 */
+	public static String name(String name) {
+		if (name == null) {
+			return null;
+		}
+		String key = MARKS.matcher(Normalizer.normalize(name, Normalizer.Form.NFKD)).replaceAll("");
+		key = WHITESPACE.matcher(key.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+		return key.isEmpty() ? null : key;
+	}
+
+	/**
+	 * Normalizes a phone number.
+	 *
+	 * @param phonenumber the phone number, may be null.
+	 * @return the digits of the phone number, or null if it has none.
+	 */
+	public static String phonenumber(String phonenumber) {
+		if (phonenumber == null) {
+			return null;
+		}
+		String key = NON_DIGITS.matcher(phonenumber).replaceAll("");
+		return key.isEmpty() ? null : key;
+	}
+
+}
@@ -0,0 +1,50 @@
+package entity.mapping.entity;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The TimeOrderedUuid class generates version 7 UUIDs as described in RFC 9562.
+ *
+ * The first 48 bits hold the Unix time in milliseconds and the next 12 bits a counter
+ * within that millisecond, so IDs generated by this process sort in creation order.
+ * New rows are therefore appended to the end of a primary key index instead of being
+ * scattered across it like random version 4 UUIDs. The remaining 62 bits are random.
+ */
+public final class TimeOrderedUuid {
+
+	/**
+	 * Number of bits of the counter that follows the timestamp.
+	 */
+	private static final int COUNTER_BITS = 12;
+
+	/**
+	 * The last timestamp and counter handed out, as {@code millis << 12 | counter}.
+	 */
+	private static final AtomicLong LAST = new AtomicLong();
+
+	private TimeOrderedUuid() {
+	}
+
+	/**
+	 * Generates the next time-ordered UUID.
+	 *
+	 * If several IDs are requested within the same millisecond the counter is
+	 * incremented; if the counter overflows, or the clock moves backwards, the timestamp
+	 * is advanced past the last one handed out, so IDs never go backwards.
+	 *
+	 * @return a new version 7 UUID.
+	 */
+	public static UUID next() {
+		long now = System.currentTimeMillis() << COUNTER_BITS;
+		long stamp = LAST.updateAndGet(last -> Math.max(now, last + 1));
+
+		long millis = stamp >>> COUNTER_BITS;
+		long counter = stamp & ((1L << COUNTER_BITS) - 1);
+		long mostSignificant = (millis << 16) | 0x7000L | counter;
+		long leastSignificant = (ThreadLocalRandom.current().nextLong() >>> 2) | 0x8000000000000000L;
+		return new UUID(mostSignificant, leastSignificant);
+	}
+
+}
@@ -1,7 +1,9 @@
 package entity.mapping.entity;
 
 import jakarta.persistence.Column;
+import entity.mapping.authenticateprovider.UserChangeListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -11,8 +13,10 @@ import jakarta.persistence.Id;
  * It contains the user's basic information such as ID, name, email, password, and role.
  * 
  * Each user has a unique ID, a unique email, and is assigned a specific role in the system.
+ * Changes to a user evict its cached authentication through {@link UserChangeListener}.
  */
 @Entity
+@EntityListeners(UserChangeListener.class)
 public class User {
 
 	/**
@@ -0,0 +1,74 @@
+package entity.mapping.ratelimit;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * FailedAuthenticationLimitFilter limits failed authentications per remote address.
+ *
+ * It runs before authentication: a client that has used up its limit of failed
+ * authentications is rejected with 429 and a Retry-After header before its credentials
+ * are checked, whether they come as HTTP Basic, as a bearer token or in the /login body.
+ * Every request takes a permit up front, so concurrent guesses cannot all slip past the
+ * limit before the first of them fails; the permit is given back unless the request is
+ * answered with 401 or fails with an exception.
+ */
+public class FailedAuthenticationLimitFilter extends OncePerRequestFilter {
+
+	/**
+	 * Service holding the rate limits.
+	 */
+	private final RateLimitService rateLimitService;
+
+	/**
+	 * Constructs a FailedAuthenticationLimitFilter.
+	 *
+	 * @param rateLimitService the service holding the rate limits.
+	 */
+	public FailedAuthenticationLimitFilter(RateLimitService rateLimitService) {
+		this.rateLimitService = rateLimitService;
+	}
+
+	/**
+	 * Rejects the request if its address has too many failed authentications, and otherwise
+	 * keeps its reserved attempt only if it fails to authenticate.
+	 *
+	 * @param request     the current request.
+	 * @param response    the current response.
+	 * @param filterChain the remaining filters.
+	 * @throws ServletException if a later filter fails.
+	 * @throws IOException      if writing the response fails.
+	 */
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String remoteAddress = request.getRemoteAddr();
+		long wait = rateLimitService.tryAcquireAuthenticationAttempt(remoteAddress);
+		if (wait > 0) {
+			RateLimitFilter.reject(response, wait);
+			return;
+		}
+		filterChain.doFilter(request, response);
+		if (response.getStatus() != HttpServletResponse.SC_UNAUTHORIZED) {
+			rateLimitService.releaseAuthenticationAttempt(remoteAddress);
+		}
+	}
+
+	/**
+	 * Skips the filter entirely when rate limiting is disabled.
+	 *
+	 * @param request the current request.
+	 * @return true if rate limiting is disabled.
+	 */
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !rateLimitService.isEnabled();
+	}
+
+}
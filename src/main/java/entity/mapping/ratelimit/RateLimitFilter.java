@@ -0,0 +1,105 @@
+package entity.mapping.ratelimit;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * RateLimitFilter applies the per-client rate limits of {@link RateLimitService}.
+ *
+ * It runs after authentication, so authenticated requests are limited per principal,
+ * whichever node or address they come from, and anonymous requests such as /login and
+ * /register per remote address. Requests over the limit are rejected with 429 and a
+ * Retry-After header. The remote address is taken from the servlet request; behind a
+ * proxy, set server.forward-headers-strategy so it reflects the client.
+ *
+ * Failed authentications are limited before authentication by
+ * {@link FailedAuthenticationLimitFilter}.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+	/**
+	 * Service holding the rate limits.
+	 */
+	private final RateLimitService rateLimitService;
+
+	/**
+	 * Constructs a RateLimitFilter.
+	 *
+	 * @param rateLimitService the service holding the rate limits.
+	 */
+	public RateLimitFilter(RateLimitService rateLimitService) {
+		this.rateLimitService = rateLimitService;
+	}
+
+	/**
+	 * Takes a permit for the client of the request, rejecting the request if none is left.
+	 *
+	 * @param request     the current request.
+	 * @param response    the current response.
+	 * @param filterChain the remaining filters.
+	 * @throws ServletException if a later filter fails.
+	 * @throws IOException      if writing the response fails.
+	 */
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		long wait = rateLimitService.tryAcquire(request.getServletPath(), clientKey(request));
+		if (wait > 0) {
+			reject(response, wait);
+			return;
+		}
+		filterChain.doFilter(request, response);
+	}
+
+	/**
+	 * Rejects a request with 429 and a Retry-After header.
+	 *
+	 * @param response the current response.
+	 * @param wait     the number of nanoseconds after which the request would be allowed.
+	 * @throws IOException if writing the response fails.
+	 */
+	static void reject(HttpServletResponse response, long wait) throws IOException {
+		long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1));
+		response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+		response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Rate limit exceeded");
+	}
+
+	/**
+	 * Skips the filter entirely when rate limiting is disabled.
+	 *
+	 * @param request the current request.
+	 * @return true if rate limiting is disabled.
+	 */
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !rateLimitService.isEnabled();
+	}
+
+	/**
+	 * Determines the client a request is attributed to.
+	 *
+	 * @param request the current request.
+	 * @return the principal name for authenticated requests, otherwise the remote address.
+	 */
+	private static String clientKey(HttpServletRequest request) {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication != null && authentication.isAuthenticated()
+				&& !(authentication instanceof AnonymousAuthenticationToken)) {
+			return "user:" + authentication.getName();
+		}
+		return "ip:" + request.getRemoteAddr();
+	}
+
+}
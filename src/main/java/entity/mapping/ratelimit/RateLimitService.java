@@ -0,0 +1,183 @@
+package entity.mapping.ratelimit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * RateLimitService holds the per-client rate limits of every endpoint.
+ *
+ * Endpoints listed in {@code ratelimit.endpoints} get their own limit; all other
+ * requests share the default limit. Limits are written as {@code ratePerSecond:burst}
+ * and endpoints as comma separated {@code path:ratePerSecond:burst} entries. Every
+ * endpoint tracks its clients separately, so a client exhausting one endpoint can still
+ * use the others.
+ *
+ * Failed authentications have a limit of their own per remote address, set with
+ * {@code ratelimit.failed-authentications}. Every attempt takes a permit before the
+ * credentials are checked, so a client guessing passwords is stopped before each guess
+ * reaches the password encoder or the database, even when it sends its guesses
+ * concurrently. The permit is given back once the attempt turns out to have succeeded.
+ *
+ * Rejections are counted as "ratelimit.rejected", tagged with the configured path,
+ * "default" for the shared limit or "failed-authentication".
+ */
+@Component
+public class RateLimitService {
+
+	/**
+	 * Tag value of the shared limit.
+	 */
+	private static final String DEFAULT_ENDPOINT = "default";
+
+	/**
+	 * Tag value of the failed authentication limit.
+	 */
+	private static final String FAILED_AUTHENTICATION = "failed-authentication";
+
+	/**
+	 * A limit with the counter of its rejections.
+	 *
+	 * @param limiter  the rate limiter.
+	 * @param rejected the counter of rejected requests.
+	 */
+	private record Rule(RateLimiter limiter, Counter rejected) {
+	}
+
+	/**
+	 * Whether requests are limited at all.
+	 */
+	private final boolean enabled;
+
+	/**
+	 * Limits of the configured endpoints, by exact request path.
+	 */
+	private final Map<String, Rule> endpointRules = new HashMap<>();
+
+	/**
+	 * Limit shared by all other requests.
+	 */
+	private final Rule defaultRule;
+
+	/**
+	 * Limit of failed authentications per remote address.
+	 */
+	private final Rule failedAuthenticationRule;
+
+	/**
+	 * Constructs a RateLimitService from the application properties.
+	 *
+	 * @param enabled               whether requests are limited.
+	 * @param defaultLimit          the limit of unlisted endpoints, as {@code ratePerSecond:burst}.
+	 * @param endpoints             the endpoint limits, as comma separated {@code path:ratePerSecond:burst}.
+	 * @param failedAuthentications the limit of failed authentications per remote address,
+	 *                              as {@code ratePerSecond:burst}.
+	 * @param maxKeys               the maximum number of clients tracked per endpoint.
+	 * @param meterRegistry         the registry the rejections are counted in.
+	 * @throws IllegalStateException if a limit cannot be parsed.
+	 */
+	@Autowired
+	public RateLimitService(@Value("${ratelimit.enabled:true}") boolean enabled,
+			@Value("${ratelimit.default:100:200}") String defaultLimit,
+			@Value("${ratelimit.endpoints:}") String endpoints,
+			@Value("${ratelimit.failed-authentications:0.1:10}") String failedAuthentications,
+			@Value("${ratelimit.max-keys:100000}") long maxKeys,
+			MeterRegistry meterRegistry) {
+		this.enabled = enabled;
+		this.defaultRule = rule(DEFAULT_ENDPOINT, defaultLimit, maxKeys, meterRegistry);
+		this.failedAuthenticationRule = rule(FAILED_AUTHENTICATION, failedAuthentications, maxKeys, meterRegistry);
+		for (String entry : endpoints.split(",")) {
+			if (entry.isBlank()) {
+				continue;
+			}
+			int separator = entry.indexOf(':');
+			if (separator < 0) {
+				throw new IllegalStateException("ratelimit.endpoints entries must have the form path:ratePerSecond:burst");
+			}
+			String path = entry.substring(0, separator).trim();
+			endpointRules.put(path, rule(path, entry.substring(separator + 1), maxKeys, meterRegistry));
+		}
+	}
+
+	/**
+	 * Indicates whether requests are limited.
+	 *
+	 * @return true if the rate limits are applied.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Takes a permit for a client on an endpoint.
+	 *
+	 * @param path the request path.
+	 * @param key  the client, such as the principal name or remote address.
+	 * @return zero if the request is allowed, otherwise the number of nanoseconds after
+	 *         which it would be.
+	 */
+	public long tryAcquire(String path, String key) {
+		Rule rule = endpointRules.getOrDefault(path, defaultRule);
+		long wait = rule.limiter().tryAcquire(key);
+		if (wait > 0) {
+			rule.rejected().increment();
+		}
+		return wait;
+	}
+
+	/**
+	 * Reserves an authentication attempt against the failed authentication limit of a
+	 * remote address. The attempt counts as failed until it is released.
+	 *
+	 * @param remoteAddress the address of the client.
+	 * @return zero if the attempt is allowed, otherwise the number of nanoseconds after
+	 *         which it would be.
+	 */
+	public long tryAcquireAuthenticationAttempt(String remoteAddress) {
+		long wait = failedAuthenticationRule.limiter().tryAcquire(remoteAddress);
+		if (wait > 0) {
+			failedAuthenticationRule.rejected().increment();
+		}
+		return wait;
+	}
+
+	/**
+	 * Gives back an authentication attempt that did not fail, so it does not count
+	 * against the limit of its remote address.
+	 *
+	 * @param remoteAddress the address of the client.
+	 */
+	public void releaseAuthenticationAttempt(String remoteAddress) {
+		failedAuthenticationRule.limiter().release(remoteAddress);
+	}
+
+	/**
+	 * Parses a limit and creates its rate limiter and rejection counter.
+	 *
+	 * @param endpoint      the endpoint the limit applies to, used as the metric tag.
+	 * @param limit         the limit, as {@code ratePerSecond:burst}.
+	 * @param maxKeys       the maximum number of clients tracked.
+	 * @param meterRegistry the registry the rejection counter is registered in.
+	 * @return the parsed rule.
+	 * @throws IllegalStateException if the limit cannot be parsed.
+	 */
+	private static Rule rule(String endpoint, String limit, long maxKeys, MeterRegistry meterRegistry) {
+		String[] parts = limit.trim().split(":");
+		try {
+			if (parts.length != 2) {
+				throw new IllegalArgumentException("expected ratePerSecond:burst");
+			}
+			RateLimiter limiter = new RateLimiter(Double.parseDouble(parts[0]), Integer.parseInt(parts[1]), maxKeys);
+			return new Rule(limiter, meterRegistry.counter("ratelimit.rejected", "endpoint", endpoint));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalStateException("Invalid rate limit for " + endpoint + ": " + limit, e);
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+package entity.mapping.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * RateLimiter is a token bucket per key, implemented with the generic cell rate
+ * algorithm (GCRA).
+ *
+ * Instead of a token count and a refill time, each key holds a single "theoretical
+ * arrival time": the time at which its bucket would be full again. A request is allowed
+ * if that time is at most one burst ahead of now, and then pushes it forward by one
+ * emission interval. The state is a single AtomicLong updated with compare-and-set, so
+ * requests never block each other, not even for the same key.
+ *
+ * Keys live in a Caffeine cache bounded by the maximum number of keys. A key whose
+ * bucket has been idle long enough to refill completely carries no information, so it
+ * expires after that time without being accessed.
+ */
+public class RateLimiter {
+
+	/**
+	 * Time between two permits at the sustained rate, in nanoseconds.
+	 */
+	private final long emissionIntervalNanos;
+
+	/**
+	 * How far the theoretical arrival time may run ahead of now, in nanoseconds.
+	 */
+	private final long burstToleranceNanos;
+
+	/**
+	 * Theoretical arrival time per key.
+	 */
+	private final Cache<String, AtomicLong> arrivals;
+
+	/**
+	 * Source of the current time, in nanoseconds.
+	 */
+	private final LongSupplier clock;
+
+	/**
+	 * Constructs a RateLimiter using the system clock.
+	 *
+	 * @param permitsPerSecond the sustained rate per key.
+	 * @param burst            the number of requests a key may make at once.
+	 * @param maxKeys          the maximum number of keys tracked.
+	 */
+	public RateLimiter(double permitsPerSecond, int burst, long maxKeys) {
+		this(permitsPerSecond, burst, maxKeys, System::nanoTime);
+	}
+
+	/**
+	 * Constructs a RateLimiter with an explicit clock.
+	 *
+	 * @param permitsPerSecond the sustained rate per key.
+	 * @param burst            the number of requests a key may make at once.
+	 * @param maxKeys          the maximum number of keys tracked.
+	 * @param clock            the source of the current time, in nanoseconds.
+	 * @throws IllegalArgumentException if the rate or the burst is not positive.
+	 */
+	public RateLimiter(double permitsPerSecond, int burst, long maxKeys, LongSupplier clock) {
+		if (permitsPerSecond <= 0 || burst < 1) {
+			throw new IllegalArgumentException("Rate limits need a positive rate and burst");
+		}
+		this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+		this.burstToleranceNanos = emissionIntervalNanos * burst;
+		this.clock = clock;
+		this.arrivals = Caffeine.newBuilder()
+				.maximumSize(maxKeys)
+				.expireAfterAccess(Duration.ofNanos(burstToleranceNanos + emissionIntervalNanos))
+				.ticker(clock::getAsLong)
+				.build();
+	}
+
+	/**
+	 * Tries to take a permit for a key.
+	 *
+	 * @param key the client the request is attributed to.
+	 * @return zero if the request is allowed, otherwise the number of nanoseconds after
+	 *         which it would be.
+	 */
+	public long tryAcquire(String key) {
+		long now = clock.getAsLong();
+		AtomicLong arrival = arrivals.get(key, k -> new AtomicLong(now));
+		while (true) {
+			long current = arrival.get();
+			long next = Math.max(current, now) + emissionIntervalNanos;
+			long excess = next - now - burstToleranceNanos;
+			if (excess > 0) {
+				return excess;
+			}
+			if (arrival.compareAndSet(current, next)) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * Gives back a permit taken with {@link #tryAcquire(String)} that turned out not to
+	 * count against the key, such as an authentication attempt that succeeded.
+	 *
+	 * The theoretical arrival time is moved back by one emission interval, but never
+	 * behind now: an idle bucket is already full and cannot hold more than its burst.
+	 *
+	 * @param key the client the permit was taken for.
+	 */
+	public void release(String key) {
+		AtomicLong arrival = arrivals.getIfPresent(key);
+		if (arrival == null) {
+			return;
+		}
+		long now = clock.getAsLong();
+		while (true) {
+			long current = arrival.get();
+			if (current <= now) {
+				return;
+			}
+			if (arrival.compareAndSet(current, Math.max(current - emissionIntervalNanos, now))) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Gets the approximate number of keys tracked.
+	 *
+	 * @return the number of keys.
+	 */
+	public long size() {
+		return arrivals.estimatedSize();
+	}
+
+	/**
+	 * Removes expired keys now instead of on a later access. Mainly useful in tests.
+	 */
+	public void cleanUp() {
+		arrivals.cleanUp();
+	}
+
+}
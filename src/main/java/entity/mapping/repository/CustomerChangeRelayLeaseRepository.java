@@ -0,0 +1,28 @@
+package entity.mapping.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import entity.mapping.entity.CustomerChangeRelayLease;
+import jakarta.persistence.LockModeType;
+
+/**
+ * The CustomerChangeRelayLeaseRepository interface reads the relay lease for update.
+ */
+@Repository
+public interface CustomerChangeRelayLeaseRepository extends JpaRepository<CustomerChangeRelayLease, Integer> {
+
+	/**
+	 * Finds the lease row and locks it until the end of the transaction, so relays on
+	 * other nodes wait for the current batch to commit.
+	 * 
+	 * @param id the ID of the row, {@link CustomerChangeRelayLease#ID}.
+	 * @return the lease, or empty if the row has not been created yet.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	Optional<CustomerChangeRelayLease> findLockedById(Integer id);
+
+}
@@ -0,0 +1,36 @@
+package entity.mapping.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import entity.mapping.entity.CustomerOutboxEvent;
+
+/**
+ * The CustomerOutboxRepository interface reads and removes the customer changes waiting
+ * in the outbox to be appended to the change log.
+ *
+ * Events are written through the entity manager of the transaction making the change,
+ * see {@link entity.mapping.changelog.CustomerOutbox}, and removed with
+ * {@link #deleteAllByIdInBatch(Iterable)} once they have been appended.
+ */
+@Repository
+public interface CustomerOutboxRepository extends JpaRepository<CustomerOutboxEvent, Long> {
+
+	/**
+	 * Finds the oldest events still in the outbox.
+	 * 
+	 * Events are removed once appended, so this always starts at the head of the outbox,
+	 * and an event whose transaction committed after those of events with higher IDs is
+	 * picked up on the next read rather than skipped.
+	 * 
+	 * @param limit the maximum number of events to return.
+	 * @return the events, in ascending ID order.
+	 */
+	@Query("select e from CustomerOutboxEvent e order by e.id")
+	List<CustomerOutboxEvent> findOldest(Limit limit);
+
+}
@@ -1,10 +1,27 @@
 package entity.mapping.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import entity.mapping.dto.CustomerDetailRow;
+import entity.mapping.dto.CustomerListingVersion;
+import entity.mapping.dto.CustomerSearchRow;
 import entity.mapping.entity.Customer;
 import entity.mapping.entity.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 
 /**
  * The CustomerRepository interface provides CRUD operations and database interaction methods
@@ -20,6 +37,198 @@ import entity.mapping.entity.User;
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Integer> {
 
+	/**
+	 * Keyset (seek) query used for paginated listing. IDs are located through the
+	 * primary key index starting right after the given ID, so the cost of a page does
+	 * not depend on how many rows precede it, unlike an OFFSET based query.
+	 * 
+	 * Only the IDs are paged here; the customers themselves are loaded with
+	 * {@link #findByIdInOrderByIdAsc(Collection)}, because limiting a query that
+	 * fetch-joins a collection would make Hibernate paginate in memory.
+	 * 
+	 * @param id    the last customer ID of the previous page, exclusive.
+	 * @param limit the maximum number of IDs to return.
+	 * @return the customer IDs greater than the given ID, in ascending order.
+	 */
+	@Query("select c.id from Customer c where c.id > :id order by c.id")
+	List<Integer> findIdsAfter(@Param("id") Integer id, Limit limit);
+
+	/**
+	 * Finds the IDs of the customers in a range, for deleting the range chunk by chunk.
+	 * 
+	 * @param fromId the first ID, inclusive.
+	 * @param toId   the last ID, inclusive.
+	 * @param limit  the maximum number of IDs to return.
+	 * @return the customer IDs in the range, in ascending order.
+	 */
+	@Query("select c.id from Customer c where c.id >= :fromId and c.id <= :toId order by c.id")
+	List<Integer> findIdsBetween(@Param("fromId") Integer fromId, @Param("toId") Integer toId, Limit limit);
+
+	/**
+	 * Finds which of the given customers exist, so that a deletion only records the
+	 * customers it actually removes.
+	 * 
+	 * @param ids the customer IDs.
+	 * @return the IDs of the existing customers, in ascending order.
+	 */
+	@Query("select c.id from Customer c where c.id in (:ids) order by c.id")
+	List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+	/**
+	 * Keyset query over the customers whose normalized name matches a LIKE pattern.
+	 * 
+	 * A pattern without a leading wildcard is a range scan of the name key index; a
+	 * leading wildcard can only scan that index as a whole, which is still much smaller
+	 * than the table.
+	 * 
+	 * @param pattern the LIKE pattern, with '!' as the escape character.
+	 * @param afterId the last customer ID of the previous page, exclusive.
+	 * @param limit   the maximum number of IDs to return.
+	 * @return the IDs of the matching customers, in ascending order.
+	 */
+	@Query("select c.id from Customer c where c.nameKey like :pattern escape '!' and c.id > :afterId order by c.id")
+	List<Integer> findIdsByNameKeyLike(@Param("pattern") String pattern, @Param("afterId") Integer afterId, Limit limit);
+
+	/**
+	 * Keyset query over the customers whose phone number digits match a LIKE pattern,
+	 * using the phone digits index like {@link #findIdsByNameKeyLike(String, Integer, Limit)}.
+	 * 
+	 * @param pattern the LIKE pattern, with '!' as the escape character.
+	 * @param afterId the last customer ID of the previous page, exclusive.
+	 * @param limit   the maximum number of IDs to return.
+	 * @return the IDs of the matching customers, in ascending order.
+	 */
+	@Query("select c.id from Customer c where c.phoneDigits like :pattern escape '!' and c.id > :afterId order by c.id")
+	List<Integer> findIdsByPhoneDigitsLike(@Param("pattern") String pattern, @Param("afterId") Integer afterId, Limit limit);
+
+	/**
+	 * Streams the search keys of all customers, without building entities.
+	 * 
+	 * @return a stream over the search keys; it must be consumed and closed inside a transaction.
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query("select new entity.mapping.dto.CustomerSearchRow(c.id, c.nameKey, c.phoneDigits) from Customer c")
+	Stream<CustomerSearchRow> streamSearchRows();
+
+	/**
+	 * Loads the given customers with their person and gadgets in a single statement.
+	 * 
+	 * @param ids the IDs of the customers to load.
+	 * @return the customers, in ascending ID order.
+	 */
+	@EntityGraph(Customer.DETAIL_GRAPH)
+	List<Customer> findByIdInOrderByIdAsc(Collection<Integer> ids);
+
+	/**
+	 * Loads all customers with their person and gadgets in a single statement,
+	 * instead of one extra select per person and per gadgets collection.
+	 * 
+	 * @return all customers, in ascending ID order.
+	 */
+	@EntityGraph(Customer.DETAIL_GRAPH)
+	@Query("select c from Customer c order by c.id")
+	List<Customer> findAllWithDetails();
+
+	/**
+	 * Loads one customer with its person and gadgets in a single statement.
+	 * 
+	 * @param id the ID of the customer.
+	 * @return the customer, or empty if no customer has that ID.
+	 */
+	@EntityGraph(Customer.DETAIL_GRAPH)
+	@Query("select c from Customer c where c.id = :id")
+	Optional<Customer> findDetailById(@Param("id") Integer id);
+
+	/**
+	 * Looks up the version of one customer through the primary key, without loading
+	 * the customer, its person or its gadgets.
+	 * 
+	 * @param id the ID of the customer.
+	 * @return the version, or empty if no customer has that ID.
+	 */
+	@Query("select c.version from Customer c where c.id = :id")
+	Optional<Long> findVersionById(@Param("id") Integer id);
+
+	/**
+	 * Finds the version of a customer and locks the customer row until the end of the
+	 * transaction, so the version cannot change before a conditional write is made.
+	 *
+	 * @param id the customer ID.
+	 * @return the version, or empty if no customer has that ID.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select c.version from Customer c where c.id = :id")
+	Optional<Long> findLockedVersionById(@Param("id") Integer id);
+
+	/**
+	 * Aggregates the IDs and versions of all customers into a fingerprint of the
+	 * listing, in one statement over the customer table alone.
+	 * 
+	 * @return the fingerprint of the current set of customers.
+	 */
+	@Query("select new entity.mapping.dto.CustomerListingVersion(count(c), cast(coalesce(max(c.id), 0) as Long),"
+			+ " coalesce(sum(c.id), 0), coalesce(sum(c.version), 0)) from Customer c")
+	CustomerListingVersion findListingVersion();
+
+	/**
+	 * Selects the columns of all customers, their person and their gadgets as flat rows,
+	 * one per gadget, in a single statement.
+	 * 
+	 * No entities are built, so there is nothing to snapshot, proxy or keep in the
+	 * persistence context, and flushing is disabled so the query never triggers one.
+	 * 
+	 * @return the rows, ordered by customer ID.
+	 * @see CustomerDetailRow#toViews(List)
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+	@Query("select new entity.mapping.dto.CustomerDetailRow(c.id, c.version, c.name, c.phonenumber, p.id, p.gender,"
+			+ " g.gadget_id, g.gadget_name, g.years)"
+			+ " from Customer c left join c.person p left join c.gadgets g order by c.id")
+	List<CustomerDetailRow> findAllDetailRows();
+
+	/**
+	 * Selects the columns of one customer, its person and its gadgets as flat rows, one
+	 * per gadget, in a single statement and without building entities.
+	 * 
+	 * @param id the ID of the customer.
+	 * @return the rows, empty if no customer has that ID.
+	 * @see CustomerDetailRow#toViews(List)
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+	@Query("select new entity.mapping.dto.CustomerDetailRow(c.id, c.version, c.name, c.phonenumber, p.id, p.gender,"
+			+ " g.gadget_id, g.gadget_name, g.years)"
+			+ " from Customer c left join c.person p left join c.gadgets g where c.id = :id")
+	List<CustomerDetailRow> findDetailRowsById(@Param("id") Integer id);
+
+	/**
+	 * Selects the columns of the given customers, their persons and their gadgets as
+	 * flat rows in a single statement and without building entities.
+	 * 
+	 * @param ids the IDs of the customers.
+	 * @return the rows, ordered by customer ID.
+	 * @see CustomerDetailRow#toViews(List)
+	 */
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FLUSH_MODE, value = "MANUAL"))
+	@Query("select new entity.mapping.dto.CustomerDetailRow(c.id, c.version, c.name, c.phonenumber, p.id, p.gender,"
+			+ " g.gadget_id, g.gadget_name, g.years)"
+			+ " from Customer c left join c.person p left join c.gadgets g where c.id in :ids order by c.id")
+	List<CustomerDetailRow> findDetailRowsByIdIn(@Param("ids") Collection<Integer> ids);
 
+	/**
+	 * Streams all customers in ascending ID order, together with their person and gadgets.
+	 * 
+	 * The JDBC fetch size keeps only a window of rows in the driver at a time (with MySQL
+	 * this needs useCursorFetch=true on the connection URL), and the entities are loaded
+	 * read-only so Hibernate keeps no dirty-checking snapshots. The stream must be
+	 * consumed and closed inside a transaction.
+	 * 
+	 * @return a stream over all customers.
+	 */
+	@QueryHints({
+		@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+		@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("select c from Customer c left join fetch c.person left join fetch c.gadgets order by c.id")
+	Stream<Customer> streamAllByOrderByIdAsc();
 
 }
@@ -0,0 +1,478 @@
+package entity.mapping.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import entity.mapping.dto.CustomerSearchRow;
+import entity.mapping.entity.SearchKeys;
+import entity.mapping.repository.CustomerRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * CustomerSearchIndex answers prefix and substring searches over customer names and
+ * phone numbers from memory.
+ *
+ * Every normalized value is split into trigrams, with a start marker in front so that
+ * prefixes have trigrams of their own, and every trigram maps to the sorted IDs of the
+ * customers containing it. A search walks the shortest ID list of the trigrams of the
+ * search key, starting after the ID of the previous page, and checks each candidate
+ * against its value; keys too short to have a trigram scan the customers in ID order
+ * instead, which ends quickly because short keys match often. Results therefore come in
+ * the same ID order as the indexed database queries.
+ *
+ * The index is built from the database on startup, in the background; until it is
+ * ready, {@link #isReady()} is false and searches go to the database. After that it is
+ * kept current by CustomerService, whose changes are applied once their transaction has
+ * committed, so rolled back changes never show up. Changes made while the index is
+ * rebuilt are replayed onto the new index before it replaces the old one. The index is
+ * built from the primary database, never from a read replica.
+ *
+ * Only changes made by this node reach its index, so with several nodes writing to the
+ * same database the index of each node misses the changes of the others. Disable it
+ * there.
+ *
+ * Disabled with {@code search.index.enabled=false}. The number of indexed customers is
+ * exposed as the gauge "customer.search.index.size".
+ */
+@Component
+public class CustomerSearchIndex implements SmartLifecycle {
+
+	private static final Logger log = LoggerFactory.getLogger(CustomerSearchIndex.class);
+
+	/**
+	 * Length of the grams values are split into.
+	 */
+	private static final int GRAM = 3;
+
+	/**
+	 * Marks the start of a value, so that "^ab" only matches values starting with "ab".
+	 */
+	private static final char START = '\u0002';
+
+	/**
+	 * Whether the in-memory index is used at all.
+	 */
+	@Value("${search.index.enabled:true}")
+	private boolean enabled;
+
+	/**
+	 * Repository the index is built from.
+	 */
+	@Autowired
+	private CustomerRepository repo;
+
+	/**
+	 * Transaction manager used to read the search keys when building the index.
+	 */
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * Registry the index size is exposed in.
+	 */
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Serializes changes to the index, so that the grams of a customer are never
+	 * updated by two changes at once. Searches do not take it.
+	 */
+	private final ReentrantLock writeLock = new ReentrantLock();
+
+	/**
+	 * The index searches run against.
+	 */
+	private volatile Index current = new Index();
+
+	/**
+	 * Whether the index has been built and can answer searches.
+	 */
+	private volatile boolean ready;
+
+	/**
+	 * Changes applied since the running rebuild started, or null when no rebuild runs.
+	 * Guarded by the write lock.
+	 */
+	private List<Consumer<Index>> replay;
+
+	/**
+	 * Whether the index has been started and not stopped since, as reported to the
+	 * application context lifecycle.
+	 */
+	private volatile boolean running;
+
+	/**
+	 * Registers the size gauge and builds the index in the background.
+	 */
+	@Override
+	public void start() {
+		running = true;
+		if (!enabled) {
+			return;
+		}
+		Gauge.builder("customer.search.index.size", this, index -> index.current.size)
+				.description("Customers in the in-memory search index")
+				.register(meterRegistry);
+		Thread.ofVirtual().name("customer-search-index").start(this::rebuild);
+	}
+
+	/**
+	 * Marks the index as stopped; it is discarded with the application context.
+	 */
+	@Override
+	public void stop() {
+		running = false;
+	}
+
+	/**
+	 * Indicates whether the index has been started.
+	 *
+	 * @return true between start and stop.
+	 */
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Indicates whether searches can be answered from the index.
+	 *
+	 * @return true once the index is enabled and built.
+	 */
+	public boolean isReady() {
+		return ready;
+	}
+
+	/**
+	 * Finds the customers whose field matches a search key.
+	 *
+	 * @param field   the field to match.
+	 * @param match   whether the key must be a prefix or may occur anywhere.
+	 * @param key     the search key, normalized for the field.
+	 * @param afterId the last customer ID of the previous page, exclusive.
+	 * @param limit   the maximum number of IDs to return.
+	 * @return the IDs of the matching customers, in ascending order.
+	 */
+	public List<Integer> search(SearchField field, MatchMode match, String key, Integer afterId, int limit) {
+		Index index = current;
+		Map<String, Postings> grams = index.postings(field);
+		Postings narrowest = null;
+		for (String gram : grams(match == MatchMode.PREFIX ? START + key : key)) {
+			Postings postings = grams.get(gram);
+			if (postings == null) {
+				return List.of();
+			}
+			if (narrowest == null || postings.size < narrowest.size) {
+				narrowest = postings;
+			}
+		}
+
+		Iterable<Integer> candidates = narrowest != null ? narrowest.ids.tailSet(afterId, false)
+				: index.entries.tailMap(afterId, false).keySet();
+		List<Integer> ids = new ArrayList<>(limit);
+		for (Integer id : candidates) {
+			Entry entry = index.entries.get(id);
+			if (entry != null && match.matches(entry.get(field), key)) {
+				ids.add(id);
+				if (ids.size() == limit) {
+					break;
+				}
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Indexes the name and phone number of a customer once the current transaction commits.
+	 *
+	 * @param id          the customer ID.
+	 * @param name        the customer name.
+	 * @param phonenumber the customer phone number.
+	 */
+	public void index(Integer id, String name, String phonenumber) {
+		String nameKey = SearchKeys.name(name);
+		String phoneDigits = SearchKeys.phonenumber(phonenumber);
+		afterCommit(index -> index.put(id, nameKey, phoneDigits));
+	}
+
+	/**
+	 * Indexes a new name of a customer once the current transaction commits, keeping its
+	 * phone number.
+	 *
+	 * @param id   the customer ID.
+	 * @param name the new customer name.
+	 */
+	public void indexName(Integer id, String name) {
+		String nameKey = SearchKeys.name(name);
+		afterCommit(index -> {
+			Entry entry = index.entries.get(id);
+			index.put(id, nameKey, entry == null ? null : entry.phone());
+		});
+	}
+
+	/**
+	 * Indexes a new phone number of a customer once the current transaction commits,
+	 * keeping its name.
+	 *
+	 * @param id          the customer ID.
+	 * @param phonenumber the new customer phone number.
+	 */
+	public void indexPhonenumber(Integer id, String phonenumber) {
+		String phoneDigits = SearchKeys.phonenumber(phonenumber);
+		afterCommit(index -> {
+			Entry entry = index.entries.get(id);
+			index.put(id, entry == null ? null : entry.name(), phoneDigits);
+		});
+	}
+
+	/**
+	 * Removes customers from the index once the current transaction commits.
+	 *
+	 * @param ids the IDs of the deleted customers.
+	 */
+	public void remove(Collection<Integer> ids) {
+		List<Integer> removed = List.copyOf(ids);
+		afterCommit(index -> removed.forEach(index::remove));
+	}
+
+	/**
+	 * Builds a new index from the search keys stored in the primary database and puts it
+	 * in place of the current one.
+	 *
+	 * If reading the keys fails, the current index stays in place.
+	 */
+	public synchronized void rebuild() {
+		if (!enabled) {
+			return;
+		}
+		writeLock.lock();
+		try {
+			replay = new ArrayList<>();
+		} finally {
+			writeLock.unlock();
+		}
+
+		Index fresh = new Index();
+		try {
+			// not read-only: with read replicas that would read a lagging, or empty, replica
+			TransactionTemplate template = new TransactionTemplate(transactionManager);
+			template.executeWithoutResult(status -> {
+				try (Stream<CustomerSearchRow> rows = repo.streamSearchRows()) {
+					rows.forEach(row -> fresh.put(row.id(), row.nameKey(), row.phoneDigits()));
+				}
+			});
+		} catch (RuntimeException e) {
+			writeLock.lock();
+			try {
+				replay = null;
+			} finally {
+				writeLock.unlock();
+			}
+			log.warn("Building the customer search index failed, searches keep using {}",
+					ready ? "the previous index" : "the database", e);
+			return;
+		}
+
+		writeLock.lock();
+		try {
+			replay.forEach(change -> change.accept(fresh));
+			replay = null;
+			current = fresh;
+			ready = true;
+		} finally {
+			writeLock.unlock();
+		}
+		log.info("Customer search index built with {} customers", fresh.size);
+	}
+
+	/**
+	 * Applies a change when the current transaction commits, or right away if there is
+	 * none. The changes of one transaction are collected and applied together.
+	 *
+	 * @param change the change to apply.
+	 */
+	private void afterCommit(Consumer<Index> change) {
+		if (!enabled) {
+			return;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			apply(List.of(change));
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		List<Consumer<Index>> changes = (List<Consumer<Index>>) TransactionSynchronizationManager.getResource(this);
+		if (changes == null) {
+			List<Consumer<Index>> pending = new ArrayList<>();
+			TransactionSynchronizationManager.bindResource(this, pending);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					apply(pending);
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(CustomerSearchIndex.this);
+				}
+			});
+			changes = pending;
+		}
+		changes.add(change);
+	}
+
+	/**
+	 * Applies committed changes to the current index, and records them for replay while
+	 * a rebuild runs.
+	 *
+	 * @param changes the changes to apply.
+	 */
+	private void apply(List<Consumer<Index>> changes) {
+		writeLock.lock();
+		try {
+			for (Consumer<Index> change : changes) {
+				change.accept(current);
+				if (replay != null) {
+					replay.add(change);
+				}
+			}
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Splits a value into its distinct grams.
+	 *
+	 * @param value the value, with or without the start marker.
+	 * @return the grams, empty if the value is shorter than a gram.
+	 */
+	private static Set<String> grams(String value) {
+		Set<String> grams = new LinkedHashSet<>();
+		for (int i = 0; i + GRAM <= value.length(); i++) {
+			grams.add(value.substring(i, i + GRAM));
+		}
+		return grams;
+	}
+
+	/**
+	 * The search keys of one customer.
+	 *
+	 * @param name  the name key, or null.
+	 * @param phone the phone digits, or null.
+	 */
+	private record Entry(String name, String phone) {
+
+		String get(SearchField field) {
+			return field == SearchField.NAME ? name : phone;
+		}
+
+	}
+
+	/**
+	 * The customer IDs containing one gram.
+	 */
+	private static final class Postings {
+
+		final ConcurrentSkipListSet<Integer> ids = new ConcurrentSkipListSet<>();
+
+		/**
+		 * Number of IDs, maintained separately because counting a skip list is linear.
+		 */
+		volatile int size;
+
+	}
+
+	/**
+	 * One generation of the index. It is only changed under the write lock, or by the
+	 * rebuild before it is published, and may be read concurrently.
+	 */
+	private static final class Index {
+
+		final ConcurrentSkipListMap<Integer, Entry> entries = new ConcurrentSkipListMap<>();
+
+		final Map<String, Postings> nameGrams = new ConcurrentHashMap<>();
+
+		final Map<String, Postings> phoneGrams = new ConcurrentHashMap<>();
+
+		volatile int size;
+
+		Map<String, Postings> postings(SearchField field) {
+			return field == SearchField.NAME ? nameGrams : phoneGrams;
+		}
+
+		void put(Integer id, String name, String phone) {
+			Entry old = entries.put(id, new Entry(name, phone));
+			if (old == null) {
+				size++;
+			}
+			String oldName = old == null ? null : old.name();
+			String oldPhone = old == null ? null : old.phone();
+			if (!Objects.equals(oldName, name)) {
+				unindex(nameGrams, id, oldName);
+				index(nameGrams, id, name);
+			}
+			if (!Objects.equals(oldPhone, phone)) {
+				unindex(phoneGrams, id, oldPhone);
+				index(phoneGrams, id, phone);
+			}
+		}
+
+		void remove(Integer id) {
+			Entry old = entries.remove(id);
+			if (old != null) {
+				size--;
+				unindex(nameGrams, id, old.name());
+				unindex(phoneGrams, id, old.phone());
+			}
+		}
+
+		private static void index(Map<String, Postings> grams, Integer id, String value) {
+			if (value == null) {
+				return;
+			}
+			for (String gram : CustomerSearchIndex.grams(START + value)) {
+				Postings postings = grams.computeIfAbsent(gram, g -> new Postings());
+				if (postings.ids.add(id)) {
+					postings.size++;
+				}
+			}
+		}
+
+		private static void unindex(Map<String, Postings> grams, Integer id, String value) {
+			if (value == null) {
+				return;
+			}
+			for (String gram : CustomerSearchIndex.grams(START + value)) {
+				Postings postings = grams.get(gram);
+				if (postings != null && postings.ids.remove(id) && --postings.size == 0) {
+					grams.remove(gram);
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,52 @@
+package entity.mapping.search;
+
+import java.util.Locale;
+
+/**
+ * MatchMode says whether a search key must start the searched value or may occur
+ * anywhere in it.
+ */
+public enum MatchMode {
+
+	PREFIX,
+
+	CONTAINS;
+
+	/**
+	 * Tests a search key against a value.
+	 *
+	 * @param value the normalized value, may be null.
+	 * @param key   the normalized search key.
+	 * @return true if the value matches.
+	 */
+	public boolean matches(String value, String key) {
+		return value != null && (this == PREFIX ? value.startsWith(key) : value.contains(key));
+	}
+
+	/**
+	 * Builds the SQL LIKE pattern for a search key, with '!' as the escape character.
+	 *
+	 * @param key the normalized search key.
+	 * @return the pattern.
+	 */
+	public String likePattern(String key) {
+		String escaped = key.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+		return this == PREFIX ? escaped + "%" : "%" + escaped + "%";
+	}
+
+	/**
+	 * Parses the match mode of a search request.
+	 *
+	 * @param name "prefix" or "contains", in any case.
+	 * @return the match mode.
+	 * @throws IllegalArgumentException if the name is not a known mode.
+	 */
+	public static MatchMode parse(String name) {
+		try {
+			return valueOf(name.toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown match mode: " + name);
+		}
+	}
+
+}
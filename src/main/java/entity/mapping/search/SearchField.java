@@ -0,0 +1,58 @@
+package entity.mapping.search;
+
+import java.util.Locale;
+
+import entity.mapping.dto.CustomerView;
+import entity.mapping.entity.SearchKeys;
+
+/**
+ * SearchField names the customer attribute a search matches against.
+ */
+public enum SearchField {
+
+	/**
+	 * The customer name, normalized by {@link SearchKeys#name(String)}.
+	 */
+	NAME,
+
+	/**
+	 * The digits of the customer phone number, see {@link SearchKeys#phonenumber(String)}.
+	 */
+	PHONE;
+
+	/**
+	 * Normalizes a value of this field into its search key.
+	 *
+	 * @param value the raw value, stored or searched for.
+	 * @return the search key, or null if the value has no searchable characters.
+	 */
+	public String key(String value) {
+		return this == NAME ? SearchKeys.name(value) : SearchKeys.phonenumber(value);
+	}
+
+	/**
+	 * Gets the search key of this field from a customer view.
+	 *
+	 * @param customer the customer.
+	 * @return the search key, or null.
+	 */
+	public String key(CustomerView customer) {
+		return key(this == NAME ? customer.name() : customer.phonenumber());
+	}
+
+	/**
+	 * Parses the field name of a search request.
+	 *
+	 * @param name "name" or "phone", in any case.
+	 * @return the field.
+	 * @throws IllegalArgumentException if the name is not a known field.
+	 */
+	public static SearchField parse(String name) {
+		return switch (name.toLowerCase(Locale.ROOT)) {
+			case "name" -> NAME;
+			case "phone", "phonenumber" -> PHONE;
+			default -> throw new IllegalArgumentException("Unknown search field: " + name);
+		};
+	}
+
+}
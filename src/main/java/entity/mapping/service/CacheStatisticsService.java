@@ -0,0 +1,88 @@
+package entity.mapping.service;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import entity.mapping.dto.CacheRegionUsage;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * The CacheStatisticsService class reports the usage of the second-level cache regions.
+ *
+ * Hits, misses and puts come from the Hibernate statistics. Evictions are counted by the
+ * cache provider and read from its JCache statistics MBean. Counters the provider does
+ * not support are reported as -1.
+ */
+@Service
+public class CacheStatisticsService {
+
+	private static final Logger log = LoggerFactory.getLogger(CacheStatisticsService.class);
+
+	/**
+	 * Entity manager factory whose session factory holds the cache statistics.
+	 */
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	/**
+	 * Returns the statistics of every second-level cache region.
+	 *
+	 * @return one entry per region, or an empty list if the cache or the statistics are disabled.
+	 */
+	public List<CacheRegionUsage> getRegionStatistics() {
+		SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+		Statistics statistics = sessionFactory.getStatistics();
+		List<CacheRegionUsage> result = new ArrayList<>();
+		Object cacheSetting = entityManagerFactory.getProperties().get(AvailableSettings.USE_SECOND_LEVEL_CACHE);
+		boolean cacheEnabled = cacheSetting == null || Boolean.parseBoolean(cacheSetting.toString());
+		if (!cacheEnabled || !statistics.isStatisticsEnabled()) {
+			return result;
+		}
+		for (String region : statistics.getSecondLevelCacheRegionNames()) {
+			CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+			result.add(new CacheRegionUsage(region,
+					regionStatistics.getHitCount(),
+					regionStatistics.getMissCount(),
+					regionStatistics.getPutCount(),
+					getEvictionCount(region),
+					Math.max(regionStatistics.getElementCountInMemory(), -1)));
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the eviction count of a cache from its JCache statistics MBean.
+	 *
+	 * @param cacheName the name of the cache backing the region.
+	 * @return the number of evictions, or -1 if the provider does not publish statistics.
+	 */
+	private long getEvictionCount(String cacheName) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			Set<ObjectName> names = server.queryNames(
+					new ObjectName("javax.cache:type=CacheStatistics,Cache=" + cacheName + ",*"), null);
+			if (!names.isEmpty()) {
+				return ((Number) server.getAttribute(names.iterator().next(), "CacheEvictions")).longValue();
+			}
+		} catch (JMException e) {
+			log.warn("Cannot read the eviction count of cache {}", cacheName, e);
+		}
+		return -1;
+	}
+
+}
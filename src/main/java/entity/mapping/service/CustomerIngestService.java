@@ -0,0 +1,216 @@
+package entity.mapping.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import entity.mapping.changelog.CustomerOutbox;
+import entity.mapping.dto.BulkIngestResult;
+import entity.mapping.dto.BulkRecordResult;
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.CustomerOutboxEvent;
+import entity.mapping.entity.Gadgets;
+import entity.mapping.search.CustomerSearchIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * The CustomerIngestService class stores large numbers of customers in bulk.
+ *
+ * Customers are written in chunks, one transaction per chunk, and the inserts of a chunk
+ * are sent to the database in JDBC batches. Customer IDs come from the pooled
+ * "customer_seq" allocator, so a chunk needs only a handful of ID round trips.
+ */
+@Service
+public class CustomerIngestService {
+
+	/**
+	 * Entity manager used to persist the customers of a chunk.
+	 */
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * Template used to run every chunk in its own transaction.
+	 */
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	/**
+	 * In-memory search index, told about every customer that is committed.
+	 */
+	@Autowired
+	private CustomerSearchIndex searchIndex;
+
+	/**
+	 * Outbox the stored customers are recorded in, for the customer change log.
+	 */
+	@Autowired
+	private CustomerOutbox outbox;
+
+	/**
+	 * Number of customers committed per transaction.
+	 */
+	@Value("${customer.ingest.chunk-size:1000}")
+	private int chunkSize;
+
+	/**
+	 * Number of statements sent to the database per JDBC batch.
+	 */
+	@Value("${customer.ingest.jdbc-batch-size:50}")
+	private int jdbcBatchSize;
+
+	/**
+	 * Rejects settings that would break the bulk ingest at runtime.
+	 * 
+	 * @throws IllegalStateException if a setting is out of range.
+	 */
+	@PostConstruct
+	void validateSettings() {
+		if (chunkSize < 1) {
+			throw new IllegalStateException("customer.ingest.chunk-size must be at least 1");
+		}
+		if (jdbcBatchSize < 1) {
+			throw new IllegalStateException("customer.ingest.jdbc-batch-size must be at least 1");
+		}
+	}
+
+	/**
+	 * Stores all customers supplied by the iterator.
+	 *
+	 * Invalid records are rejected up front. If a chunk fails to commit, its records are
+	 * retried one by one so that a single bad record does not reject its neighbours.
+	 * If the iterator itself fails, for example on malformed input, the failure is
+	 * reported for that position and the remaining input is not read.
+	 *
+	 * @param customers the customers to store, typically read lazily from the request body.
+	 * @return the outcome of every record, with the overall throughput.
+	 */
+	public BulkIngestResult ingest(Iterator<Customer> customers) {
+		long start = System.nanoTime();
+		List<BulkRecordResult> results = new ArrayList<>();
+		List<Customer> chunk = new ArrayList<>(chunkSize);
+		List<Integer> chunkIndexes = new ArrayList<>(chunkSize);
+
+		int index = 0;
+		while (true) {
+			Customer customer;
+			try {
+				if (!customers.hasNext()) {
+					break;
+				}
+				customer = customers.next();
+			} catch (RuntimeException e) {
+				results.add(BulkRecordResult.failed(index, "Malformed record: " + e.getMessage()));
+				break;
+			}
+
+			String error = validate(customer);
+			if (error != null) {
+				results.add(BulkRecordResult.failed(index, error));
+			} else {
+				chunk.add(customer);
+				chunkIndexes.add(index);
+				if (chunk.size() == chunkSize) {
+					writeChunk(chunk, chunkIndexes, results);
+					chunk.clear();
+					chunkIndexes.clear();
+				}
+			}
+			index++;
+		}
+		if (!chunk.isEmpty()) {
+			writeChunk(chunk, chunkIndexes, results);
+		}
+
+		results.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+		return new BulkIngestResult(results, System.nanoTime() - start);
+	}
+
+	/**
+	 * Checks that a customer can be stored.
+	 *
+	 * @param customer the customer to check.
+	 * @return the reason the customer is invalid, or null if it is valid.
+	 */
+	private String validate(Customer customer) {
+		if (customer == null) {
+			return "Customer is missing";
+		}
+		if (customer.getPerson() == null) {
+			return "Person is required";
+		}
+		return null;
+	}
+
+	/**
+	 * Writes a chunk of customers in one transaction, falling back to one transaction
+	 * per customer if the chunk cannot be committed.
+	 *
+	 * @param chunk   the customers to write.
+	 * @param indexes the request positions of the customers.
+	 * @param results the list the per-record results are added to.
+	 */
+	private void writeChunk(List<Customer> chunk, List<Integer> indexes, List<BulkRecordResult> results) {
+		try {
+			transactionTemplate.executeWithoutResult(status -> persistAll(chunk));
+			for (int i = 0; i < chunk.size(); i++) {
+				results.add(BulkRecordResult.inserted(indexes.get(i), chunk.get(i).getId()));
+			}
+		} catch (RuntimeException chunkFailure) {
+			for (int i = 0; i < chunk.size(); i++) {
+				Customer customer = chunk.get(i);
+				resetIds(customer);
+				try {
+					transactionTemplate.executeWithoutResult(status -> persistAll(List.of(customer)));
+					results.add(BulkRecordResult.inserted(indexes.get(i), customer.getId()));
+				} catch (RuntimeException e) {
+					results.add(BulkRecordResult.failed(indexes.get(i), e.getMessage()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Persists the customers with their person and gadgets, records them in the outbox
+	 * and flushes them in JDBC batches. The persistence context is cleared afterwards so it does not grow from
+	 * one chunk to the next.
+	 *
+	 * @param customers the customers to persist.
+	 */
+	private void persistAll(List<Customer> customers) {
+		entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+		for (Customer customer : customers) {
+			customer.getPerson().setCustomer(customer);
+			entityManager.persist(customer);
+			searchIndex.index(customer.getId(), customer.getName(), customer.getPhonenumber());
+		}
+		outbox.recordSaved(CustomerOutboxEvent.Type.CREATED, customers);
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	/**
+	 * Clears the identifiers assigned during a rolled back attempt, so the customer is
+	 * treated as new when it is persisted again.
+	 *
+	 * @param customer the customer to reset.
+	 */
+	private void resetIds(Customer customer) {
+		customer.setId(null);
+		customer.getPerson().setId(null);
+		if (customer.getGadgets() != null) {
+			for (Gadgets gadget : customer.getGadgets()) {
+				gadget.setId(null);
+			}
+		}
+	}
+
+}
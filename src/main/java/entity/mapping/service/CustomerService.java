@@ -1,18 +1,68 @@
 package entity.mapping.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import org.hibernate.query.NativeQuery;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import entity.mapping.bulkhead.Bulkhead;
+import entity.mapping.bulkhead.BulkheadRegistry;
+import entity.mapping.dto.BulkDeleteRequest;
+import entity.mapping.dto.BulkDeleteResult;
+import entity.mapping.dto.CustomerDetailRow;
+import entity.mapping.dto.CustomerPage;
+import entity.mapping.dto.CustomerSearchPage;
+import entity.mapping.dto.CustomerView;
+import entity.mapping.changelog.CustomerOutbox;
 import entity.mapping.entity.Customer;
+import entity.mapping.entity.CustomerOutboxEvent;
 import entity.mapping.entity.Gadgets;
 import entity.mapping.entity.Person;
+import entity.mapping.entity.SearchKeys;
 import entity.mapping.repository.CustomerRepository;
+import entity.mapping.search.CustomerSearchIndex;
+import entity.mapping.search.MatchMode;
+import entity.mapping.search.SearchField;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Root;
 
 /**
  * The CustomerService class provides services related to customer management, 
@@ -20,10 +70,24 @@ import jakarta.transaction.Transactional;
  * 
  * This class interacts with the CustomerRepository to perform database operations 
  * and ensure the integrity of customer data.
+ * 
+ * Every public method is timed as "service.method", tagged with the class and method.
+ * Reads run in read-only transactions, which are routed to a replica when read
+ * replicas are configured. Reads and writes each run in their own {@link Bulkhead}, so
+ * a slow database sheds excess calls with a fast 503 instead of queueing every request.
+ * Writes keep the {@link CustomerSearchIndex} current once they commit, and record
+ * every change in the {@link CustomerOutbox} in their own transaction, from where it is
+ * published to the customer change log.
  */
 @Service
+@Timed("service.method")
 public class CustomerService {
 
+	/**
+	 * Fields a partial update may contain, using the same names as the Customer JSON.
+	 */
+	private static final Set<String> PATCHABLE_FIELDS = Set.of("name", "phonenumber", "person", "gadgets");
+
 	/**
 	 * Repository for performing CRUD operations on Customer entities.
 	 * This field is automatically injected by Spring.
@@ -31,21 +95,102 @@ public class CustomerService {
 	@Autowired
 	private CustomerRepository repo;
 
+	/**
+	 * Entity manager of the current transaction, used to detach entities during long reads.
+	 */
+	@PersistenceContext
 	private EntityManager entityManager;
 
 	/**
-	 * Adds a new customer to the database.
+	 * Object mapper used to serialize customers for the export.
+	 */
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Number of customers written by the export between two flushes of the output
+	 * and two clears of the persistence context.
+	 */
+	@Value("${customer.export.clear-interval:500}")
+	private int exportClearInterval;
+
+	/**
+	 * The largest page size a client may request from the paginated listing.
+	 */
+	@Value("${customer.page.max-size:100}")
+	private int maxPageSize;
+
+	/**
+	 * Number of customers deleted per transaction by a bulk deletion.
+	 */
+	@Value("${customer.delete.chunk-size:500}")
+	private int deleteChunkSize;
+
+	/**
+	 * Template used to run every chunk of a bulk deletion in its own transaction.
+	 */
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	/**
+	 * Retries updates that lose an optimistic locking conflict.
+	 */
+	@Autowired
+	private OptimisticRetry optimisticRetry;
+
+	/**
+	 * In-memory index answering customer searches, updated by every write.
+	 */
+	@Autowired
+	private CustomerSearchIndex searchIndex;
+
+	/**
+	 * Outbox every committed change is recorded in, for the customer change log.
+	 */
+	@Autowired
+	private CustomerOutbox outbox;
+
+	/**
+	 * Registry the search latency is recorded in.
+	 */
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Rejects settings that would break the customer operations at runtime.
+	 * 
+	 * @throws IllegalStateException if a setting is out of range.
+	 */
+	@PostConstruct
+	void validateSettings() {
+		if (exportClearInterval < 1) {
+			throw new IllegalStateException("customer.export.clear-interval must be at least 1");
+		}
+		if (deleteChunkSize < 1) {
+			throw new IllegalStateException("customer.delete.chunk-size must be at least 1");
+		}
+	}
+
+	/**
+	 * Adds a new customer to the database, recording its creation in the same transaction.
 	 * 
 	 * @param customer the Customer object to be added.
 	 * @return a success message if the customer is inserted successfully, 
 	 *         otherwise an error message.
 	 */
+	@Bulkhead(BulkheadRegistry.WRITE)
 	public String addCustomer(Customer customer)
 	{
 		try {
 			Person person = customer.getPerson();
 			person.setCustomer(customer);
-			customer = repo.save(customer);
+			Customer unsaved = customer;
+			customer = transactionTemplate.execute(status -> {
+				Customer saved = repo.save(unsaved);
+				outbox.recordSaved(CustomerOutboxEvent.Type.CREATED, List.of(saved));
+				searchIndex.index(saved.getId(), saved.getName(), saved.getPhonenumber());
+				return saved;
+			});
 		}catch(Exception e) {
 			e.printStackTrace();
 		}
@@ -56,73 +201,655 @@ public class CustomerService {
 	}
 
 	/**
-	 * Retrieves a list of all customers from the database.
+	 * Retrieves a list of all customers from the database, with their person and
+	 * gadgets loaded in the same statement.
 	 * 
 	 * @return a List of Customer objects.
 	 */
+	@Transactional(readOnly = true)
+	@Bulkhead(BulkheadRegistry.READ)
 	public List<Customer> getAllCustomers() {
-		return repo.findAll();
+		return repo.findAllWithDetails();
+	}
+
+	/**
+	 * Retrieves all customers as read-only views, with their person and gadgets selected
+	 * in the same statement.
+	 * 
+	 * Unlike {@link #getAllCustomers()} no entities are hydrated: only the needed columns
+	 * are selected and folded into records, which is cheaper in both time and allocation
+	 * when the customers are only serialized.
+	 * 
+	 * @return the customer views, in ascending ID order.
+	 */
+	@Transactional(readOnly = true)
+	@Bulkhead(BulkheadRegistry.READ)
+	public List<CustomerView> getAllCustomerViews() {
+		return CustomerDetailRow.toViews(repo.findAllDetailRows());
+	}
+
+	/**
+	 * Gets the ETag of the customer listing from an aggregate over the customer table,
+	 * without reading the customers themselves.
+	 * 
+	 * @return the ETag the listing returned by {@link #getAllCustomerViews()} would have now.
+	 */
+	@Transactional(readOnly = true)
+	@Bulkhead(BulkheadRegistry.READ)
+	public String getAllCustomersEtag() {
+		return repo.findListingVersion().toEtag();
 	}
 
 	/**
-	 * Retrieves a customer by its ID.
+	 * Retrieves one page of customers ordered by ID, using keyset pagination.
+	 * 
+	 * One extra ID is read beyond the requested size to find out whether a next page
+	 * exists, so no count query is needed. The page costs two statements: one for the
+	 * IDs and one for the customers with their person and gadgets.
+	 * 
+	 * @param pageSize  the number of customers requested, capped at the configured maximum.
+	 * @param pageToken the token returned with the previous page, or null for the first page.
+	 * @return the page of customers and the token for the next page.
+	 * @throws IllegalArgumentException if the page size is not positive or the token is invalid.
+	 */
+	@Transactional(readOnly = true)
+	@Bulkhead(BulkheadRegistry.READ)
+	public CustomerPage getCustomerPage(int pageSize, String pageToken) {
+		if (pageSize <= 0) {
+			throw new IllegalArgumentException("Page size must be positive.");
+		}
+		int size = Math.min(pageSize, maxPageSize);
+		Integer afterId = PageToken.decode(pageToken);
+
+		List<Integer> ids = repo.findIdsAfter(afterId, Limit.of(size + 1));
+		String nextPageToken = null;
+		if (ids.size() > size) {
+			ids = ids.subList(0, size);
+			nextPageToken = PageToken.encode(ids.get(size - 1));
+		}
+		List<Customer> customers = ids.isEmpty() ? List.of() : repo.findByIdInOrderByIdAsc(ids);
+		return new CustomerPage(customers, nextPageToken);
+	}
+
+	/**
+	 * Searches customers by a prefix or substring of their name or phone number, one
+	 * page at a time in ascending ID order.
+	 * 
+	 * The query is normalized like the stored values, see {@link SearchField#key(String)}.
+	 * Matching IDs come from the {@link CustomerSearchIndex} once it is ready and from the
+	 * indexed name key and phone digits columns before that; the customers of the page
+	 * are then selected in one statement. Because the in-memory index is updated only
+	 * after commit, its candidates are checked again against the selected customers.
+	 * 
+	 * The latency is recorded as "customer.search", tagged with the field, the match mode
+	 * and whether the index or the database answered.
+	 * 
+	 * @param query     the text to search for.
+	 * @param field     "name" or "phone".
+	 * @param match     "prefix" or "contains".
+	 * @param pageSize  the number of customers requested, capped at the configured maximum.
+	 * @param pageToken the token returned with the previous page, or null for the first page.
+	 * @return the matching customers on the page and the token for the next page.
+	 * @throws IllegalArgumentException if the query has no searchable characters, the field,
+	 *                                  mode or page size is invalid, or the token is malformed.
+	 */
+	@Transactional(readOnly = true)
+	@Bulkhead(BulkheadRegistry.READ)
+	public CustomerSearchPage searchCustomers(String query, String field, String match, int pageSize, String pageToken) {
+		SearchField searchField = SearchField.parse(field);
+		MatchMode matchMode = MatchMode.parse(match);
+		String key = searchField.key(query);
+		if (key == null) {
+			throw new IllegalArgumentException("Search query must contain searchable characters.");
+		}
+		if (pageSize <= 0) {
+			throw new IllegalArgumentException("Page size must be positive.");
+		}
+		int size = Math.min(pageSize, maxPageSize);
+		Integer afterId = PageToken.decode(pageToken);
+
+		long start = System.nanoTime();
+		boolean fromIndex = searchIndex.isReady();
+		List<Integer> ids;
+		if (fromIndex) {
+			ids = searchIndex.search(searchField, matchMode, key, afterId, size + 1);
+		} else if (searchField == SearchField.NAME) {
+			ids = repo.findIdsByNameKeyLike(matchMode.likePattern(key), afterId, Limit.of(size + 1));
+		} else {
+			ids = repo.findIdsByPhoneDigitsLike(matchMode.likePattern(key), afterId, Limit.of(size + 1));
+		}
+
+		String nextPageToken = null;
+		if (ids.size() > size) {
+			ids = ids.subList(0, size);
+			nextPageToken = PageToken.encode(ids.get(size - 1));
+		}
+		List<CustomerView> customers = ids.isEmpty() ? List.of()
+				: CustomerDetailRow.toViews(repo.findDetailRowsByIdIn(ids));
+		if (fromIndex) {
+			customers = customers.stream()
+					.filter(customer -> matchMode.matches(searchField.key(customer), key))
+					.toList();
+		}
+
+		Timer.builder("customer.search")
+				.tag("field", searchField.name().toLowerCase(Locale.ROOT))
+				.tag("match", matchMode.name().toLowerCase(Locale.ROOT))
+				.tag("source", fromIndex ? "index" : "database")
+				.register(meterRegistry)
+				.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		return new CustomerSearchPage(customers, nextPageToken);
+	}
+
+	/**
+	 * Writes all customers, with their person and gadgets, to the given output stream as
+	 * newline-delimited JSON.
+	 * 
+	 * Customers are read from a database cursor instead of a list. Every
+	 * {@code customer.export.clear-interval} rows the output is flushed to the client and
+	 * the persistence context is cleared, so memory use does not grow with the table.
+	 * 
+	 * @param out the stream to write to; it is flushed but not closed.
+	 * @return the number of customers written.
+	 * @throws IOException if writing to the output stream fails.
+	 */
+	@Transactional(readOnly = true)
+	@Bulkhead(value = BulkheadRegistry.READ, sampled = false)
+	public long exportCustomers(OutputStream out) throws IOException {
+		ObjectWriter writer = objectMapper.writerFor(Customer.class)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		long count = 0;
+
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+				Stream<Customer> customers = repo.streamAllByOrderByIdAsc()) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			generator.setRootValueSeparator(null);
+
+			Iterator<Customer> iterator = customers.iterator();
+			while (iterator.hasNext()) {
+				writer.writeValue(generator, iterator.next());
+				generator.writeRaw('\n');
+				if (++count % exportClearInterval == 0) {
+					generator.flush();
+					entityManager.clear();
+				}
+			}
+			generator.flush();
+		}
+		return count;
+	}
+
+	/**
+	 * Retrieves a customer by its ID, with its person and gadgets loaded in the same
+	 * statement.
+	 * 
+	 * When the customer is already in the second-level cache it is loaded by ID instead,
+	 * because queries always go to the database while lookups by ID are served from the
+	 * cache together with the cached person and gadgets.
 	 * 
 	 * @param id the ID of the customer to retrieve.
 	 * @return the Customer object if found, or null if not found.
 	 */
+	@Transactional(readOnly = true)
+	@Bulkhead(BulkheadRegistry.READ)
 	public Customer getCustomerById(Integer id) {
-		Optional<Customer> customerOpt = repo.findById(id);
+		Optional<Customer> customerOpt;
+		if (entityManager.getEntityManagerFactory().getCache().contains(Customer.class, id)) {
+			customerOpt = repo.findById(id);
+		} else {
+			customerOpt = repo.findDetailById(id);
+		}
 		return customerOpt.orElse(null);
 	}
 
+	/**
+	 * Retrieves a customer as a read-only view, with its person and gadgets selected in
+	 * the same statement and without hydrating entities.
+	 * 
+	 * When the customer is in the second-level cache the view is built from the cached
+	 * entity instead, which needs no statement at all.
+	 * 
+	 * @param id the ID of the customer to retrieve.
+	 * @return the customer view if found, or null if not found.
+	 */
+	@Transactional(readOnly = true)
+	@Bulkhead(BulkheadRegistry.READ)
+	public CustomerView getCustomerView(Integer id) {
+		if (entityManager.getEntityManagerFactory().getCache().contains(Customer.class, id)) {
+			return repo.findById(id).map(CustomerView::of).orElse(null);
+		}
+		List<CustomerView> views = CustomerDetailRow.toViews(repo.findDetailRowsById(id));
+		return views.isEmpty() ? null : views.get(0);
+	}
+
+	/**
+	 * Gets the ETag of a customer from its version alone, without loading the customer.
+	 * 
+	 * @param id the ID of the customer.
+	 * @return the ETag the view returned by {@link #getCustomerView(Integer)} would have
+	 *         now, or null if no customer has that ID.
+	 */
+	@Transactional(readOnly = true)
+	@Bulkhead(BulkheadRegistry.READ)
+	public String getCustomerEtag(Integer id) {
+		return repo.findVersionById(id).map(version -> CustomerView.etag(id, version)).orElse(null);
+	}
+
 	/**
 	 * Updates an existing customer's information.
 	 * 
+	 * The customer is loaded with its person and gadgets in one statement and changed in
+	 * place, so the update only writes the rows that actually differ. Gadgets are matched
+	 * by ID, see {@link #mergeGadgets(Customer, List)}. The customer version is
+	 * incremented when the person or a gadget changes, even if the customer row does not.
+	 * 
+	 * No locks are held between reading and writing. If another transaction changed the
+	 * customer in the meantime, the version check fails at commit. The update replaces
+	 * the whole customer, so it is not retried: run again on fresh data, it would silently
+	 * undo the other change, such as removing a gadget that was just added.
+	 * 
 	 * @param id the ID of the customer to update.
 	 * @param updatedCustomer the Customer object containing updated information.
 	 * @return the updated Customer object.
 	 * @throws IllegalArgumentException if the provided ID is null.
 	 * @throws EntityNotFoundException if no customer is found with the provided ID.
+	 * @throws OptimisticLockingFailureException if another update committed first.
 	 */
+	@Bulkhead(BulkheadRegistry.WRITE)
 	public Customer updateCustomer(Integer id, Customer updatedCustomer) {
+		return updateCustomer(id, updatedCustomer, null);
+	}
+
+	/**
+	 * Updates an existing customer if it is still at the version the client read, as
+	 * {@link #updateCustomer(Integer, Customer)} does otherwise.
+	 * 
+	 * @param id the ID of the customer to update.
+	 * @param updatedCustomer the Customer object containing updated information.
+	 * @param expectedVersion the version the update was based on, or null to update any version.
+	 * @return the updated Customer object.
+	 * @throws IllegalArgumentException if the provided ID is null.
+	 * @throws EntityNotFoundException if no customer is found with the provided ID.
+	 * @throws CustomerVersionMismatchException if the customer is at another version.
+	 * @throws OptimisticLockingFailureException if another update committed first.
+	 */
+	@Bulkhead(BulkheadRegistry.WRITE)
+	public Customer updateCustomer(Integer id, Customer updatedCustomer, Long expectedVersion) {
 		if (id == null) {
 			throw new IllegalArgumentException("Customer ID cannot be null.");
 		}
+		return transactionTemplate.execute(status -> applyUpdate(id, updatedCustomer, expectedVersion));
+	}
 
-		Optional<Customer> existingCustomer = repo.findById(id);
+	/**
+	 * Performs {@link #updateCustomer(Integer, Customer, Long)} in the current transaction.
+	 * 
+	 * @param id the ID of the customer to update.
+	 * @param updatedCustomer the Customer object containing updated information.
+	 * @param expectedVersion the version the update was based on, or null to update any version.
+	 * @return the updated Customer object.
+	 * @throws EntityNotFoundException if no customer is found with the provided ID.
+	 * @throws CustomerVersionMismatchException if the customer is at another version.
+	 */
+	private Customer applyUpdate(Integer id, Customer updatedCustomer, Long expectedVersion) {
+		Optional<Customer> existingCustomer = repo.findDetailById(id);
 
 		if (existingCustomer.isPresent()) {
 			Customer customer = existingCustomer.get();
+			checkVersion(id, expectedVersion, customer.getVersion());
 			customer.setName(updatedCustomer.getName());
 			customer.setPhonenumber(updatedCustomer.getPhonenumber());
-			customer.setGadgets(updatedCustomer.getGadgets());
+			boolean ownedChanged = mergeGadgets(customer, updatedCustomer.getGadgets());
 			Person existingPerson = customer.getPerson();
-			if (existingPerson != null) {
+			if (existingPerson != null && updatedCustomer.getPerson() != null
+					&& !Objects.equals(existingPerson.getGender(), updatedCustomer.getPerson().getGender())) {
 
 				existingPerson.setGender((updatedCustomer.getPerson().getGender()));
+				ownedChanged = true;
+			}
+			if (ownedChanged) {
+				// incremented right away rather than at commit, so the recorded change carries the new version
+				entityManager.lock(customer, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+			}
+			searchIndex.index(id, customer.getName(), customer.getPhonenumber());
+			outbox.recordSaved(CustomerOutboxEvent.Type.UPDATED, List.of(customer));
+
+			return customer;
+		} else {
+			throw new EntityNotFoundException("Customer not found with ID: " + id);
+		}
+	}
+
+	/**
+	 * Applies a partial update to a customer. Only the fields present in the document are
+	 * written; a field set to null clears the column.
+	 * 
+	 * Name and phone number are written with a single UPDATE of the customer row, and the
+	 * gender with a single UPDATE of the person row, without loading either entity. The
+	 * customer graph is only loaded when the document contains gadgets. Each of these
+	 * increments the customer version, at most once per kind of change.
+	 * 
+	 * A patch of the fields alone only changes what it names, so it is retried when it
+	 * conflicts with another update of the same customer, see {@link OptimisticRetry}. A
+	 * patch with gadgets replaces the whole gadget list and, like
+	 * {@link #updateCustomer(Integer, Customer)}, is not retried.
+	 * 
+	 * @param id    the ID of the customer to update.
+	 * @param patch a JSON object with any of name, phonenumber, person.gender and gadgets.
+	 * @throws IllegalArgumentException if the ID is null or the document contains other fields.
+	 * @throws EntityNotFoundException if no customer is found with the provided ID.
+	 * @throws OptimisticLockingFailureException if the patch conflicted with another update.
+	 */
+	@Bulkhead(BulkheadRegistry.WRITE)
+	public void patchCustomer(Integer id, JsonNode patch) {
+		patchCustomer(id, patch, null);
+	}
 
+	/**
+	 * Applies a partial update to a customer if it is still at the version the client
+	 * read, as {@link #patchCustomer(Integer, JsonNode)} does otherwise. The customer row
+	 * is locked while its version is checked, so no other update can slip in between.
+	 * 
+	 * @param id              the ID of the customer to update.
+	 * @param patch           a JSON object with any of name, phonenumber, person.gender and gadgets.
+	 * @param expectedVersion the version the patch was based on, or null to patch any version.
+	 * @throws IllegalArgumentException if the ID is null or the document contains other fields.
+	 * @throws EntityNotFoundException if no customer is found with the provided ID.
+	 * @throws CustomerVersionMismatchException if the customer is at another version.
+	 * @throws OptimisticLockingFailureException if the patch conflicted with another update.
+	 */
+	@Bulkhead(BulkheadRegistry.WRITE)
+	public void patchCustomer(Integer id, JsonNode patch, Long expectedVersion) {
+		if (id == null) {
+			throw new IllegalArgumentException("Customer ID cannot be null.");
+		}
+		if (patch == null || !patch.isObject()) {
+			throw new IllegalArgumentException("Patch must be a JSON object.");
+		}
+		patch.fieldNames().forEachRemaining(field -> {
+			if (!PATCHABLE_FIELDS.contains(field)) {
+				throw new IllegalArgumentException("Field cannot be patched: " + field);
 			}
+		});
 
-			return repo.save(customer);
+		Supplier<Void> attempt = () -> transactionTemplate.execute(status -> {
+			applyPatch(id, patch, expectedVersion);
+			return null;
+		});
+		if (patch.has("gadgets")) {
+			attempt.get();
 		} else {
+			optimisticRetry.execute("patch", attempt);
+		}
+	}
+
+	/**
+	 * Performs one attempt of {@link #patchCustomer(Integer, JsonNode, Long)} in the
+	 * current transaction.
+	 * 
+	 * @param id              the ID of the customer to update.
+	 * @param patch           a validated JSON object with any of name, phonenumber, person.gender and gadgets.
+	 * @param expectedVersion the version the patch was based on, or null to patch any version.
+	 * @throws EntityNotFoundException if no customer is found with the provided ID.
+	 * @throws CustomerVersionMismatchException if the customer is at another version.
+	 */
+	private void applyPatch(Integer id, JsonNode patch, Long expectedVersion) {
+		if (expectedVersion != null) {
+			checkVersion(id, expectedVersion, repo.findLockedVersionById(id)
+					.orElseThrow(() -> new EntityNotFoundException("Customer not found with ID: " + id)));
+		}
+		boolean found = false;
+		if (patch.has("name") || patch.has("phonenumber")) {
+			CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+			CriteriaUpdate<Customer> update = cb.createCriteriaUpdate(Customer.class);
+			Root<Customer> root = update.from(Customer.class);
+			if (patch.has("name")) {
+				String name = textValue(patch.get("name"));
+				update.set(root.<String>get("name"), name);
+				update.set(root.<String>get("nameKey"), SearchKeys.name(name));
+			}
+			if (patch.has("phonenumber")) {
+				String phonenumber = textValue(patch.get("phonenumber"));
+				update.set(root.<String>get("phonenumber"), phonenumber);
+				update.set(root.<String>get("phoneDigits"), SearchKeys.phonenumber(phonenumber));
+			}
+			update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+			update.where(cb.equal(root.get("id"), id));
+			found = entityManager.createQuery(update).executeUpdate() > 0;
+			if (!found) {
+				throw new EntityNotFoundException("Customer not found with ID: " + id);
+			}
+			if (patch.has("name")) {
+				searchIndex.indexName(id, textValue(patch.get("name")));
+			}
+			if (patch.has("phonenumber")) {
+				searchIndex.indexPhonenumber(id, textValue(patch.get("phonenumber")));
+			}
+		}
+
+		JsonNode person = patch.get("person");
+		if (person != null && person.has("gender")) {
+			CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+			CriteriaUpdate<Person> update = cb.createCriteriaUpdate(Person.class);
+			Root<Person> root = update.from(Person.class);
+			update.set(root.<String>get("gender"), textValue(person.get("gender")));
+			update.where(cb.equal(root.get("id"), id));
+			if (entityManager.createQuery(update).executeUpdate() > 0) {
+				if (!found) {
+					incrementVersion(id);
+				}
+				found = true;
+			}
+		}
+
+		if (patch.has("gadgets")) {
+			Customer customer = entityManager.find(Customer.class, id);
+			if (customer == null) {
+				throw new EntityNotFoundException("Customer not found with ID: " + id);
+			}
+			if (mergeGadgets(customer, objectMapper.convertValue(patch.get("gadgets"), new TypeReference<List<Gadgets>>() {
+			}))) {
+				entityManager.lock(customer, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+			}
+			found = true;
+		}
+
+		if (!found && !repo.existsById(id)) {
 			throw new EntityNotFoundException("Customer not found with ID: " + id);
 		}
+		outbox.recordUpdated(id);
 	}
 
 	/**
-	 * Deletes a customer by its ID.
+	 * Reconciles the gadgets of a managed customer with the requested list, keyed by
+	 * gadget ID.
+	 * 
+	 * Gadgets whose ID matches an existing gadget are updated in place, so only the ones
+	 * that actually changed are written; gadgets without a known ID are added as new
+	 * gadgets; existing gadgets missing from the list are removed. The managed collection
+	 * is modified rather than replaced, so Hibernate writes just this difference in JDBC
+	 * batches instead of deleting and re-inserting the whole collection.
+	 * 
+	 * Hibernate increments the customer version by itself when gadgets are added or
+	 * removed, but not when a gadget is only edited, so that case is reported to the caller.
+	 * 
+	 * @param customer the managed customer to update.
+	 * @param gadgets  the requested gadgets; null removes all gadgets.
+	 * @return true if an existing gadget was edited in place.
+	 */
+	private boolean mergeGadgets(Customer customer, List<Gadgets> gadgets) {
+		if (customer.getGadgets() == null) {
+			customer.setGadgets(new ArrayList<>());
+		}
+		List<Gadgets> current = customer.getGadgets();
+		if (gadgets == null) {
+			current.clear();
+			return false;
+		}
+
+		Map<UUID, Gadgets> existing = new HashMap<>();
+		for (Gadgets gadget : current) {
+			existing.put(gadget.getId(), gadget);
+		}
+
+		Set<UUID> kept = new HashSet<>();
+		List<Gadgets> added = new ArrayList<>();
+		boolean edited = false;
+		for (Gadgets gadget : gadgets) {
+			Gadgets match = gadget.getId() != null ? existing.get(gadget.getId()) : null;
+			if (match != null && kept.add(match.getId())) {
+				if (!Objects.equals(match.getGadget_name(), gadget.getGadget_name())) {
+					match.setGadget_name(gadget.getGadget_name());
+					edited = true;
+				}
+				if (!Objects.equals(match.getYears(), gadget.getYears())) {
+					match.setYears(gadget.getYears());
+					edited = true;
+				}
+			} else {
+				gadget.setId(null);
+				added.add(gadget);
+			}
+		}
+
+		current.removeIf(gadget -> !kept.contains(gadget.getId()));
+		current.addAll(added);
+		return edited;
+	}
+
+	/**
+	 * Checks that a conditional write is based on the current version of a customer.
+	 * 
+	 * @param id              the ID of the customer.
+	 * @param expectedVersion the version the write was based on, or null for any version.
+	 * @param version         the current version.
+	 * @throws CustomerVersionMismatchException if the versions differ.
+	 */
+	private static void checkVersion(Integer id, Long expectedVersion, Long version) {
+		if (expectedVersion != null && !expectedVersion.equals(version)) {
+			throw new CustomerVersionMismatchException(
+					"Customer " + id + " has changed since version " + expectedVersion + ".");
+		}
+	}
+
+	/**
+	 * Increments the version of a customer with a single UPDATE, for changes that do not
+	 * touch the customer row itself.
+	 * 
+	 * @param id the ID of the customer.
+	 */
+	private void incrementVersion(Integer id) {
+		entityManager.createQuery("update Customer c set c.version = c.version + 1 where c.id = :id")
+				.setParameter("id", id)
+				.executeUpdate();
+	}
+
+	/**
+	 * Reads a text field of a partial update.
+	 * 
+	 * @param node the JSON value of the field.
+	 * @return the text, or null if the field is JSON null.
+	 * @throws IllegalArgumentException if the value is an object or an array.
+	 */
+	private static String textValue(JsonNode node) {
+		if (node.isNull()) {
+			return null;
+		}
+		if (!node.isValueNode()) {
+			throw new IllegalArgumentException("Expected a text value but got: " + node);
+		}
+		return node.asText();
+	}
+
+	/**
+	 * Deletes a customer by its ID, together with its person and gadgets.
+	 * 
+	 * The rows are removed with one set-based DELETE per table in a single transaction,
+	 * without loading the customer first.
 	 * 
 	 * @param id the ID of the customer to delete.
-	 * @return a message indicating whether the deletion was successful or if an error occurred.
+	 * @return a message indicating that the deletion was successful.
+	 * @throws EntityNotFoundException if no customer is found with the provided ID.
 	 */	 
+	@Transactional
+	@Bulkhead(BulkheadRegistry.WRITE)
 	public String deleteCustomer(Integer id) {
-		try {
-			repo.deleteById(id);
-			return "Customer deleted successfully";
-		} catch (Exception e) {
-			e.printStackTrace();
-			return "Error occurred while deleting customer";
+		if (deleteChunk(List.of(id)) == 0) {
+			throw new EntityNotFoundException("Customer not found with ID: " + id);
+		}
+		return "Customer deleted successfully";
+	}
+
+	/**
+	 * Deletes many customers, together with their persons and gadgets.
+	 * 
+	 * The customers are either listed by ID or selected by an inclusive ID range. They are
+	 * deleted in chunks, each in its own transaction, so a large deletion neither holds
+	 * its locks until the end nor builds up one huge undo log. IDs that do not exist are
+	 * ignored.
+	 * 
+	 * @param request the IDs or the range of IDs to delete.
+	 * @return the number of customers deleted.
+	 * @throws IllegalArgumentException if the request has neither IDs nor a complete range, or both.
+	 */
+	@Bulkhead(value = BulkheadRegistry.WRITE, sampled = false)
+	public BulkDeleteResult deleteCustomers(BulkDeleteRequest request) {
+		boolean byIds = request.getIds() != null;
+		boolean byRange = request.getFromId() != null && request.getToId() != null;
+		if (byIds == byRange) {
+			throw new IllegalArgumentException("Either ids or fromId and toId must be given");
+		}
+
+		long start = System.nanoTime();
+		int deleted = 0;
+		int chunks = 0;
+		if (byIds) {
+			List<Integer> ids = request.getIds().stream().filter(Objects::nonNull).distinct().toList();
+			for (int from = 0; from < ids.size(); from += deleteChunkSize) {
+				List<Integer> chunk = ids.subList(from, Math.min(from + deleteChunkSize, ids.size()));
+				deleted += transactionTemplate.execute(status -> deleteChunk(chunk));
+				chunks++;
+			}
+		} else {
+			int fromId = request.getFromId();
+			while (fromId <= request.getToId()) {
+				List<Integer> chunk = repo.findIdsBetween(fromId, request.getToId(), Limit.of(deleteChunkSize));
+				if (chunk.isEmpty()) {
+					break;
+				}
+				deleted += transactionTemplate.execute(status -> deleteChunk(chunk));
+				chunks++;
+				fromId = chunk.get(chunk.size() - 1) + 1;
+			}
 		}
+		return new BulkDeleteResult(deleted, chunks, System.nanoTime() - start);
+	}
+
+	/**
+	 * Deletes customers with their gadgets and persons in the current transaction, using
+	 * one DELETE statement per table.
+	 * 
+	 * Gadgets have no mapped reference to their customer, so they are deleted with native
+	 * SQL; the query is synchronized on the Gadgets entity so that Hibernate still evicts
+	 * the affected second-level cache regions, as it does for the two HQL deletes.
+	 * 
+	 * @param ids the IDs of the customers to delete.
+	 * @return the number of customers deleted.
+	 */
+	private int deleteChunk(Collection<Integer> ids) {
+		searchIndex.remove(ids);
+		outbox.recordDeleted(ids);
+		entityManager.createNativeQuery("delete from gadgets where customer_id in (:ids)")
+				.unwrap(NativeQuery.class)
+				.addSynchronizedEntityClass(Gadgets.class)
+				.setParameter("ids", ids)
+				.executeUpdate();
+		entityManager.createQuery("delete from Person p where p.id in (:ids)")
+				.setParameter("ids", ids)
+				.executeUpdate();
+		return entityManager.createQuery("delete from Customer c where c.id in (:ids)")
+				.setParameter("ids", ids)
+				.executeUpdate();
 	}
 
 
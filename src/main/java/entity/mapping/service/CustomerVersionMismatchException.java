@@ -0,0 +1,23 @@
+package entity.mapping.service;
+
+/**
+ * Thrown when a conditional write expects a customer version that is no longer current,
+ * because the customer changed since the client read it.
+ *
+ * The controller turns it into a 412 response. The write is not retried, since the
+ * client has to see the other change before deciding whether to make its own.
+ */
+public class CustomerVersionMismatchException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructs a CustomerVersionMismatchException.
+	 *
+	 * @param message why the expected version does not match.
+	 */
+	public CustomerVersionMismatchException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,346 @@
+package entity.mapping.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import entity.mapping.bulkhead.BulkheadRejectedException;
+import entity.mapping.dto.BulkIngestResult;
+import entity.mapping.dto.BulkRecordResult;
+import entity.mapping.dto.CustomerIngestStatus;
+import entity.mapping.entity.Customer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * CustomerWriteBehind accepts customers for /addCustomerAsync and stores them in the
+ * background, many per transaction.
+ *
+ * Accepted customers wait in a bounded queue. A single writer thread takes up to
+ * {@code customer.write-behind.batch-size} of them, waiting at most
+ * {@code customer.write-behind.max-delay} after the first one for the batch to fill,
+ * and writes the batch through {@link CustomerIngestService} in one transaction with
+ * JDBC batching. A burst of single adds therefore costs a few batched transactions
+ * instead of one round trip and commit per customer, and no request thread waits for
+ * the database.
+ *
+ * When the queue is full, a new customer waits at most
+ * {@code customer.write-behind.max-wait} for room and is otherwise rejected with a
+ * {@link BulkheadRejectedException}, answered with 503 and Retry-After. The outcome of
+ * every customer is kept for {@code customer.write-behind.status-ttl} under its tracking
+ * ID. On shutdown, new customers are rejected and the queue is written out before the
+ * database connections close, for at most {@code customer.write-behind.shutdown-timeout}.
+ *
+ * The queue length is exposed as the gauge "customer.write_behind.queued", the batches
+ * as the timer "customer.write_behind.flush" and the customers as the counter
+ * "customer.write_behind.customers", tagged with their outcome.
+ */
+@Component
+public class CustomerWriteBehind implements SmartLifecycle {
+
+	private static final Logger log = LoggerFactory.getLogger(CustomerWriteBehind.class);
+
+	/**
+	 * Name under which rejections are reported.
+	 */
+	private static final String NAME = "write-behind";
+
+	/**
+	 * How long the idle writer waits for a customer before it checks for shutdown again.
+	 */
+	private static final long IDLE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	/**
+	 * Service writing each batch in one transaction.
+	 */
+	@Autowired
+	private CustomerIngestService ingestService;
+
+	/**
+	 * Registry the queue metrics are recorded in.
+	 */
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Number of customers that may wait to be written.
+	 */
+	@Value("${customer.write-behind.capacity:10000}")
+	private int capacity;
+
+	/**
+	 * Largest number of customers written in one transaction.
+	 */
+	@Value("${customer.write-behind.batch-size:500}")
+	private int batchSize;
+
+	/**
+	 * Longest time the first customer of a batch waits for the batch to fill.
+	 */
+	@Value("${customer.write-behind.max-delay:50ms}")
+	private Duration maxDelay;
+
+	/**
+	 * Longest time a new customer waits for room in a full queue.
+	 */
+	@Value("${customer.write-behind.max-wait:50ms}")
+	private Duration maxWait;
+
+	/**
+	 * Retry delay suggested to clients rejected because the queue is full.
+	 */
+	@Value("${customer.write-behind.retry-after:1s}")
+	private Duration retryAfter;
+
+	/**
+	 * How long the outcome of a customer can be looked up.
+	 */
+	@Value("${customer.write-behind.status-ttl:10m}")
+	private Duration statusTtl;
+
+	/**
+	 * Longest time shutdown waits for the queue to be written out.
+	 */
+	@Value("${customer.write-behind.shutdown-timeout:30s}")
+	private Duration shutdownTimeout;
+
+	private BlockingQueue<Pending> queue;
+
+	/**
+	 * Outcome of every accepted customer, by tracking ID.
+	 */
+	private Cache<UUID, CustomerIngestStatus> statuses;
+
+	private Timer flushTimer;
+
+	private Counter inserted;
+
+	private Counter failed;
+
+	private Counter rejected;
+
+	/**
+	 * Whether new customers are accepted.
+	 */
+	private volatile boolean accepting;
+
+	/**
+	 * Set on shutdown, after which the writer exits once the queue is empty.
+	 */
+	private volatile boolean stopping;
+
+	private Thread writer;
+
+	/**
+	 * Creates the queue, the status cache and the metrics.
+	 */
+	@PostConstruct
+	void init() {
+		queue = new ArrayBlockingQueue<>(capacity);
+		statuses = Caffeine.newBuilder()
+				.expireAfterWrite(statusTtl)
+				.maximumSize(Math.max(100_000L, 10L * capacity))
+				.build();
+		Gauge.builder("customer.write_behind.queued", queue, BlockingQueue::size)
+				.description("Customers waiting to be written")
+				.register(meterRegistry);
+		flushTimer = Timer.builder("customer.write_behind.flush")
+				.description("Writes of one batch of queued customers")
+				.register(meterRegistry);
+		inserted = meterRegistry.counter("customer.write_behind.customers", "outcome", "inserted");
+		failed = meterRegistry.counter("customer.write_behind.customers", "outcome", "failed");
+		rejected = meterRegistry.counter("customer.write_behind.customers", "outcome", "rejected");
+	}
+
+	/**
+	 * Queues a customer to be written.
+	 *
+	 * @param customer the customer to add.
+	 * @return the QUEUED status with the tracking ID of the customer.
+	 * @throws IllegalArgumentException  if the customer cannot be stored.
+	 * @throws BulkheadRejectedException if the queue stays full or the application is
+	 *                                   shutting down.
+	 */
+	public CustomerIngestStatus submit(Customer customer) {
+		if (customer == null || customer.getPerson() == null) {
+			throw new IllegalArgumentException("Person is required");
+		}
+		if (!accepting) {
+			rejected.increment();
+			throw new BulkheadRejectedException(NAME, "shutting down", retryAfter);
+		}
+
+		CustomerIngestStatus status = CustomerIngestStatus.queued(UUID.randomUUID());
+		statuses.put(status.trackingId(), status);
+		boolean queued;
+		try {
+			queued = queue.offer(new Pending(status.trackingId(), customer), maxWait.toNanos(), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			queued = false;
+		}
+		if (!queued) {
+			statuses.invalidate(status.trackingId());
+			rejected.increment();
+			throw new BulkheadRejectedException(NAME, "queue full", retryAfter);
+		}
+		return status;
+	}
+
+	/**
+	 * Looks up what became of a queued customer.
+	 *
+	 * @param trackingId the tracking ID returned by {@link #submit(Customer)}.
+	 * @return the status, or null if the ID is unknown or its status has expired.
+	 */
+	public CustomerIngestStatus getStatus(UUID trackingId) {
+		return statuses.getIfPresent(trackingId);
+	}
+
+	/**
+	 * Starts the writer thread and begins accepting customers.
+	 */
+	@Override
+	public synchronized void start() {
+		stopping = false;
+		writer = new Thread(this::drain, "customer-write-behind");
+		writer.start();
+		accepting = true;
+	}
+
+	/**
+	 * Stops accepting customers and waits for the writer to store the queued ones.
+	 */
+	@Override
+	public synchronized void stop() {
+		accepting = false;
+		stopping = true;
+		if (writer == null) {
+			return;
+		}
+		try {
+			writer.join(shutdownTimeout);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (writer.isAlive()) {
+			log.warn("Write-behind queue not drained within {}, {} customers were not stored", shutdownTimeout,
+					queue.size());
+		} else {
+			// a submit that passed the accepting check just before shutdown may have queued after the writer exited
+			List<Pending> late = new ArrayList<>();
+			queue.drainTo(late);
+			if (!late.isEmpty()) {
+				flush(late);
+			}
+		}
+		writer = null;
+	}
+
+	/**
+	 * Indicates whether the writer is running.
+	 *
+	 * @return true between start and stop.
+	 */
+	@Override
+	public synchronized boolean isRunning() {
+		return writer != null;
+	}
+
+	/**
+	 * Stops after the web server, so requests still in flight during a graceful shutdown
+	 * can queue their customers, and before the database connections are closed.
+	 *
+	 * @return a phase below that of the embedded web server.
+	 */
+	@Override
+	public int getPhase() {
+		return SmartLifecycle.DEFAULT_PHASE - 4096;
+	}
+
+	/**
+	 * Writer loop: collects batches bounded by size and delay and writes them, until
+	 * shutdown has been requested and the queue is empty.
+	 */
+	private void drain() {
+		List<Pending> batch = new ArrayList<>(batchSize);
+		while (true) {
+			try {
+				Pending first = queue.poll(IDLE_POLL_NANOS, TimeUnit.NANOSECONDS);
+				if (first == null) {
+					if (stopping) {
+						return;
+					}
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + maxDelay.toNanos();
+				while (batch.size() < batchSize) {
+					Pending next = stopping ? queue.poll()
+							: queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (InterruptedException e) {
+				log.warn("Write-behind writer interrupted, {} customers were not stored", queue.size() + batch.size());
+				return;
+			}
+			flush(batch);
+			batch.clear();
+		}
+	}
+
+	/**
+	 * Writes one batch and records the outcome of every customer in it.
+	 *
+	 * @param batch the queued customers, in queue order.
+	 */
+	private void flush(List<Pending> batch) {
+		long start = System.nanoTime();
+		try {
+			BulkIngestResult result = ingestService.ingest(batch.stream().map(Pending::customer).iterator());
+			for (BulkRecordResult record : result.getResults()) {
+				Pending pending = batch.get(record.getIndex());
+				statuses.put(pending.trackingId(), CustomerIngestStatus.of(pending.trackingId(), record));
+			}
+			inserted.increment(result.getInserted());
+			failed.increment(result.getFailed());
+		} catch (RuntimeException e) {
+			log.error("Writing a batch of {} queued customers failed", batch.size(), e);
+			for (Pending pending : batch) {
+				statuses.put(pending.trackingId(), CustomerIngestStatus.failed(pending.trackingId(), e.getMessage()));
+			}
+			failed.increment(batch.size());
+		}
+		flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * A customer waiting in the queue.
+	 *
+	 * @param trackingId the tracking ID handed out for it.
+	 * @param customer   the customer.
+	 */
+	private record Pending(UUID trackingId, Customer customer) {
+	}
+
+}
@@ -0,0 +1,136 @@
+package entity.mapping.service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * OptimisticRetry re-runs a write transaction that lost an optimistic locking conflict.
+ *
+ * Customers are versioned, so two transactions that change the same customer do not
+ * block each other; the one that commits second finds the version changed and fails.
+ * Since the failed transaction was rolled back completely, it can simply be run again
+ * on fresh data. Attempts are bounded and separated by exponential backoff with full
+ * jitter, so contending writers spread out instead of colliding again in lockstep.
+ *
+ * Conflicts are counted as "customer.write.conflicts", tagged with the operation and
+ * whether the call was retried or gave up.
+ */
+@Component
+public class OptimisticRetry {
+
+	/**
+	 * Total number of attempts per call, including the first one.
+	 */
+	private final int maxAttempts;
+
+	/**
+	 * Upper bound of the delay before the first retry, doubled for each further retry.
+	 */
+	private final long backoffNanos;
+
+	/**
+	 * Upper bound of the delay before any retry.
+	 */
+	private final long maxBackoffNanos;
+
+	/**
+	 * Registry the conflict counters are recorded in.
+	 */
+	private final MeterRegistry meterRegistry;
+
+	/**
+	 * Constructs an OptimisticRetry.
+	 *
+	 * @param maxAttempts   the total number of attempts per call.
+	 * @param backoff       the upper bound of the delay before the first retry.
+	 * @param maxBackoff    the upper bound of the delay before any retry.
+	 * @param meterRegistry the registry the conflict counters are recorded in.
+	 */
+	@Autowired
+	public OptimisticRetry(@Value("${customer.update.max-attempts:5}") int maxAttempts,
+			@Value("${customer.update.backoff:5ms}") Duration backoff,
+			@Value("${customer.update.max-backoff:100ms}") Duration maxBackoff,
+			MeterRegistry meterRegistry) {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("customer.update.max-attempts must be at least 1");
+		}
+		this.maxAttempts = maxAttempts;
+		this.backoffNanos = backoff.toNanos();
+		this.maxBackoffNanos = maxBackoff.toNanos();
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Runs a transactional write, retrying it when it fails with an optimistic locking
+	 * conflict.
+	 *
+	 * The attempt must start and commit its own transaction. If the caller already runs
+	 * in a transaction, the attempt joins it and a conflict can only be resolved by the
+	 * caller, so it is made exactly once.
+	 *
+	 * @param <T>       the result type.
+	 * @param operation the name of the operation, used as the metric tag.
+	 * @param attempt   the write, run in a new transaction on every attempt.
+	 * @return the result of the first attempt that commits.
+	 * @throws OptimisticLockingFailureException if every attempt conflicted.
+	 */
+	public <T> T execute(String operation, Supplier<T> attempt) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return attempt.get();
+		}
+		for (int attempts = 1;; attempts++) {
+			try {
+				return attempt.get();
+			} catch (OptimisticLockingFailureException e) {
+				if (attempts >= maxAttempts) {
+					conflicts(operation, "exhausted").increment();
+					throw e;
+				}
+				conflicts(operation, "retried").increment();
+				backOff(attempts);
+			}
+		}
+	}
+
+	/**
+	 * Sleeps for a random time between zero and the exponential backoff of the attempt.
+	 *
+	 * @param attempts the number of attempts made so far.
+	 * @throws OptimisticLockingFailureException if the thread is interrupted while waiting.
+	 */
+	private void backOff(int attempts) {
+		long ceiling = Math.min(maxBackoffNanos, backoffNanos << Math.min(attempts - 1, 20));
+		if (ceiling <= 0) {
+			return;
+		}
+		long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+		try {
+			Thread.sleep(Duration.ofNanos(delay));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OptimisticLockingFailureException("Interrupted while waiting to retry", e);
+		}
+	}
+
+	/**
+	 * Gets the conflict counter of an operation and outcome.
+	 *
+	 * @param operation the name of the operation.
+	 * @param outcome   whether the call was retried or gave up.
+	 * @return the counter.
+	 */
+	private Counter conflicts(String operation, String outcome) {
+		return meterRegistry.counter("customer.write.conflicts", "operation", operation, "outcome", outcome);
+	}
+
+}
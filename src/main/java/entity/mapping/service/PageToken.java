@@ -0,0 +1,60 @@
+package entity.mapping.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * The PageToken class encodes and decodes the opaque next-page tokens handed out
+ * by keyset paginated endpoints.
+ *
+ * A token carries the last customer ID of the previous page. It is Base64 URL encoded
+ * so that clients treat it as an opaque value and do not build their own cursors.
+ */
+public final class PageToken {
+
+	/**
+	 * Prefix identifying the token format, so the layout can change without breaking
+	 * tokens that are still held by clients.
+	 */
+	private static final String VERSION_PREFIX = "v1:";
+
+	/**
+	 * Utility class, not meant to be instantiated.
+	 */
+	private PageToken() {
+	}
+
+	/**
+	 * Encodes the last ID of a page into a next-page token.
+	 *
+	 * @param lastId the ID of the last customer on the current page.
+	 * @return the opaque token for the following page.
+	 */
+	public static String encode(Integer lastId) {
+		String raw = VERSION_PREFIX + lastId;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Decodes a next-page token back into the last ID of the previous page.
+	 *
+	 * @param token the token received from the client, may be null or empty for the first page.
+	 * @return the ID to seek after, or 0 when no token was supplied.
+	 * @throws IllegalArgumentException if the token is malformed.
+	 */
+	public static Integer decode(String token) {
+		if (token == null || token.isEmpty()) {
+			return 0;
+		}
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			if (!raw.startsWith(VERSION_PREFIX)) {
+				throw new IllegalArgumentException("Invalid page token");
+			}
+			return Integer.valueOf(raw.substring(VERSION_PREFIX.length()));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Invalid page token", e);
+		}
+	}
+
+}
@@ -8,15 +8,20 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import entity.mapping.entity.User;
 import entity.mapping.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
 
 /**
  * The UserService class implements the UserDetailsService interface from Spring Security. 
  * It provides a way to load user-specific data for authentication.
  * This service is responsible for retrieving user details based on their email.
+ * 
+ * Every public method is timed as "service.method", tagged with the class and method.
  */
 @Service
+@Timed("service.method")
 public class UserService implements UserDetailsService {
 	
 	/**
@@ -34,6 +39,7 @@ public class UserService implements UserDetailsService {
      * @throws UsernameNotFoundException if the user is not found with the given email.
      */
 	@Override
+	@Transactional(readOnly = true)
 	public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
 		User user = userRepository.findByEmail(email);
 		if (user == null) {
@@ -0,0 +1,19 @@
+-- Customer changes are recorded in customer_outbox, in the transaction making them, and
+-- moved to the change log by the relay. Event IDs come from the pooled
+-- "customer_outbox_seq" generator, kept in a one-row table since MySQL has no sequences.
+-- The one-row customer_change_relay_lease table names the change log the outbox is
+-- relayed to; its row is created by the first relay.
+-- Run once against an existing database before starting the new version.
+CREATE TABLE IF NOT EXISTS customer_outbox (
+    id BIGINT NOT NULL PRIMARY KEY,
+    customer_id INT NOT NULL,
+    type VARCHAR(16) NOT NULL,
+    payload LONGTEXT NOT NULL
+);
+CREATE TABLE IF NOT EXISTS customer_outbox_seq (next_val BIGINT);
+INSERT INTO customer_outbox_seq (next_val) SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM customer_outbox_seq);
+CREATE TABLE IF NOT EXISTS customer_change_relay_lease (
+    id INT NOT NULL PRIMARY KEY,
+    owner VARCHAR(36),
+    lease_until DATETIME(6)
+);
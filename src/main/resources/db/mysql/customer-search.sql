@@ -0,0 +1,11 @@
+-- Customers got normalized copies of their name and phone number for /searchCustomers:
+-- name_key is lower case with collapsed whitespace, phone_digits holds only the digits.
+-- The application writes both on every change. Run once against an existing database
+-- before starting the new version. Names with accents are backfilled with their accents;
+-- they become searchable without them on their next update.
+ALTER TABLE customer ADD COLUMN name_key VARCHAR(255), ADD COLUMN phone_digits VARCHAR(255);
+UPDATE customer
+   SET name_key = NULLIF(TRIM(REGEXP_REPLACE(LOWER(name), '[[:space:]]+', ' ')), ''),
+       phone_digits = NULLIF(REGEXP_REPLACE(phonenumber, '[^0-9]', ''), '');
+CREATE INDEX idx_customer_name_key ON customer (name_key);
+CREATE INDEX idx_customer_phone_digits ON customer (phone_digits);
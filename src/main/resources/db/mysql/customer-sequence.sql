@@ -0,0 +1,8 @@
+-- Customer IDs moved from AUTO_INCREMENT to the pooled "customer_seq" generator.
+-- MySQL has no sequences, so Hibernate keeps the next value in a one-row table.
+-- Run once against an existing database before starting the new version, so that
+-- newly allocated IDs start past the rows that already exist. The extra block of
+-- 50 covers the allocation size of the pooled optimizer.
+CREATE TABLE IF NOT EXISTS customer_seq (next_val BIGINT);
+DELETE FROM customer_seq;
+INSERT INTO customer_seq (next_val) SELECT COALESCE(MAX(id), 0) + 51 FROM customer;
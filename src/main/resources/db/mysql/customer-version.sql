@@ -0,0 +1,5 @@
+-- Customers got a version column, incremented on every change of the customer, its
+-- person or its gadgets. It backs optimistic locking and the ETags of the read endpoints.
+-- Existing customers start at version 0.
+-- Run once against an existing database before starting the new version.
+ALTER TABLE customer ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,14 @@
+-- Gadget IDs moved from random UUID strings in a VARCHAR(255) column to
+-- time-ordered UUIDs stored in BINARY(16).
+-- Existing IDs are converted in place by removing the dashes and storing the hex as
+-- bytes. They keep their value, so the IDs clients already know stay valid.
+-- Only gadgets inserted afterwards are time-ordered.
+-- Run once against an existing database before starting the new version. The table
+-- is rebuilt, so run it in a maintenance window on large tables.
+ALTER TABLE gadgets ADD COLUMN gadget_id_bin BINARY(16) NULL;
+UPDATE gadgets SET gadget_id_bin = UNHEX(REPLACE(gadget_id, '-', ''));
+ALTER TABLE gadgets
+    DROP PRIMARY KEY,
+    DROP COLUMN gadget_id,
+    CHANGE COLUMN gadget_id_bin gadget_id BINARY(16) NOT NULL,
+    ADD PRIMARY KEY (gadget_id);
@@ -0,0 +1,48 @@
+package entity.mapping.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import entity.mapping.EntityMappingProject2Application;
+
+/**
+ * ApplicationState starts the application against the in-memory H2 database once per
+ * trial, for benchmarks that go through the Spring beans.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+	private ConfigurableApplicationContext context;
+
+	@Setup(Level.Trial)
+	public void start() {
+		context = new SpringApplicationBuilder(EntityMappingProject2Application.class)
+				.profiles("h2")
+				.web(WebApplicationType.NONE)
+				.logStartupInfo(false)
+				.run();
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		context.close();
+	}
+
+	/**
+	 * Gets a bean of the running application.
+	 *
+	 * @param <T>  the bean type.
+	 * @param type the bean type.
+	 * @return the bean.
+	 */
+	public <T> T getBean(Class<T> type) {
+		return context.getBean(type);
+	}
+
+}
@@ -0,0 +1,107 @@
+package entity.mapping.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.Gadgets;
+import entity.mapping.entity.Person;
+import entity.mapping.entity.TimeOrderedUuid;
+
+/**
+ * CustomerFormatBenchmark compares JSON with the binary CBOR and Smile formats offered
+ * by the customer endpoints, writing and reading a listing of customers with a person
+ * and a few gadgets each.
+ *
+ * The payload size of every format is printed when the trial starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CustomerFormatBenchmark {
+
+	private static final int GADGET_COUNT = 5;
+
+	@Param({ "json", "cbor", "smile" })
+	private String format;
+
+	@Param({ "100" })
+	private int customerCount;
+
+	private List<Customer> customers;
+
+	private byte[] payload;
+
+	private ObjectWriter writer;
+
+	private ObjectReader reader;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		ObjectMapper mapper = switch (format) {
+			case "cbor" -> new CBORMapper();
+			case "smile" -> new SmileMapper();
+			default -> new ObjectMapper();
+		};
+		TypeReference<List<Customer>> type = new TypeReference<>() {
+		};
+		writer = mapper.writerFor(type);
+		reader = mapper.readerFor(type);
+
+		customers = new ArrayList<>();
+		for (int c = 0; c < customerCount; c++) {
+			Person person = new Person();
+			person.setGender(c % 2 == 0 ? "F" : "M");
+			List<Gadgets> gadgets = new ArrayList<>();
+			for (int i = 0; i < GADGET_COUNT; i++) {
+				Gadgets gadget = new Gadgets();
+				gadget.setId(TimeOrderedUuid.next());
+				gadget.setGadget_name("gadget-" + i);
+				gadget.setYears(i + 0.5f);
+				gadgets.add(gadget);
+			}
+			Customer customer = new Customer(c + 1, "customer " + c, person, gadgets);
+			customer.setPhonenumber("555-" + (1000000 + c));
+			person.setCustomer(customer);
+			customers.add(customer);
+		}
+		payload = writer.writeValueAsBytes(customers);
+		System.out.printf("%n%s payload: %d bytes for %d customers%n", format, payload.length, customerCount);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		return writer.writeValueAsBytes(customers);
+	}
+
+	@Benchmark
+	public List<Customer> deserialize() throws IOException {
+		return reader.readValue(payload);
+	}
+
+}
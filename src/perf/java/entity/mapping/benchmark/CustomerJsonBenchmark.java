@@ -0,0 +1,88 @@
+package entity.mapping.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.Gadgets;
+import entity.mapping.entity.Person;
+import entity.mapping.entity.TimeOrderedUuid;
+
+/**
+ * CustomerJsonBenchmark measures Jackson serialization of a customer graph, including
+ * the managed and back reference between customer and person, and reading it back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CustomerJsonBenchmark {
+
+	/**
+	 * The number of gadgets of the customer.
+	 */
+	@Param({ "1", "10", "100" })
+	private int gadgetCount;
+
+	private Customer customer;
+
+	private String json;
+
+	private ObjectWriter writer;
+
+	private ObjectReader reader;
+
+	@Setup(Level.Trial)
+	public void setUp() throws JsonProcessingException {
+		ObjectMapper objectMapper = new ObjectMapper();
+		writer = objectMapper.writerFor(Customer.class);
+		reader = objectMapper.readerFor(Customer.class);
+
+		Person person = new Person();
+		person.setGender("F");
+		List<Gadgets> gadgets = new ArrayList<>();
+		for (int i = 0; i < gadgetCount; i++) {
+			Gadgets gadget = new Gadgets();
+			gadget.setId(TimeOrderedUuid.next());
+			gadget.setGadget_name("gadget-" + i);
+			gadget.setYears((float) i);
+			gadgets.add(gadget);
+		}
+		customer = new Customer(1, "customer", person, gadgets);
+		customer.setPhonenumber("555-0100");
+		person.setCustomer(customer);
+		json = writer.writeValueAsString(customer);
+	}
+
+	@Benchmark
+	public String serialize() throws JsonProcessingException {
+		return writer.writeValueAsString(customer);
+	}
+
+	@Benchmark
+	public Customer deserialize() throws JsonProcessingException {
+		return reader.readValue(json);
+	}
+
+}
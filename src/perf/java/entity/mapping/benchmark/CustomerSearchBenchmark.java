@@ -0,0 +1,99 @@
+package entity.mapping.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.Person;
+import entity.mapping.repository.CustomerRepository;
+import entity.mapping.search.CustomerSearchIndex;
+import entity.mapping.search.MatchMode;
+import entity.mapping.search.SearchField;
+import entity.mapping.service.CustomerIngestService;
+
+/**
+ * CustomerSearchBenchmark compares finding one page of matching customer IDs in the
+ * in-memory search index with the indexed database query, for a selective prefix and a
+ * selective substring of the name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CustomerSearchBenchmark {
+
+	private static final int PAGE = 21;
+
+	@Param("10000")
+	private int customers;
+
+	private CustomerSearchIndex searchIndex;
+
+	private CustomerRepository repo;
+
+	private TransactionTemplate readOnly;
+
+	@Setup(Level.Trial)
+	public void setUp(ApplicationState application) throws InterruptedException {
+		searchIndex = application.getBean(CustomerSearchIndex.class);
+		repo = application.getBean(CustomerRepository.class);
+		readOnly = new TransactionTemplate(application.getBean(PlatformTransactionManager.class));
+		readOnly.setReadOnly(true);
+
+		List<Customer> batch = new ArrayList<>();
+		for (int i = 0; i < customers; i++) {
+			Person person = new Person();
+			person.setGender("F");
+			Customer customer = new Customer(null, "customer " + Integer.toString(i * 7919, 36) + " smith" + (i % 100),
+					person, new ArrayList<>());
+			customer.setPhonenumber("555-" + (1000000 + i));
+			batch.add(customer);
+		}
+		application.getBean(CustomerIngestService.class).ingest(batch.iterator());
+		while (!searchIndex.isReady()) {
+			Thread.sleep(10);
+		}
+	}
+
+	@Benchmark
+	public List<Integer> indexPrefix() {
+		return searchIndex.search(SearchField.NAME, MatchMode.PREFIX, "customer 4b", 0, PAGE);
+	}
+
+	@Benchmark
+	public List<Integer> databasePrefix() {
+		return readOnly.execute(status -> repo.findIdsByNameKeyLike(MatchMode.PREFIX.likePattern("customer 4b"), 0,
+				Limit.of(PAGE)));
+	}
+
+	@Benchmark
+	public List<Integer> indexContains() {
+		return searchIndex.search(SearchField.NAME, MatchMode.CONTAINS, "smith42", 0, PAGE);
+	}
+
+	@Benchmark
+	public List<Integer> databaseContains() {
+		return readOnly.execute(status -> repo.findIdsByNameKeyLike(MatchMode.CONTAINS.likePattern("smith42"), 0,
+				Limit.of(PAGE)));
+	}
+
+}
@@ -0,0 +1,120 @@
+package entity.mapping.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import entity.mapping.dto.CustomerView;
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.Gadgets;
+import entity.mapping.entity.Person;
+import entity.mapping.service.CustomerService;
+
+/**
+ * CustomerServiceBenchmark measures the CRUD operations of {@link CustomerService}
+ * against H2, each on a customer with a person and a few gadgets.
+ *
+ * The read benchmarks come in pairs, managed entities against projected views; run
+ * them with {@code -prof gc} to compare the allocation per call as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CustomerServiceBenchmark {
+
+	private static final int GADGET_COUNT = 5;
+
+	/**
+	 * Customers present before the trial starts, so the listings have some size.
+	 */
+	private static final int LISTED_CUSTOMERS = 100;
+
+	private CustomerService customerService;
+
+	private Integer customerId;
+
+	private Customer update;
+
+	private long updates;
+
+	@Setup(Level.Trial)
+	public void setUp(ApplicationState application) {
+		customerService = application.getBean(CustomerService.class);
+		for (int i = 0; i < LISTED_CUSTOMERS; i++) {
+			customerService.addCustomer(newCustomer());
+		}
+		Customer customer = newCustomer();
+		customerService.addCustomer(customer);
+		customerId = customer.getId();
+		update = customerService.getCustomerById(customerId);
+	}
+
+	@Benchmark
+	public Customer create() {
+		Customer customer = newCustomer();
+		customerService.addCustomer(customer);
+		return customer;
+	}
+
+	@Benchmark
+	public Customer read() {
+		return customerService.getCustomerById(customerId);
+	}
+
+	@Benchmark
+	public CustomerView readView() {
+		return customerService.getCustomerView(customerId);
+	}
+
+	@Benchmark
+	public List<Customer> readAll() {
+		return customerService.getAllCustomers();
+	}
+
+	@Benchmark
+	public List<CustomerView> readAllViews() {
+		return customerService.getAllCustomerViews();
+	}
+
+	@Benchmark
+	public Customer updateName() {
+		update.setName("customer-" + updates++);
+		return customerService.updateCustomer(customerId, update);
+	}
+
+	@Benchmark
+	public String createAndDelete() {
+		Customer customer = newCustomer();
+		customerService.addCustomer(customer);
+		return customerService.deleteCustomer(customer.getId());
+	}
+
+	private static Customer newCustomer() {
+		Person person = new Person();
+		person.setGender("F");
+		List<Gadgets> gadgets = new ArrayList<>();
+		for (int i = 0; i < GADGET_COUNT; i++) {
+			Gadgets gadget = new Gadgets();
+			gadget.setGadget_name("gadget-" + i);
+			gadget.setYears((float) i);
+			gadgets.add(gadget);
+		}
+		return new Customer(null, "customer", person, gadgets);
+	}
+
+}
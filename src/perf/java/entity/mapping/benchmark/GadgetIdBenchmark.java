@@ -0,0 +1,44 @@
+package entity.mapping.benchmark;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import entity.mapping.entity.TimeOrderedUuid;
+
+/**
+ * GadgetIdBenchmark measures the generation of gadget IDs, single threaded and under
+ * contention, against the random UUIDs used before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GadgetIdBenchmark {
+
+	@Benchmark
+	public UUID timeOrdered() {
+		return TimeOrderedUuid.next();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public UUID timeOrderedContended() {
+		return TimeOrderedUuid.next();
+	}
+
+	@Benchmark
+	public UUID random() {
+		return UUID.randomUUID();
+	}
+
+}
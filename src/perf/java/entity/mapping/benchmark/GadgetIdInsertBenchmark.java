@@ -0,0 +1,150 @@
+package entity.mapping.benchmark;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import entity.mapping.entity.TimeOrderedUuid;
+
+/**
+ * GadgetIdInsertBenchmark compares the insert throughput of random version 4 UUIDs with
+ * the time-ordered version 7 UUIDs used for gadget IDs, both stored as BINARY(16)
+ * primary keys.
+ *
+ * Rows are inserted in JDBC batches into a table that keeps growing during the run, so
+ * the cost of scattered inserts into the primary key index shows up as the table gets
+ * larger. It runs against an in-memory H2 database by default, which keeps its index in
+ * memory and shows little difference; the page splits and buffer pool churn caused by
+ * random keys only show up on InnoDB. To measure it, pass a MySQL database, for example:
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark="GadgetIdInsertBenchmark -jvmArgsAppend
+ *     -Dbenchmark.jdbc.url=jdbc:mysql://localhost:3306/bench?rewriteBatchedStatements=true
+ *     -jvmArgsAppend -Dbenchmark.jdbc.user=root -jvmArgsAppend -Dbenchmark.jdbc.password=secret"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class GadgetIdInsertBenchmark {
+
+	/**
+	 * Number of rows inserted per batch and per benchmark invocation.
+	 */
+	private static final int BATCH_SIZE = 1000;
+
+	/**
+	 * The kind of ID under test.
+	 */
+	public enum IdType {
+		RANDOM {
+			@Override
+			UUID next() {
+				return UUID.randomUUID();
+			}
+		},
+		TIME_ORDERED {
+			@Override
+			UUID next() {
+				return TimeOrderedUuid.next();
+			}
+		};
+
+		abstract UUID next();
+	}
+
+	@Param
+	private IdType idType;
+
+	/**
+	 * Number of rows loaded before measuring, so the index starts out larger than a
+	 * few pages.
+	 */
+	@Param("100000")
+	private int preloadRows;
+
+	private Connection connection;
+
+	private PreparedStatement insert;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		connection = DriverManager.getConnection(
+				System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:gadget_ids;DB_CLOSE_DELAY=-1"),
+				System.getProperty("benchmark.jdbc.user", "sa"),
+				System.getProperty("benchmark.jdbc.password", ""));
+		connection.setAutoCommit(false);
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("DROP TABLE IF EXISTS gadgets_benchmark");
+			statement.execute("CREATE TABLE gadgets_benchmark (gadget_id BINARY(16) NOT NULL PRIMARY KEY, "
+					+ "gadget_name VARCHAR(255), years FLOAT, customer_id INT NOT NULL)");
+		}
+		connection.commit();
+		insert = connection.prepareStatement(
+				"INSERT INTO gadgets_benchmark (gadget_id, gadget_name, years, customer_id) VALUES (?, ?, ?, ?)");
+		for (int loaded = 0; loaded < preloadRows; loaded += BATCH_SIZE) {
+			insertBatch();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("DROP TABLE gadgets_benchmark");
+		}
+		connection.commit();
+		connection.close();
+	}
+
+	/**
+	 * Inserts one batch of gadgets and commits it.
+	 *
+	 * @return the number of rows inserted.
+	 * @throws SQLException if the insert fails.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public int insertBatch() throws SQLException {
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			insert.setBytes(1, toBytes(idType.next()));
+			insert.setString(2, "gadget-" + i);
+			insert.setFloat(3, i % 10);
+			insert.setInt(4, i);
+			insert.addBatch();
+		}
+		int rows = insert.executeBatch().length;
+		connection.commit();
+		return rows;
+	}
+
+	private static byte[] toBytes(UUID id) {
+		return ByteBuffer.allocate(16)
+				.putLong(id.getMostSignificantBits())
+				.putLong(id.getLeastSignificantBits())
+				.array();
+	}
+
+}
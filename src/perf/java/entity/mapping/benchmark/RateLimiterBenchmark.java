@@ -0,0 +1,64 @@
+package entity.mapping.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import entity.mapping.ratelimit.RateLimiter;
+
+/**
+ * RateLimiterBenchmark measures the cost of a rate limit check per request: one hot key
+ * hammered by several threads, and requests spread over many clients.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+	private static final int CLIENTS = 10_000;
+
+	private RateLimiter limiter;
+
+	private String[] keys;
+
+	@Setup
+	public void setUp() {
+		limiter = new RateLimiter(1_000_000, 1_000_000, 100_000);
+		keys = new String[CLIENTS];
+		for (int i = 0; i < CLIENTS; i++) {
+			keys[i] = "user:client-" + i + "@example.com";
+		}
+	}
+
+	@Benchmark
+	public long singleKey() {
+		return limiter.tryAcquire(keys[0]);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public long singleKeyContended() {
+		return limiter.tryAcquire(keys[0]);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public long manyKeys() {
+		return limiter.tryAcquire(keys[ThreadLocalRandom.current().nextInt(CLIENTS)]);
+	}
+
+}
@@ -0,0 +1,73 @@
+package entity.mapping.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import entity.mapping.entity.User;
+import entity.mapping.repository.UserRepository;
+import entity.mapping.service.MyUserDetails;
+import entity.mapping.service.UserService;
+
+/**
+ * UserDetailsBenchmark measures how user details are built on the authentication path:
+ * the construction of {@link MyUserDetails} with its role splitting, and
+ * {@link UserService#loadUserByUsername(String)} against H2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserDetailsBenchmark {
+
+	private static final String EMAIL = "benchmark@example.com";
+
+	/**
+	 * The comma separated roles of the user.
+	 */
+	@Param({ "ROLE_USER", "ROLE_USER,ROLE_ADMIN,ROLE_AUDITOR,ROLE_SUPPORT" })
+	private String roles;
+
+	private User user;
+
+	private UserService userService;
+
+	@Setup(Level.Trial)
+	public void setUp(ApplicationState application) {
+		user = new User();
+		user.setUserName("benchmark");
+		user.setEmail(EMAIL);
+		user.setPassword("{noop}password");
+		user.setRole(roles);
+
+		UserRepository userRepository = application.getBean(UserRepository.class);
+		userRepository.deleteAll();
+		userRepository.save(user);
+		userService = application.getBean(UserService.class);
+	}
+
+	@Benchmark
+	public MyUserDetails constructUserDetails() {
+		return new MyUserDetails(user);
+	}
+
+	@Benchmark
+	public UserDetails loadUserByUsername() {
+		return userService.loadUserByUsername(EMAIL);
+	}
+
+}
@@ -0,0 +1,84 @@
+package entity.mapping.load;
+
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * EndpointReport holds the measured outcome of loading one endpoint. Latencies are
+ * recorded in microseconds and reported in milliseconds.
+ */
+public class EndpointReport {
+
+	private final String endpoint;
+
+	private final String mode;
+
+	private final long requests;
+
+	private final long errors;
+
+	private final double elapsedSeconds;
+
+	private final Histogram histogram;
+
+	public EndpointReport(String endpoint, String mode, long requests, long errors, long elapsedNanos,
+			Histogram histogram) {
+		this.endpoint = endpoint;
+		this.mode = mode;
+		this.requests = requests;
+		this.errors = errors;
+		this.elapsedSeconds = elapsedNanos / 1e9;
+		this.histogram = histogram;
+	}
+
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	public String getMode() {
+		return mode;
+	}
+
+	public long getRequests() {
+		return requests;
+	}
+
+	public long getErrors() {
+		return errors;
+	}
+
+	public double getElapsedSeconds() {
+		return elapsedSeconds;
+	}
+
+	public double getThroughput() {
+		return elapsedSeconds > 0 ? requests / elapsedSeconds : 0;
+	}
+
+	public double getP50Millis() {
+		return percentile(50);
+	}
+
+	public double getP99Millis() {
+		return percentile(99);
+	}
+
+	public double getP999Millis() {
+		return percentile(99.9);
+	}
+
+	public double getMaxMillis() {
+		return histogram.getMaxValue() / 1000d;
+	}
+
+	@JsonIgnore
+	public Histogram getHistogram() {
+		return histogram;
+	}
+
+	private double percentile(double percentile) {
+		return histogram.getValueAtPercentile(percentile) / 1000d;
+	}
+
+}
@@ -0,0 +1,173 @@
+package entity.mapping.load;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * LoadGenerator drives requests against one endpoint and records their latency.
+ *
+ * In closed loop mode a fixed number of clients each send a request and wait for the
+ * response before sending the next one, which finds the throughput ceiling. In open loop
+ * mode requests are started at a fixed rate whether or not earlier ones have completed,
+ * and latency is measured from the time a request was due rather than the time it was
+ * actually sent, so a stalled server shows up in the percentiles instead of silently
+ * lowering the request rate.
+ */
+public class LoadGenerator {
+
+	/**
+	 * Highest latency that can be recorded, in microseconds.
+	 */
+	private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+
+	private final LoadOptions options;
+
+	public LoadGenerator(LoadOptions options) {
+		this.options = options;
+	}
+
+	/**
+	 * Warms the endpoint up, then loads it for the configured duration.
+	 *
+	 * @param endpoint the endpoint name, for the report.
+	 * @param requests supplies the next request, or null once the workload is exhausted.
+	 * @return the measured outcome.
+	 * @throws InterruptedException if interrupted while waiting for the clients.
+	 */
+	public EndpointReport run(String endpoint, Supplier<HttpRequest> requests) throws InterruptedException {
+		if (!options.getWarmup().isZero()) {
+			load(requests, options.getWarmup());
+		}
+		Phase phase = load(requests, options.getDuration());
+		return new EndpointReport(endpoint, options.describeMode(), phase.requests.sum(), phase.errors.sum(),
+				phase.elapsedNanos, phase.histogram);
+	}
+
+	/**
+	 * Sends a single request outside of any measurement.
+	 *
+	 * @param request the request.
+	 * @return the response body.
+	 * @throws IOException          if the request fails or returns an error status.
+	 * @throws InterruptedException if interrupted while waiting for the response.
+	 */
+	public String send(HttpRequest request) throws IOException, InterruptedException {
+		HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+		if (response.statusCode() >= 400) {
+			throw new IOException(request.method() + " " + request.uri() + " returned " + response.statusCode());
+		}
+		return response.body();
+	}
+
+	private Phase load(Supplier<HttpRequest> requests, Duration duration) throws InterruptedException {
+		return options.isOpenLoop() ? openLoop(requests, duration) : closedLoop(requests, duration);
+	}
+
+	private Phase closedLoop(Supplier<HttpRequest> requests, Duration duration) throws InterruptedException {
+		Phase phase = new Phase();
+		long start = System.nanoTime();
+		long deadline = start + duration.toNanos();
+		ExecutorService clients = Executors.newFixedThreadPool(options.getConcurrency());
+		for (int i = 0; i < options.getConcurrency(); i++) {
+			clients.execute(() -> {
+				HttpRequest request;
+				while (System.nanoTime() < deadline && (request = requests.get()) != null) {
+					long sent = System.nanoTime();
+					try {
+						HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+						phase.record(sent, response, null);
+					} catch (IOException e) {
+						phase.record(sent, null, e);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			});
+		}
+		clients.shutdown();
+		if (!clients.awaitTermination(duration.toMillis() + TimeUnit.MINUTES.toMillis(1), TimeUnit.MILLISECONDS)) {
+			clients.shutdownNow();
+		}
+		phase.elapsedNanos = System.nanoTime() - start;
+		return phase;
+	}
+
+	private Phase openLoop(Supplier<HttpRequest> requests, Duration duration) throws InterruptedException {
+		Phase phase = new Phase();
+		long intervalNanos = (long) (1e9 / options.getRate());
+		long start = System.nanoTime();
+		List<CompletableFuture<?>> inFlight = new ArrayList<>();
+		for (long i = 0;; i++) {
+			long due = start + i * intervalNanos;
+			if (due - start >= duration.toNanos()) {
+				break;
+			}
+			long wait;
+			while ((wait = due - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			HttpRequest request = requests.get();
+			if (request == null) {
+				break;
+			}
+			inFlight.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+					.whenComplete((response, failure) -> phase.record(due, response, failure)));
+		}
+		try {
+			CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).get(1, TimeUnit.MINUTES);
+		} catch (ExecutionException e) {
+			// failures are already counted per request
+		} catch (TimeoutException e) {
+			System.err.println("Some requests did not complete within a minute after the run");
+		}
+		phase.elapsedNanos = System.nanoTime() - start;
+		return phase;
+	}
+
+	/**
+	 * The counters of one warm-up or measurement phase.
+	 */
+	private static class Phase {
+
+		final Histogram histogram = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+
+		final LongAdder requests = new LongAdder();
+
+		final LongAdder errors = new LongAdder();
+
+		long elapsedNanos;
+
+		void record(long startNanos, HttpResponse<?> response, Throwable failure) {
+			long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+			histogram.recordValue(Math.min(Math.max(micros, 1), MAX_LATENCY_MICROS));
+			requests.increment();
+			if (failure != null || response.statusCode() >= 400) {
+				errors.increment();
+			}
+		}
+	}
+
+}
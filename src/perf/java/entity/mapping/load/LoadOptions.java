@@ -0,0 +1,163 @@
+package entity.mapping.load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * LoadOptions holds the settings of a load test run, parsed from {@code --name=value}
+ * command line arguments.
+ *
+ * <pre>
+ * --mode=closed|open       closed loop with a fixed number of clients, or open loop with a
+ *                          fixed arrival rate (default closed)
+ * --concurrency=16         number of clients in closed loop mode
+ * --rate=200               requests per second in open loop mode
+ * --warmup=5s              time run and discarded before every measurement
+ * --duration=30s           measured time per endpoint
+ * --customers=1000         customers created before the run
+ * --delete-pool=20000      customers created for the delete workload
+ * --endpoints=a,b,...      endpoints to load, default all
+ * --threads=platform|virtual|both  serve requests on Tomcat platform threads, on
+ *                          virtual threads (the "virtual" profile), or run both one after
+ *                          the other to compare them (default platform)
+ * --report=target/load-report  directory the report is written to
+ * </pre>
+ */
+public class LoadOptions {
+
+	/**
+	 * All endpoints, in the order they are loaded by default. Endpoints that add or
+	 * remove customers run last, so they do not change the data the others read.
+	 */
+	public static final List<String> ALL_ENDPOINTS = List.of("login", "getCustomer", "getAllCustomers",
+			"updateCustomer", "addCustomer", "deleteCustomer");
+
+	private final boolean openLoop;
+
+	private final int concurrency;
+
+	private final double rate;
+
+	private final Duration warmup;
+
+	private final Duration duration;
+
+	private final int customers;
+
+	private final int deletePool;
+
+	private final List<String> endpoints;
+
+	private final List<String> threadModes;
+
+	private final Path reportDirectory;
+
+	private LoadOptions(Map<String, String> values) {
+		String mode = values.getOrDefault("mode", "closed");
+		if (!mode.equals("closed") && !mode.equals("open")) {
+			throw new IllegalArgumentException("--mode must be closed or open");
+		}
+		this.openLoop = mode.equals("open");
+		this.concurrency = Integer.parseInt(values.getOrDefault("concurrency", "16"));
+		this.rate = Double.parseDouble(values.getOrDefault("rate", "200"));
+		this.warmup = DurationStyle.detectAndParse(values.getOrDefault("warmup", "5s"));
+		this.duration = DurationStyle.detectAndParse(values.getOrDefault("duration", "30s"));
+		this.customers = Integer.parseInt(values.getOrDefault("customers", "1000"));
+		this.deletePool = Integer.parseInt(values.getOrDefault("delete-pool", "20000"));
+		this.endpoints = values.containsKey("endpoints") ? List.of(values.get("endpoints").split(",")) : ALL_ENDPOINTS;
+		this.reportDirectory = Path.of(values.getOrDefault("report", "target/load-report"));
+		String threads = values.getOrDefault("threads", "platform");
+		if (!List.of("platform", "virtual", "both").contains(threads)) {
+			throw new IllegalArgumentException("--threads must be platform, virtual or both");
+		}
+		this.threadModes = threads.equals("both") ? List.of("platform", "virtual") : List.of(threads);
+
+		for (String endpoint : endpoints) {
+			if (!ALL_ENDPOINTS.contains(endpoint)) {
+				throw new IllegalArgumentException("Unknown endpoint " + endpoint + ", expected one of " + ALL_ENDPOINTS);
+			}
+		}
+		if (concurrency < 1 || rate <= 0 || customers < 1) {
+			throw new IllegalArgumentException("--concurrency, --rate and --customers must be positive");
+		}
+	}
+
+	/**
+	 * Parses the command line arguments.
+	 *
+	 * @param args the arguments, each of the form {@code --name=value}.
+	 * @return the options.
+	 * @throws IllegalArgumentException if an argument is malformed or out of range.
+	 */
+	public static LoadOptions parse(String[] args) {
+		Map<String, String> values = new HashMap<>();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (!arg.startsWith("--") || separator < 0) {
+				throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+			}
+			values.put(arg.substring(2, separator), arg.substring(separator + 1));
+		}
+		return new LoadOptions(values);
+	}
+
+	public boolean isOpenLoop() {
+		return openLoop;
+	}
+
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	public double getRate() {
+		return rate;
+	}
+
+	public Duration getWarmup() {
+		return warmup;
+	}
+
+	public Duration getDuration() {
+		return duration;
+	}
+
+	public int getCustomers() {
+		return customers;
+	}
+
+	public int getDeletePool() {
+		return deletePool;
+	}
+
+	public List<String> getEndpoints() {
+		return endpoints;
+	}
+
+	/**
+	 * Gets the thread modes to run, each in its own application instance.
+	 *
+	 * @return "platform", "virtual", or both in that order.
+	 */
+	public List<String> getThreadModes() {
+		return threadModes;
+	}
+
+	public Path getReportDirectory() {
+		return reportDirectory;
+	}
+
+	/**
+	 * Describes the workload shape for the report.
+	 *
+	 * @return the mode with its concurrency or arrival rate.
+	 */
+	public String describeMode() {
+		return openLoop ? "open loop, " + rate + " req/s" : "closed loop, " + concurrency + " clients";
+	}
+
+}
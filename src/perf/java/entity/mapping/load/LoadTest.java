@@ -0,0 +1,259 @@
+package entity.mapping.load;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import entity.mapping.EntityMappingProject2Application;
+
+/**
+ * LoadTest starts the application on a random port against the in-memory H2 database
+ * and loads its REST endpoints one after the other, so the throughput ceiling and
+ * latency percentiles of every endpoint can be measured on a single machine without
+ * any external services.
+ *
+ * The report is printed and written to the report directory as {@code report.json},
+ * plus one HdrHistogram percentile distribution per endpoint ({@code <endpoint>.hgrm}).
+ * With {@code --threads=both} the application is started twice, on platform and then on
+ * virtual threads, and each mode gets its own report subdirectory. Per-client rate
+ * limits are disabled, since all load comes from a single client.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:java@load -Dexec.args="--mode=open --rate=500 --duration=60s"
+ * mvn -Pbenchmark test-compile exec:java@load -Dexec.args="--threads=both --concurrency=1000"
+ * </pre>
+ *
+ * @see LoadOptions for the available options.
+ */
+public class LoadTest {
+
+	private static final String LOGIN_EMAIL = "load-test@example.com";
+
+	private static final String LOGIN_PASSWORD = "load-test-password";
+
+	/**
+	 * Number of customers whose current state is fetched up front for the update workload.
+	 */
+	private static final int UPDATE_TARGETS = 100;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final URI baseUri;
+
+	private final LoadOptions options;
+
+	private final String threads;
+
+	private final Path reportDirectory;
+
+	private final LoadGenerator generator;
+
+	private final AtomicLong sequence = new AtomicLong();
+
+	private List<Integer> customerIds;
+
+	public LoadTest(URI baseUri, LoadOptions options, String threads, Path reportDirectory) {
+		this.baseUri = baseUri;
+		this.options = options;
+		this.threads = threads;
+		this.reportDirectory = reportDirectory;
+		this.generator = new LoadGenerator(options);
+	}
+
+	public static void main(String[] args) throws Exception {
+		LoadOptions options = LoadOptions.parse(args);
+		for (String threads : options.getThreadModes()) {
+			String[] profiles = threads.equals("virtual") ? new String[] { "h2", "virtual" } : new String[] { "h2" };
+			try (ConfigurableApplicationContext context = new SpringApplicationBuilder(EntityMappingProject2Application.class)
+					.profiles(profiles)
+					.properties("server.port=0", "logging.level.root=WARN", "ratelimit.enabled=false")
+					.logStartupInfo(false)
+					.run()) {
+				int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+				Path reportDirectory = options.getThreadModes().size() > 1
+						? options.getReportDirectory().resolve(threads)
+						: options.getReportDirectory();
+				System.out.println("Serving requests on " + threads + " threads");
+				new LoadTest(URI.create("http://localhost:" + port), options, threads, reportDirectory).run();
+			}
+		}
+	}
+
+	/**
+	 * Seeds the data, loads every selected endpoint and writes the report.
+	 *
+	 * @throws IOException          if seeding or writing the report fails.
+	 * @throws InterruptedException if interrupted during the run.
+	 */
+	public void run() throws IOException, InterruptedException {
+		generator.send(post("/register", Map.of("userName", "load-test", "email", LOGIN_EMAIL,
+				"password", LOGIN_PASSWORD)));
+		customerIds = seedCustomers(options.getCustomers());
+
+		List<EndpointReport> reports = new ArrayList<>();
+		for (String endpoint : options.getEndpoints()) {
+			System.out.println("Loading " + endpoint + " (" + options.describeMode() + ")");
+			reports.add(generator.run(endpoint, workload(endpoint)));
+		}
+		print(reports, System.out);
+		write(reports);
+	}
+
+	/**
+	 * Builds the request supplier of an endpoint.
+	 *
+	 * @param endpoint the endpoint name.
+	 * @return the supplier of requests.
+	 * @throws IOException          if preparing the workload fails.
+	 * @throws InterruptedException if interrupted while preparing the workload.
+	 */
+	private Supplier<HttpRequest> workload(String endpoint) throws IOException, InterruptedException {
+		switch (endpoint) {
+		case "login":
+			HttpRequest login = post("/login", Map.of("email", LOGIN_EMAIL, "password", LOGIN_PASSWORD));
+			return () -> login;
+		case "getCustomer":
+			return () -> get("/getCustomer/" + randomCustomerId());
+		case "getAllCustomers":
+			HttpRequest getAll = get("/getAllCustomers");
+			return () -> getAll;
+		case "updateCustomer":
+			List<ObjectNode> targets = new ArrayList<>();
+			for (Integer id : customerIds.subList(0, Math.min(UPDATE_TARGETS, customerIds.size()))) {
+				targets.add((ObjectNode) objectMapper.readTree(generator.send(get("/getCustomer/" + id))));
+			}
+			return () -> {
+				ObjectNode customer = targets.get(ThreadLocalRandom.current().nextInt(targets.size())).deepCopy();
+				customer.put("name", "updated-" + sequence.incrementAndGet());
+				return put("/updateCustomer/" + customer.get("id").asInt(), customer);
+			};
+		case "addCustomer":
+			return () -> post("/addCustomer", newCustomer());
+		case "deleteCustomer":
+			Queue<Integer> pool = new ConcurrentLinkedQueue<>(seedCustomers(options.getDeletePool()));
+			return () -> {
+				Integer id = pool.poll();
+				return id == null ? null : request("/deleteCustomer/" + id).DELETE().build();
+			};
+		default:
+			throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+		}
+	}
+
+	/**
+	 * Creates customers through the bulk endpoint.
+	 *
+	 * @param count the number of customers.
+	 * @return the IDs of the created customers.
+	 * @throws IOException          if the request fails.
+	 * @throws InterruptedException if interrupted while waiting for the response.
+	 */
+	private List<Integer> seedCustomers(int count) throws IOException, InterruptedException {
+		StringBuilder body = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			body.append(objectMapper.writeValueAsString(newCustomer())).append('\n');
+		}
+		JsonNode result = objectMapper.readTree(generator.send(request("/bulkAddCustomers")
+				.header("Content-Type", "application/x-ndjson")
+				.POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+				.build()));
+		List<Integer> ids = new ArrayList<>(count);
+		for (JsonNode record : result.get("results")) {
+			if (record.hasNonNull("id")) {
+				ids.add(record.get("id").asInt());
+			}
+		}
+		return ids;
+	}
+
+	private Map<String, Object> newCustomer() {
+		long n = sequence.incrementAndGet();
+		List<Map<String, Object>> gadgets = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			gadgets.add(Map.of("gadget_name", "gadget-" + i, "years", i));
+		}
+		return Map.of("name", "customer-" + n, "phonenumber", "555-" + n,
+				"person", Map.of("gender", n % 2 == 0 ? "F" : "M"), "gadgets", gadgets);
+	}
+
+	private Integer randomCustomerId() {
+		return customerIds.get(ThreadLocalRandom.current().nextInt(customerIds.size()));
+	}
+
+	private HttpRequest.Builder request(String path) {
+		return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(Duration.ofSeconds(30));
+	}
+
+	private HttpRequest get(String path) {
+		return request(path).GET().build();
+	}
+
+	private HttpRequest post(String path, Object body) {
+		return request(path).header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(json(body))).build();
+	}
+
+	private HttpRequest put(String path, Object body) {
+		return request(path).header("Content-Type", "application/json")
+				.PUT(HttpRequest.BodyPublishers.ofString(json(body))).build();
+	}
+
+	private String json(Object body) {
+		try {
+			return objectMapper.writeValueAsString(body);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void print(List<EndpointReport> reports, PrintStream out) {
+		out.printf("%n%-16s %9s %7s %10s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s",
+				"p50 ms", "p99 ms", "p99.9 ms", "max ms");
+		for (EndpointReport report : reports) {
+			out.printf("%-16s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n", report.getEndpoint(), report.getRequests(),
+					report.getErrors(), report.getThroughput(), report.getP50Millis(), report.getP99Millis(),
+					report.getP999Millis(), report.getMaxMillis());
+		}
+	}
+
+	private void write(List<EndpointReport> reports) throws IOException {
+		Files.createDirectories(reportDirectory);
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("mode", options.describeMode());
+		report.put("threads", threads);
+		report.put("durationSeconds", options.getDuration().toSeconds());
+		report.put("customers", options.getCustomers());
+		report.put("endpoints", reports);
+		objectMapper.writerWithDefaultPrettyPrinter()
+				.writeValue(reportDirectory.resolve("report.json").toFile(), report);
+
+		for (EndpointReport endpoint : reports) {
+			try (PrintStream out = new PrintStream(
+					Files.newOutputStream(reportDirectory.resolve(endpoint.getEndpoint() + ".hgrm")))) {
+				endpoint.getHistogram().outputPercentileDistribution(out, 1000.0);
+			}
+		}
+		System.out.println("Report written to " + reportDirectory.toAbsolutePath());
+	}
+
+}
@@ -0,0 +1,44 @@
+package entity.mapping;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hibernate statement inspector that records every SQL statement prepared by the
+ * application, so tests can put a budget on the number of statements a call issues.
+ *
+ * Enable it with the property
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector=entity.mapping.SqlStatementRecorder}.
+ */
+public class SqlStatementRecorder implements StatementInspector {
+
+	private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+	@Override
+	public String inspect(String sql) {
+		STATEMENTS.add(sql);
+		return sql;
+	}
+
+	/**
+	 * Runs the call and fails if it prepares more statements than the budget allows.
+	 *
+	 * @param budget the maximum number of statements the call may issue.
+	 * @param call   the call to measure.
+	 * @return the result of the call.
+	 */
+	public static <T> T assertWithinBudget(int budget, Supplier<T> call) {
+		STATEMENTS.clear();
+		T result = call.get();
+		List<String> issued = List.copyOf(STATEMENTS);
+		assertTrue(issued.size() <= budget, () -> "Expected at most " + budget + " statements but "
+				+ issued.size() + " were issued:\n" + String.join("\n", issued));
+		return result;
+	}
+
+}
@@ -0,0 +1,91 @@
+package entity.mapping.authenticateprovider;
+
+import static entity.mapping.SqlStatementRecorder.assertWithinBudget;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import entity.mapping.entity.User;
+import entity.mapping.repository.UserRepository;
+
+/**
+ * Verifies that verified credentials and unknown emails are served from the
+ * authentication cache, and that changing a user evicts its entry.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=entity.mapping.SqlStatementRecorder")
+@ActiveProfiles("h2")
+class CustomAuthenticationProviderTests {
+
+	@Autowired
+	private CustomAuthenticationProvider provider;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Test
+	void repeatedAuthenticationSkipsTheDatabase() {
+		registerUser("cached@example.com", "secret");
+		provider.authenticate(token("cached@example.com", "secret"));
+
+		Authentication authentication = assertWithinBudget(0,
+				() -> provider.authenticate(token("cached@example.com", "secret")));
+
+		assertEquals("cached@example.com", authentication.getName());
+		assertEquals("ROLE_USER", authentication.getAuthorities().iterator().next().getAuthority());
+	}
+
+	@Test
+	void wrongPasswordIsRejectedEvenWhenCached() {
+		registerUser("wrong@example.com", "secret");
+		provider.authenticate(token("wrong@example.com", "secret"));
+
+		assertThrows(BadCredentialsException.class, () -> provider.authenticate(token("wrong@example.com", "guess")));
+	}
+
+	@Test
+	void unknownEmailIsCachedNegativelyUntilRegistered() {
+		assertThrows(BadCredentialsException.class, () -> provider.authenticate(token("late@example.com", "secret")));
+		assertWithinBudget(0, () -> assertThrows(BadCredentialsException.class,
+				() -> provider.authenticate(token("late@example.com", "secret"))));
+
+		registerUser("late@example.com", "secret");
+
+		assertEquals("late@example.com", provider.authenticate(token("late@example.com", "secret")).getName());
+	}
+
+	@Test
+	void passwordChangeEvictsCachedCredentials() {
+		User user = registerUser("change@example.com", "old");
+		provider.authenticate(token("change@example.com", "old"));
+
+		user.setPassword(passwordEncoder.encode("new"));
+		userRepository.save(user);
+
+		assertThrows(BadCredentialsException.class, () -> provider.authenticate(token("change@example.com", "old")));
+		assertEquals("change@example.com", provider.authenticate(token("change@example.com", "new")).getName());
+	}
+
+	private User registerUser(String email, String password) {
+		User user = new User();
+		user.setEmail(email);
+		user.setPassword(passwordEncoder.encode(password));
+		user.setRole("ROLE_USER");
+		return userRepository.save(user);
+	}
+
+	private static UsernamePasswordAuthenticationToken token(String email, String password) {
+		return new UsernamePasswordAuthenticationToken(email, password);
+	}
+
+}
@@ -0,0 +1,91 @@
+package entity.mapping.bulkhead;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveLimiterTests {
+
+	private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	@Test
+	void rejectsWhenTheQueueIsFullOrTheWaitTimesOut() {
+		AdaptiveLimiter limiter = limiter(1, 0, false);
+		limiter.acquire();
+		assertThrows(BulkheadRejectedException.class, limiter::acquire);
+		assertEquals(1, limiter.getRejectedQueueFull());
+
+		AdaptiveLimiter queueing = limiter(1, 1, false);
+		queueing.acquire();
+		assertThrows(BulkheadRejectedException.class, queueing::acquire);
+		assertEquals(1, queueing.getRejectedTimeout());
+		assertEquals(0, queueing.getQueued());
+	}
+
+	@Test
+	void queuedCallIsAdmittedWhenAPermitIsReleased() throws Exception {
+		AdaptiveLimiter limiter = new AdaptiveLimiter("test", 1, 1, 1, 1, Duration.ofSeconds(5), false, 2.0,
+				Duration.ofSeconds(1));
+		limiter.acquire();
+
+		CompletableFuture<Void> waiter = CompletableFuture.runAsync(limiter::acquire);
+		while (limiter.getQueued() == 0) {
+			Thread.onSpinWait();
+		}
+		limiter.release(MILLIS);
+
+		waiter.get(5, TimeUnit.SECONDS);
+		assertEquals(1, limiter.getInFlight());
+	}
+
+	@Test
+	void limitShrinksWhenLatencyDegradesAndGrowsWhenSaturated() {
+		AdaptiveLimiter limiter = limiter(10, 0, true);
+		runWindow(limiter, 10, MILLIS);
+		assertEquals(10, limiter.getLimit());
+
+		runWindow(limiter, 10, 10 * MILLIS);
+		assertEquals(7, limiter.getLimit());
+
+		runWindow(limiter, 7, MILLIS);
+		assertEquals(8, limiter.getLimit());
+	}
+
+	@Test
+	void unsampledCallsDoNotAdaptTheLimit() {
+		AdaptiveLimiter limiter = limiter(10, 0, true);
+		runWindow(limiter, 10, MILLIS);
+
+		for (int i = 0; i < 50; i++) {
+			limiter.acquire();
+			limiter.release();
+		}
+		assertEquals(10, limiter.getLimit());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+	private static AdaptiveLimiter limiter(int limit, int maxQueue, boolean adaptive) {
+		return new AdaptiveLimiter("test", limit, 1, 16, maxQueue, Duration.ofMillis(20), adaptive, 2.0,
+				Duration.ofSeconds(1));
+	}
+
+	/**
+	 * Runs a window of calls that all hold a permit at once, so the limit is reached.
+	 */
+	private static void runWindow(AdaptiveLimiter limiter, int concurrency, long latencyNanos) {
+		for (int round = 0; round < 10; round += concurrency) {
+			for (int i = 0; i < concurrency; i++) {
+				limiter.acquire();
+			}
+			for (int i = 0; i < concurrency; i++) {
+				limiter.release(latencyNanos);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+package entity.mapping.bulkhead;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+/**
+ * Verifies that a saturated bulkhead answers with 503 and Retry-After, both for a
+ * customer query and for a credential check made by HTTP Basic or /login.
+ */
+@SpringBootTest(properties = {
+		"bulkhead.adaptive=false",
+		"bulkhead.retry-after=3s",
+		"bulkhead.read.limit=1",
+		"bulkhead.read.max-queue=0",
+		"bulkhead.login.limit=1",
+		"bulkhead.login.max-queue=0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class BulkheadRejectionTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BulkheadRegistry bulkheadRegistry;
+
+	@Test
+	void saturatedReadBulkheadAnswersServiceUnavailable() throws Exception {
+		assertRejectedWhileSaturated(BulkheadRegistry.READ, get("/getCustomer/1"));
+	}
+
+	@Test
+	void saturatedLoginBulkheadAnswersServiceUnavailable() throws Exception {
+		assertRejectedWhileSaturated(BulkheadRegistry.LOGIN,
+				get("/user").with(httpBasic("basic-uncached@example.com", "secret")));
+		assertRejectedWhileSaturated(BulkheadRegistry.LOGIN, post("/login")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"email\":\"login-uncached@example.com\",\"password\":\"secret\"}"));
+	}
+
+	private void assertRejectedWhileSaturated(String bulkhead, RequestBuilder request) throws Exception {
+		AdaptiveLimiter limiter = bulkheadRegistry.get(bulkhead);
+		limiter.acquire();
+		try {
+			mockMvc.perform(request)
+					.andExpect(status().isServiceUnavailable())
+					.andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"));
+		} finally {
+			limiter.release(0);
+		}
+	}
+
+}
@@ -0,0 +1,285 @@
+package entity.mapping.changelog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entity.mapping.dto.CustomerChange;
+import entity.mapping.dto.CustomerChangePage;
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.CustomerChangeRelayLease;
+import entity.mapping.entity.CustomerOutboxEvent.Type;
+import entity.mapping.entity.Gadgets;
+import entity.mapping.entity.Person;
+import entity.mapping.repository.CustomerChangeRelayLeaseRepository;
+import entity.mapping.repository.CustomerOutboxRepository;
+import entity.mapping.repository.CustomerRepository;
+import entity.mapping.service.CustomerIngestService;
+import entity.mapping.service.CustomerService;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Verifies that committed customer changes reach the change log exactly once and in
+ * order, that the log survives a restart with a torn last append, that the outbox is
+ * only relayed to the log holding the relay lease, and that concurrent updates conflict
+ * with retryable exceptions while changes are recorded.
+ */
+@SpringBootTest(properties = {
+		"customer.changes.enabled=true",
+		"customer.changes.dir=target/customer-changes-${random.uuid}",
+		"customer.changes.segment-size=4KB",
+		"customer.changes.relay.interval=100ms"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class CustomerChangeLogTests {
+
+	@Autowired
+	private CustomerChangeLog changeLog;
+
+	@Autowired
+	private CustomerChangeRelay relay;
+
+	@Autowired
+	private CustomerService service;
+
+	@Autowired
+	private CustomerIngestService ingestService;
+
+	@Autowired
+	private CustomerOutboxRepository outboxRepo;
+
+	@Autowired
+	private CustomerChangeRelayLeaseRepository leaseRepo;
+
+	@Autowired
+	private CustomerRepository customerRepo;
+
+	@Autowired
+	private CustomerOutbox outbox;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+	@Test
+	void recordsCommittedChangesInOrder() throws Exception {
+		long from = changeLog.getEndOffset();
+		Customer customer = newCustomer("created");
+		service.addCustomer(customer);
+		Integer id = customer.getId();
+		service.patchCustomer(id, objectMapper.readTree("{\"name\":\"patched\"}"));
+		Customer update = newCustomer("updated");
+		service.updateCustomer(id, update);
+		assertThrows(EntityNotFoundException.class,
+				() -> service.patchCustomer(-1, objectMapper.readTree("{\"name\":\"missing\"}")));
+		service.deleteCustomer(id);
+
+		List<CustomerChange> changes = awaitChanges(from, 4);
+		assertEquals(List.of(Type.CREATED, Type.UPDATED, Type.UPDATED, Type.DELETED),
+				changes.stream().map(CustomerChange::type).toList());
+		assertTrue(changes.stream().allMatch(change -> id.equals(change.customerId())));
+		assertEquals("created", changes.get(0).customer().name());
+		assertEquals("patched", changes.get(1).customer().name());
+		assertEquals("updated", changes.get(2).customer().name());
+		assertNull(changes.get(3).customer());
+		assertEquals(from + 3, changes.get(3).offset());
+		assertTrue(changes.get(0).version() < changes.get(1).version());
+		assertTrue(changes.get(1).version() < changes.get(2).version());
+
+		String body = mockMvc.perform(get("/customerChanges").param("fromOffset", Long.toString(from)).param("limit", "2"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.changes.length()").value(2))
+				.andExpect(jsonPath("$.nextOffset").value(from + 2))
+				.andExpect(jsonPath("$.logId").value(changeLog.getLogId()))
+				.andReturn().getResponse().getContentAsString();
+		assertEquals(changes.subList(0, 2), objectMapper.readValue(body, CustomerChangePage.class).changes());
+		mockMvc.perform(get("/customerChanges").param("fromOffset", Long.toString(changeLog.getEndOffset() + 1)))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void survivesRestartWithTornAppend() throws Exception {
+		long from = changeLog.getEndOffset();
+		List<Customer> customers = new ArrayList<>();
+		for (int i = 0; i < 60; i++) {
+			customers.add(newCustomer("bulk " + i));
+		}
+		ingestService.ingest(customers.iterator());
+		List<CustomerChange> before = awaitChanges(from, customers.size());
+
+		relay.stop();
+		try {
+			String logId = changeLog.getLogId();
+			changeLog.close();
+			List<Path> segments;
+			try (Stream<Path> files = Files.list(Path.of((String) ReflectionTestUtils.getField(changeLog, "directory")))) {
+				segments = files.filter(file -> file.toString().endsWith(".log")).sorted().toList();
+			}
+			assertTrue(segments.size() > 1, "segments: " + segments);
+			Files.write(segments.get(segments.size() - 1), new byte[] { 0, 0, 1, 0, 42 }, StandardOpenOption.APPEND);
+
+			changeLog.open();
+			assertEquals(logId, changeLog.getLogId());
+			assertEquals(from + customers.size(), changeLog.getEndOffset());
+			assertEquals(before, changeLog.read(from, customers.size()).changes());
+		} finally {
+			relay.start();
+		}
+	}
+
+	@Test
+	void standsByWhileAnotherLogHoldsTheLease() throws Exception {
+		for (int i = 0; i < 200 && !leaseRepo.existsById(CustomerChangeRelayLease.ID); i++) {
+			Thread.sleep(20);
+		}
+		long from = changeLog.getEndOffset();
+		holdLease("another-log", Instant.now().plusSeconds(60));
+		try {
+			service.addCustomer(newCustomer("held"));
+			Thread.sleep(500);
+			assertEquals(from, changeLog.getEndOffset());
+			assertEquals(1, outboxRepo.count());
+		} finally {
+			holdLease("another-log", Instant.now().minusSeconds(1));
+		}
+
+		assertEquals("held", awaitChanges(from, 1).get(0).customer().name());
+		assertEquals(changeLog.getLogId(), leaseRepo.findById(CustomerChangeRelayLease.ID).orElseThrow().getOwner());
+	}
+
+	@Test
+	void changesCarryTheCommittedVersion() throws Exception {
+		Customer customer = newCustomer("versioned");
+		Gadgets phone = new Gadgets();
+		phone.setGadget_name("phone");
+		phone.setYears(1f);
+		customer.getGadgets().add(phone);
+		long from = changeLog.getEndOffset();
+		service.addCustomer(customer);
+		Integer id = customer.getId();
+		assertEquals(0L, awaitChanges(from, 1).get(0).version());
+
+		Customer update = newCustomer("versioned");
+		Gadgets older = new Gadgets();
+		older.setId(phone.getId());
+		older.setGadget_name("phone");
+		older.setYears(2f);
+		update.getGadgets().add(older);
+		service.updateCustomer(id, update);
+		assertEquals(customerRepo.findVersionById(id).orElseThrow(), awaitChanges(from, 2).get(1).version());
+
+		service.patchCustomer(id, objectMapper.readTree("{\"person\":{\"gender\":\"M\"}}"));
+		assertEquals(customerRepo.findVersionById(id).orElseThrow(), awaitChanges(from, 3).get(2).version());
+	}
+
+	@Test
+	void conflictingUpdateFailsWithOptimisticLockingFailure() throws Exception {
+		Customer customer = newCustomer("contended");
+		service.addCustomer(customer);
+		Integer id = customer.getId();
+
+		try (ExecutorService other = Executors.newSingleThreadExecutor()) {
+			assertThrows(OptimisticLockingFailureException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+				Customer stale = customerRepo.findDetailById(id).orElseThrow();
+				try {
+					other.submit(() -> {
+						service.patchCustomer(id, objectMapper.readTree("{\"gadgets\":[{\"gadget_name\":\"other\",\"years\":1}]}"));
+						return null;
+					}).get();
+				} catch (Exception e) {
+					throw new AssertionError(e);
+				}
+				stale.setName("stale");
+				outbox.recordSaved(Type.UPDATED, List.of(stale));
+			}));
+		}
+	}
+
+	@Test
+	void concurrentUpdatesConflictWhileChangesAreRecorded() throws Exception {
+		Customer customer = newCustomer("raced");
+		service.addCustomer(customer);
+		Integer id = customer.getId();
+		long from = changeLog.getEndOffset();
+
+		List<Future<Integer>> writers = new ArrayList<>();
+		try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+			for (int w = 0; w < 2; w++) {
+				String gadget = "writer " + w;
+				writers.add(executor.submit(() -> {
+					int saved = 0;
+					for (int i = 0; i < 5; i++) {
+						try {
+							service.patchCustomer(id, objectMapper.readTree(
+									"{\"gadgets\":[{\"gadget_name\":\"" + gadget + "\",\"years\":" + i + "}]}"));
+							saved++;
+						} catch (OptimisticLockingFailureException e) {
+							// the other writer committed first
+						}
+					}
+					return saved;
+				}));
+			}
+			int saved = 0;
+			for (Future<Integer> writer : writers) {
+				saved += writer.get();
+			}
+			assertEquals(saved, awaitChanges(from, saved).size());
+		}
+	}
+
+	private void holdLease(String owner, Instant until) {
+		transactionTemplate.executeWithoutResult(status -> leaseRepo.findLockedById(CustomerChangeRelayLease.ID)
+				.orElseThrow().hold(owner, until));
+	}
+
+	private List<CustomerChange> awaitChanges(long from, int count) throws IOException, InterruptedException {
+		for (int i = 0; i < 200; i++) {
+			if (changeLog.getEndOffset() >= from + count) {
+				return changeLog.read(from, count).changes();
+			}
+			Thread.sleep(20);
+		}
+		throw new AssertionError("Changes were not relayed");
+	}
+
+	private static Customer newCustomer(String name) {
+		Person person = new Person();
+		person.setGender("F");
+		return new Customer(null, name, person, new ArrayList<>());
+	}
+
+}
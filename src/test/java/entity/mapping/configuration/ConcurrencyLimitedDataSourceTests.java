@@ -0,0 +1,53 @@
+package entity.mapping.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimitedDataSourceTests {
+
+	private ConcurrencyLimitedDataSource dataSource;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		DataSource target = mock(DataSource.class);
+		when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+		dataSource = new ConcurrencyLimitedDataSource(target, 2, Duration.ofMillis(50));
+	}
+
+	@Test
+	void waitsForAPermitAndTimesOut() throws SQLException {
+		Connection first = dataSource.getConnection();
+		dataSource.getConnection();
+		assertEquals(2, dataSource.getActiveCount());
+
+		assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+		first.close();
+		dataSource.getConnection();
+		assertEquals(2, dataSource.getActiveCount());
+	}
+
+	@Test
+	void closingTwiceReturnsOnePermit() throws SQLException {
+		Connection connection = dataSource.getConnection();
+		dataSource.getConnection();
+
+		connection.close();
+		connection.close();
+
+		assertEquals(1, dataSource.getActiveCount());
+	}
+
+}
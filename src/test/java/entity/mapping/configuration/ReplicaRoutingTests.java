@@ -0,0 +1,110 @@
+package entity.mapping.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.Person;
+import entity.mapping.service.CustomerService;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Verifies replica routing with two H2 databases. The replica gets the schema of the
+ * primary but none of its data, which makes it easy to tell which database served a read.
+ */
+@SpringBootTest(properties = { "datasource.replicas.urls=" + ReplicaRoutingTests.REPLICA_URL,
+		"spring.datasource.hikari.connection-timeout=7000" })
+@ActiveProfiles("h2")
+class ReplicaRoutingTests {
+
+	static final String REPLICA_URL = "jdbc:h2:mem:entity_mapping_replica;DB_CLOSE_DELAY=-1;MODE=MySQL;NON_KEYWORDS=USER";
+
+	private static final int REPLICA_ONLY_ID = 900_001;
+
+	@Autowired
+	private CustomerService service;
+
+	@Autowired
+	@Qualifier("primaryDataSource")
+	private DataSource primaryDataSource;
+
+	@Autowired
+	@Qualifier("replicaDataSource0")
+	private DataSource replicaDataSource;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@BeforeEach
+	void copySchemaToReplica() throws SQLException {
+		List<String> schema = new ArrayList<>();
+		try (Connection primary = primaryDataSource.getConnection();
+				Statement statement = primary.createStatement();
+				ResultSet script = statement.executeQuery("SCRIPT NODATA")) {
+			while (script.next()) {
+				schema.add(script.getString(1));
+			}
+		}
+		try (Connection replica = DriverManager.getConnection(REPLICA_URL, "sa", "");
+				Statement statement = replica.createStatement()) {
+			statement.execute("DROP ALL OBJECTS");
+			for (String sql : schema) {
+				statement.execute(sql);
+			}
+			statement.execute("INSERT INTO customer (id, name) VALUES (" + REPLICA_ONLY_ID + ", 'from-replica')");
+			statement.execute("INSERT INTO person (cust_id, gender) VALUES (" + REPLICA_ONLY_ID + ", 'F')");
+		}
+		ReplicaRoutingDataSource.clearLastWrite();
+	}
+
+	@Test
+	void readOnlyTransactionsGoToReplica() {
+		Customer customer = service.getCustomerById(REPLICA_ONLY_ID);
+
+		assertNotNull(customer);
+		assertEquals("from-replica", customer.getName());
+	}
+
+	@Test
+	void writesGoToPrimaryAndAreReadBackFromPrimary() {
+		Person person = new Person();
+		person.setGender("M");
+		Customer customer = new Customer(null, "written", person, new ArrayList<>());
+		service.addCustomer(customer);
+
+		assertEquals("written", service.getCustomerById(customer.getId()).getName());
+
+		ReplicaRoutingDataSource.clearLastWrite();
+		assertNull(service.getCustomerById(customer.getId()));
+	}
+
+	@Test
+	void replicaPoolIsConfiguredAndInstrumentedLikePrimary() throws SQLException {
+		service.getCustomerById(REPLICA_ONLY_ID);
+
+		HikariDataSource replica = replicaDataSource.unwrap(HikariDataSource.class);
+		assertEquals(7000, replica.getConnectionTimeout());
+		assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", "replica-0").gauge());
+	}
+
+}
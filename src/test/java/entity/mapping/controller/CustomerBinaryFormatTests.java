@@ -0,0 +1,177 @@
+package entity.mapping.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import entity.mapping.dto.CustomerView;
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.Gadgets;
+import entity.mapping.entity.Person;
+import entity.mapping.service.CustomerService;
+
+/**
+ * Verifies that customers can be read and written as CBOR and Smile with the same
+ * model as JSON, that JSON stays the default, and that ETags differ per format.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class CustomerBinaryFormatTests {
+
+	private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+	private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CustomerService service;
+
+	@Autowired
+	private RequestMappingHandlerAdapter handlerAdapter;
+
+	private final ObjectMapper json = new ObjectMapper();
+
+	private final ObjectMapper cbor = new CBORMapper();
+
+	private final ObjectMapper smile = new SmileMapper();
+
+	@Test
+	void readsTheSameCustomerInEveryFormat() throws Exception {
+		Integer id = addCustomer("binary");
+
+		CustomerView fromJson = json.readValue(body(id, MediaType.APPLICATION_JSON, null), CustomerView.class);
+		CustomerView fromCbor = cbor.readValue(body(id, CBOR, CBOR), CustomerView.class);
+		CustomerView fromSmile = smile.readValue(body(id, SMILE, SMILE), CustomerView.class);
+
+		assertEquals(fromJson, fromCbor);
+		assertEquals(fromJson, fromSmile);
+		assertEquals("binary", fromCbor.name());
+		assertEquals(2, fromCbor.gadgets().size());
+	}
+
+	@Test
+	void acceptsBinaryRequestBodies() throws Exception {
+		Customer customer = newCustomer("posted as smile");
+		mockMvc.perform(post("/addCustomer").contentType(SMILE).content(smile.writeValueAsBytes(customer)))
+				.andExpect(status().isOk());
+
+		Integer id = addCustomer("before");
+		ObjectNode stored = json.valueToTree(service.getCustomerView(id));
+		stored.put("name", "put as cbor");
+		mockMvc.perform(put("/updateCustomer/" + id).contentType(CBOR).content(cbor.writeValueAsBytes(stored)))
+				.andExpect(status().isOk());
+
+		Customer updated = service.getCustomerById(id);
+		assertEquals("put as cbor", updated.getName());
+		assertEquals(2, updated.getGadgets().size());
+		assertFalse(service.searchCustomers("posted as smile", "name", "prefix", 1, null).customers().isEmpty());
+	}
+
+	@Test
+	void etagIsSpecificToTheFormat() throws Exception {
+		Integer id = addCustomer("vary");
+		String jsonEtag = etag(get("/getCustomer/" + id).accept(MediaType.APPLICATION_JSON));
+		String cborEtag = etag(get("/getCustomer/" + id).header(HttpHeaders.ACCEPT, "*/*;q=0.5, application/cbor"));
+		assertNotEquals(jsonEtag, cborEtag);
+
+		mockMvc.perform(get("/getCustomer/" + id).accept(CBOR).header(HttpHeaders.IF_NONE_MATCH, jsonEtag))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(CBOR));
+		mockMvc.perform(get("/getCustomer/" + id).accept(CBOR).header(HttpHeaders.IF_NONE_MATCH, cborEtag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, cborEtag))
+				.andExpect(result -> assertTrue(result.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT)));
+		mockMvc.perform(get("/getAllCustomers").accept(SMILE)
+				.header(HttpHeaders.IF_NONE_MATCH, etag(get("/getAllCustomers").accept(SMILE))))
+				.andExpect(status().isNotModified())
+				.andExpect(result -> assertTrue(result.getResponse().getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT)));
+	}
+
+	@Test
+	void binaryConvertersUseTheApplicationJacksonConfiguration() {
+		List<HttpMessageConverter<?>> converters = handlerAdapter.getMessageConverters();
+		ObjectMapper jsonMapper = converter(converters, MappingJackson2HttpMessageConverter.class).getObjectMapper();
+
+		for (Class<? extends AbstractJackson2HttpMessageConverter> type : List.of(
+				MappingJackson2CborHttpMessageConverter.class, MappingJackson2SmileHttpMessageConverter.class)) {
+			assertEquals(1, converters.stream().filter(type::isInstance).count(), type.getSimpleName());
+			assertEquals(jsonMapper.getRegisteredModuleIds(),
+					converter(converters, type).getObjectMapper().getRegisteredModuleIds(), type.getSimpleName());
+		}
+	}
+
+	private String etag(MockHttpServletRequestBuilder request) throws Exception {
+		String etag = mockMvc.perform(request).andExpect(status().isOk()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotNull(etag);
+		return etag;
+	}
+
+	private static <T> T converter(List<HttpMessageConverter<?>> converters, Class<T> type) {
+		return converters.stream().filter(type::isInstance).map(type::cast).findFirst().orElseThrow();
+	}
+
+	private byte[] body(Integer id, MediaType expected, MediaType accept) throws Exception {
+		MockHttpServletRequestBuilder request = get("/getCustomer/" + id);
+		if (accept != null) {
+			request.accept(accept);
+		}
+		return mockMvc.perform(request)
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(expected))
+				.andReturn().getResponse().getContentAsByteArray();
+	}
+
+	private Integer addCustomer(String name) {
+		Customer customer = newCustomer(name);
+		service.addCustomer(customer);
+		return customer.getId();
+	}
+
+	private static Customer newCustomer(String name) {
+		Person person = new Person();
+		person.setGender("F");
+		Gadgets phone = new Gadgets();
+		phone.setGadget_name("phone");
+		phone.setYears(1f);
+		Gadgets laptop = new Gadgets();
+		laptop.setGadget_name("laptop");
+		laptop.setYears(2.5f);
+		return new Customer(null, name, person, new ArrayList<>(List.of(phone, laptop)));
+	}
+
+}
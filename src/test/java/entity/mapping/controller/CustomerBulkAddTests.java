@@ -0,0 +1,94 @@
+package entity.mapping.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entity.mapping.service.CustomerService;
+
+/**
+ * Verifies that /bulkAddCustomers reads JSON arrays and NDJSON alike, retries a failed
+ * chunk record by record, and stops at malformed input.
+ */
+@SpringBootTest(properties = "customer.ingest.chunk-size=2")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class CustomerBulkAddTests {
+
+	private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CustomerService service;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void readsJsonArraysAndNdjson() throws Exception {
+		JsonNode array = bulkAdd(MediaType.APPLICATION_JSON,
+				"[" + customer("array 0") + "," + customer("array 1") + ",{\"name\":\"no person\"}," + customer("array 2") + "]");
+		assertEquals(3, array.get("inserted").asInt());
+		assertEquals(1, array.get("failed").asInt());
+		assertEquals(List.of("INSERTED", "INSERTED", "FAILED", "INSERTED"), statuses(array));
+		assertEquals("array 2", service.getCustomerById(array.get("results").get(3).get("id").asInt()).getName());
+
+		JsonNode ndjson = bulkAdd(NDJSON, customer("line 0") + "\n" + customer("line 1") + "\n" + customer("line 2") + "\n");
+		assertEquals(3, ndjson.get("inserted").asInt());
+		assertEquals("line 1", service.getCustomerById(ndjson.get("results").get(1).get("id").asInt()).getName());
+	}
+
+	@Test
+	void failedChunkIsRetriedRecordByRecord() throws Exception {
+		JsonNode result = bulkAdd(NDJSON,
+				customer("kept 0") + "\n" + customer("x".repeat(300)) + "\n" + customer("kept 2") + "\n");
+
+		assertEquals(List.of("INSERTED", "FAILED", "INSERTED"), statuses(result));
+		assertNull(result.get("results").get(1).get("id").textValue());
+		assertEquals("kept 0", service.getCustomerById(result.get("results").get(0).get("id").asInt()).getName());
+		assertEquals("kept 2", service.getCustomerById(result.get("results").get(2).get("id").asInt()).getName());
+	}
+
+	@Test
+	void malformedInputStopsTheIngest() throws Exception {
+		JsonNode result = bulkAdd(NDJSON, customer("before") + "\n{\"name\": \n" + customer("after") + "\n");
+
+		assertEquals(List.of("INSERTED", "FAILED"), statuses(result));
+		JsonNode failure = result.get("results").get(1);
+		assertEquals(1, failure.get("index").asInt());
+		assertTrue(failure.get("error").asText().startsWith("Malformed record"), failure.toString());
+		assertNotNull(service.getCustomerById(result.get("results").get(0).get("id").asInt()));
+	}
+
+	private JsonNode bulkAdd(MediaType type, String body) throws Exception {
+		return objectMapper.readTree(mockMvc.perform(post("/bulkAddCustomers").contentType(type).content(body))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+	}
+
+	private static List<String> statuses(JsonNode result) {
+		return result.get("results").findValuesAsText("status");
+	}
+
+	private static String customer(String name) {
+		return "{\"name\":\"" + name + "\",\"person\":{\"gender\":\"F\"},\"gadgets\":[{\"gadget_name\":\"phone\",\"years\":1.5}]}";
+	}
+
+}
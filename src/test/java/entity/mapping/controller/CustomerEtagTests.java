@@ -0,0 +1,130 @@
+package entity.mapping.controller;
+
+import static entity.mapping.SqlStatementRecorder.assertWithinBudget;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.Person;
+import entity.mapping.service.CustomerService;
+
+/**
+ * Verifies that the customer read endpoints return strong ETags and answer a matching
+ * If-None-Match with 304 from a single version lookup, and that writes with a stale
+ * If-Match are answered with 412.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=entity.mapping.SqlStatementRecorder")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class CustomerEtagTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CustomerService service;
+
+	@Test
+	void customerIsNotModifiedUntilItsPersonChanges() throws Exception {
+		Integer id = addCustomer();
+		String etag = etagOf("/getCustomer/" + id);
+
+		assertWithinBudget(1, () -> perform("/getCustomer/" + id, etag, 304));
+
+		mockMvc.perform(patch("/patchCustomer/" + id)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"person\":{\"gender\":\"M\"}}"))
+				.andExpect(status().isOk());
+
+		MvcResult changed = perform("/getCustomer/" + id, etag, 200);
+		assertNotEquals(etag, changed.getResponse().getHeader(HttpHeaders.ETAG));
+	}
+
+	@Test
+	void listingIsNotModifiedUntilACustomerIsAdded() throws Exception {
+		addCustomer();
+		String etag = etagOf("/getAllCustomers");
+
+		assertWithinBudget(1, () -> perform("/getAllCustomers", etag, 304));
+
+		addCustomer();
+		perform("/getAllCustomers", etag, 200);
+	}
+
+	@Test
+	void writesWithAStaleIfMatchArePreconditionFailed() throws Exception {
+		Integer id = addCustomer();
+		String etag = etagOf("/getCustomer/" + id);
+
+		mockMvc.perform(patch("/patchCustomer/" + id)
+				.header(HttpHeaders.IF_MATCH, etag)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"first\"}"))
+				.andExpect(status().isOk());
+		mockMvc.perform(put("/updateCustomer/" + id)
+				.header(HttpHeaders.IF_MATCH, etag)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"second\",\"person\":{\"gender\":\"F\"}}"))
+				.andExpect(status().isPreconditionFailed());
+		mockMvc.perform(patch("/patchCustomer/" + id)
+				.header(HttpHeaders.IF_MATCH, etag)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"second\"}"))
+				.andExpect(status().isPreconditionFailed());
+
+		mockMvc.perform(put("/updateCustomer/" + id)
+				.header(HttpHeaders.IF_MATCH, etagOf("/getCustomer/" + id))
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"second\",\"person\":{\"gender\":\"F\"}}"))
+				.andExpect(status().isOk());
+		assertEquals("second", service.getCustomerById(id).getName());
+	}
+
+	private String etagOf(String path) throws Exception {
+		String etag = mockMvc.perform(get(path)).andExpect(status().isOk()).andReturn()
+				.getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotNull(etag);
+		return etag;
+	}
+
+	private MvcResult perform(String path, String ifNoneMatch, int expectedStatus) {
+		try {
+			MvcResult result = mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+					.andExpect(status().is(expectedStatus))
+					.andReturn();
+			if (expectedStatus == 304) {
+				content().string("").match(result);
+			}
+			return result;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private Integer addCustomer() {
+		Person person = new Person();
+		person.setGender("F");
+		Customer customer = new Customer(null, "etag", person, new ArrayList<>());
+		service.addCustomer(customer);
+		return customer.getId();
+	}
+
+}
@@ -0,0 +1,97 @@
+package entity.mapping.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entity.mapping.dto.GadgetView;
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.Gadgets;
+import entity.mapping.entity.Person;
+import entity.mapping.repository.CustomerRepository;
+import entity.mapping.service.CustomerService;
+
+/**
+ * Verifies that /exportCustomers writes every customer with all of its gadgets when the
+ * export spans several persistence context clears.
+ */
+@SpringBootTest(properties = "customer.export.clear-interval=3")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class CustomerExportTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CustomerService service;
+
+	@Autowired
+	private CustomerRepository repo;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void exportWritesTheGadgetsOfEveryCustomerAcrossClears() throws Exception {
+		Map<Integer, List<String>> added = new HashMap<>();
+		for (int i = 0; i < 10; i++) {
+			List<String> names = new ArrayList<>();
+			for (int g = 0; g <= i % 3; g++) {
+				names.add("gadget " + i + "." + g);
+			}
+			added.put(addCustomer("export " + i, names), names);
+		}
+
+		String body = mockMvc.perform(get("/exportCustomers"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		List<String> lines = body.lines().toList();
+		assertTrue(lines.size() > 3, "export must span several clears");
+		assertEquals(repo.count(), lines.size());
+
+		for (String line : lines) {
+			JsonNode customer = objectMapper.readTree(line);
+			int id = customer.get("id").asInt();
+			List<String> exported = new ArrayList<>();
+			customer.get("gadgets").forEach(gadget -> exported.add(gadget.get("gadget_name").asText()));
+			List<String> stored = service.getCustomerView(id).gadgets().stream().map(GadgetView::gadgetName).toList();
+			assertEquals(stored.stream().sorted().toList(), exported.stream().sorted().toList(), "customer " + id);
+			if (added.containsKey(id)) {
+				assertEquals(added.remove(id).stream().sorted().toList(), exported.stream().sorted().toList());
+			}
+		}
+		assertTrue(added.isEmpty(), "not exported: " + added.keySet());
+	}
+
+	private Integer addCustomer(String name, List<String> gadgetNames) {
+		Person person = new Person();
+		person.setGender("F");
+		List<Gadgets> gadgets = new ArrayList<>();
+		for (String gadgetName : gadgetNames) {
+			Gadgets gadget = new Gadgets();
+			gadget.setGadget_name(gadgetName);
+			gadget.setYears(1f);
+			gadgets.add(gadget);
+		}
+		Customer customer = new Customer(null, name, person, gadgets);
+		service.addCustomer(customer);
+		return customer.getId();
+	}
+
+}
@@ -0,0 +1,82 @@
+package entity.mapping.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.Person;
+import entity.mapping.service.CustomerService;
+import entity.mapping.service.PageToken;
+
+/**
+ * Verifies that /getCustomersPage walks all customers in ID order with its page tokens,
+ * and rejects tokens it did not issue.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class CustomerPagingTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private CustomerService service;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void pageTokensWalkEveryCustomerOnce() throws Exception {
+		List<Integer> added = new ArrayList<>();
+		for (int i = 0; i < 7; i++) {
+			Person person = new Person();
+			person.setGender("F");
+			Customer customer = new Customer(null, "paged " + i, person, new ArrayList<>());
+			service.addCustomer(customer);
+			added.add(customer.getId());
+		}
+
+		List<Integer> seen = new ArrayList<>();
+		String token = null;
+		do {
+			MockHttpServletRequestBuilder request = get("/getCustomersPage").param("pageSize", "3");
+			if (token != null) {
+				request.param("pageToken", token);
+			}
+			JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString());
+			assertTrue(page.get("customers").size() <= 3);
+			page.get("customers").forEach(customer -> seen.add(customer.get("id").asInt()));
+			token = page.hasNonNull("nextPageToken") ? page.get("nextPageToken").asText() : null;
+		} while (token != null);
+
+		assertEquals(seen.stream().sorted().distinct().toList(), seen);
+		assertTrue(seen.containsAll(added));
+	}
+
+	@Test
+	void invalidTokenIsABadRequest() throws Exception {
+		mockMvc.perform(get("/getCustomersPage").param("pageToken", "not a token"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(get("/getCustomersPage").param("pageToken", PageToken.encode(1) + "x"))
+				.andExpect(status().isBadRequest());
+	}
+
+}
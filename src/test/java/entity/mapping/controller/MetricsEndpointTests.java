@@ -0,0 +1,50 @@
+package entity.mapping.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Verifies that the service, repository, authentication, pool and Hibernate metrics are
+ * exposed at the Prometheus scrape endpoint.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("h2")
+class MetricsEndpointTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void prometheusEndpointExposesApplicationMetrics() throws Exception {
+		mockMvc.perform(get("/getCustomer/1"));
+		mockMvc.perform(post("/login")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"email\":\"nobody@example.com\",\"password\":\"secret\"}"));
+
+		mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString(
+						"service_method_seconds_bucket{class=\"entity.mapping.service.CustomerService\"")))
+				.andExpect(content().string(containsString("method=\"getCustomerView\"")))
+				.andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket")))
+				.andExpect(content().string(containsString(
+						"auth_attempts_total{outcome=\"failure\",source=\"database\"")))
+				.andExpect(content().string(containsString("hikaricp_connections_active")))
+				.andExpect(content().string(containsString("hibernate_sessions_open_total")));
+	}
+
+}
@@ -0,0 +1,130 @@
+package entity.mapping.controller;
+
+import static entity.mapping.SqlStatementRecorder.assertWithinBudget;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entity.mapping.authenticateprovider.AccessTokenService;
+import entity.mapping.entity.User;
+import entity.mapping.repository.UserRepository;
+
+/**
+ * Verifies token mode: /login issues a signed token, later requests are authenticated
+ * from the token alone without a session or a database query, and keys can be rotated.
+ */
+@SpringBootTest(properties = {
+		"auth.token.enabled=true",
+		"auth.token.active-key-id=k1",
+		"auth.token.keys=" + UserControllerTokenTests.KEY_1,
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector=entity.mapping.SqlStatementRecorder" })
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class UserControllerTokenTests {
+
+	static final String KEY_1 = "k1:MDEyMzQ1Njc4OWFiY2RlZjAxMjM0NTY3ODlhYmNkZWY=";
+
+	static final String KEY_2 = "k2:ZmVkY2JhOTg3NjU0MzIxMGZlZGNiYTk4NzY1NDMyMTA=";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void loginIssuesTokenThatAuthenticatesWithoutSessionOrQuery() throws Exception {
+		User user = new User();
+		user.setEmail("token@example.com");
+		user.setPassword(passwordEncoder.encode("secret"));
+		user.setRole("ROLE_USER");
+		userRepository.save(user);
+
+		MvcResult login = mockMvc.perform(post("/login")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"email\":\"token@example.com\",\"password\":\"secret\"}"))
+				.andExpect(status().isOk())
+				.andReturn();
+		assertNull(login.getRequest().getSession(false));
+		String token = objectMapper.readTree(login.getResponse().getContentAsString()).get("accessToken").asText();
+
+		MvcResult result = assertWithinBudget(0, () -> {
+			try {
+				return mockMvc.perform(get("/user").header("Authorization", "Bearer " + token))
+						.andExpect(status().isOk())
+						.andExpect(content().string("Spring Security In-memory Authentication Example - Welcome token@example.com"))
+						.andReturn();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		assertNull(result.getRequest().getSession(false));
+	}
+
+	@Test
+	void tamperedTokenIsRejected() throws Exception {
+		AccessTokenService service = new AccessTokenService(true, Duration.ofMinutes(5), "k1", KEY_1, Clock.systemUTC());
+		String token = service.issue(authentication("someone@example.com"));
+		String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+		mockMvc.perform(get("/user").header("Authorization", "Bearer " + tampered))
+				.andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void rotatedKeysKeepAcceptingOldTokensUntilRemoved() {
+		AccessTokenService oldService = new AccessTokenService(true, Duration.ofMinutes(5), "k1", KEY_1, Clock.systemUTC());
+		AccessTokenService rotated = new AccessTokenService(true, Duration.ofMinutes(5), "k2", KEY_2 + "," + KEY_1, Clock.systemUTC());
+		AccessTokenService retired = new AccessTokenService(true, Duration.ofMinutes(5), "k2", KEY_2, Clock.systemUTC());
+		String oldToken = oldService.issue(authentication("rotate@example.com"));
+
+		assertEquals("rotate@example.com", rotated.verify(oldToken).getName());
+		assertNotNull(retired.verify(rotated.issue(authentication("rotate@example.com"))));
+		assertNull(retired.verify(oldToken));
+	}
+
+	@Test
+	void expiredTokenIsRejected() {
+		Instant issuedAt = Instant.parse("2024-01-01T00:00:00Z");
+		AccessTokenService issuer = new AccessTokenService(true, Duration.ofMinutes(5), "k1", KEY_1, Clock.fixed(issuedAt, ZoneOffset.UTC));
+		AccessTokenService later = new AccessTokenService(true, Duration.ofMinutes(5), "k1", KEY_1,
+				Clock.fixed(issuedAt.plus(Duration.ofMinutes(6)), ZoneOffset.UTC));
+
+		assertNull(later.verify(issuer.issue(authentication("expired@example.com"))));
+	}
+
+	private static UsernamePasswordAuthenticationToken authentication(String email) {
+		return UsernamePasswordAuthenticationToken.authenticated(email, null, List.of(new SimpleGrantedAuthority("ROLE_USER")));
+	}
+
+}
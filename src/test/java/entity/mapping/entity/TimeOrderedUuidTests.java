@@ -0,0 +1,32 @@
+package entity.mapping.entity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class TimeOrderedUuidTests {
+
+	@Test
+	void generatesVersion7Uuids() {
+		UUID id = TimeOrderedUuid.next();
+
+		assertEquals(7, id.version());
+		assertEquals(2, id.variant());
+		long millis = id.getMostSignificantBits() >>> 16;
+		assertTrue(Math.abs(System.currentTimeMillis() - millis) < 10_000);
+	}
+
+	@Test
+	void idsIncreaseWithinTheSameMillisecond() {
+		UUID previous = TimeOrderedUuid.next();
+		for (int i = 0; i < 100_000; i++) {
+			UUID next = TimeOrderedUuid.next();
+			assertTrue(next.compareTo(previous) > 0);
+			previous = next;
+		}
+	}
+
+}
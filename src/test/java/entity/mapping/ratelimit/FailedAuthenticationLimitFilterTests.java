@@ -0,0 +1,66 @@
+package entity.mapping.ratelimit;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import entity.mapping.entity.User;
+import entity.mapping.repository.UserRepository;
+
+/**
+ * Verifies that wrong credentials are limited per remote address before they are
+ * checked, both for HTTP Basic and for /login, while successful ones are not counted.
+ */
+@SpringBootTest(properties = "ratelimit.failed-authentications=0.01:2")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class FailedAuthenticationLimitFilterTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Test
+	void wrongCredentialsAreLimitedBeforeAuthentication() throws Exception {
+		User user = new User();
+		user.setEmail("guessed@example.com");
+		user.setPassword(passwordEncoder.encode("secret"));
+		user.setRole("ROLE_USER");
+		userRepository.save(user);
+
+		for (int i = 0; i < 3; i++) {
+			mockMvc.perform(get("/user").with(httpBasic("guessed@example.com", "secret")))
+					.andExpect(status().isOk());
+		}
+		mockMvc.perform(get("/user").with(httpBasic("guessed@example.com", "guess-1")))
+				.andExpect(status().isUnauthorized());
+		mockMvc.perform(post("/login")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"email\":\"guessed@example.com\",\"password\":\"guess-2\"}"))
+				.andExpect(status().isUnauthorized());
+
+		mockMvc.perform(get("/user").with(httpBasic("guessed@example.com", "secret")))
+				.andExpect(status().isTooManyRequests())
+				.andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+		mockMvc.perform(get("/user").with(httpBasic("guessed@example.com", "guess-3")))
+				.andExpect(status().isTooManyRequests());
+	}
+
+}
@@ -0,0 +1,90 @@
+package entity.mapping.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTests {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final AtomicLong now = new AtomicLong(1_000 * SECOND);
+
+	@Test
+	void allowsTheBurstThenTheSustainedRate() {
+		RateLimiter limiter = new RateLimiter(2, 3, 100, now::get);
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(0, limiter.tryAcquire("alice"));
+		}
+		assertEquals(SECOND / 2, limiter.tryAcquire("alice"));
+		assertEquals(0, limiter.tryAcquire("bob"));
+
+		now.addAndGet(SECOND / 2);
+		assertEquals(0, limiter.tryAcquire("alice"));
+		assertTrue(limiter.tryAcquire("alice") > 0);
+	}
+
+	@Test
+	void releaseGivesAPermitBack() {
+		RateLimiter limiter = new RateLimiter(1, 1, 100, now::get);
+
+		assertEquals(0, limiter.tryAcquire("alice"));
+		assertEquals(SECOND, limiter.tryAcquire("alice"));
+		limiter.release("alice");
+		assertEquals(0, limiter.tryAcquire("alice"));
+
+		limiter.release("alice");
+		limiter.release("alice");
+		assertEquals(0, limiter.tryAcquire("alice"));
+		assertEquals(SECOND, limiter.tryAcquire("alice"));
+	}
+
+	@Test
+	void forgetsKeysOnceTheirBucketIsFullAgain() {
+		RateLimiter limiter = new RateLimiter(10, 5, 100, now::get);
+		limiter.tryAcquire("idle");
+		assertEquals(1, limiter.size());
+
+		now.addAndGet(SECOND);
+		limiter.cleanUp();
+
+		assertEquals(0, limiter.size());
+	}
+
+	@Test
+	void concurrentRequestsNeverExceedTheBurst() throws InterruptedException {
+		RateLimiter limiter = new RateLimiter(1, 1_000, 100, now::get);
+		AtomicInteger allowed = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				for (int i = 0; i < 500; i++) {
+					if (limiter.tryAcquire("shared") == 0) {
+						allowed.incrementAndGet();
+					}
+				}
+			});
+			threads[t].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(1_000, allowed.get());
+	}
+
+}
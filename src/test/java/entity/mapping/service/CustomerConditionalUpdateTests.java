@@ -0,0 +1,94 @@
+package entity.mapping.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entity.mapping.dto.CustomerView;
+import entity.mapping.dto.GadgetView;
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.Gadgets;
+import entity.mapping.entity.Person;
+
+/**
+ * Verifies that a full update racing a gadget patch of the same customer never undoes
+ * the patch: exactly one of them wins and the other fails instead of being reapplied.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class CustomerConditionalUpdateTests {
+
+	@Autowired
+	private CustomerService service;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void racingUpdateAndPatchNeverLoseAGadget() throws Exception {
+		try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+			for (int round = 0; round < 10; round++) {
+				Person person = new Person();
+				person.setGender("F");
+				Gadgets phone = new Gadgets();
+				phone.setGadget_name("phone");
+				Customer customer = new Customer(null, "racer", person, new ArrayList<>(List.of(phone)));
+				service.addCustomer(customer);
+				Integer id = customer.getId();
+				CustomerView read = service.getCustomerView(id);
+				String phoneId = read.gadgets().get(0).id().toString();
+
+				CountDownLatch start = new CountDownLatch(1);
+				Future<?> update = executor.submit(() -> {
+					start.await();
+					Customer replacement = objectMapper.readValue("{\"name\":\"replaced\",\"person\":{\"gender\":\"F\"},"
+							+ "\"gadgets\":[{\"id\":\"" + phoneId + "\",\"gadget_name\":\"phone\"}]}", Customer.class);
+					return service.updateCustomer(id, replacement, read.version());
+				});
+				Future<?> patch = executor.submit(() -> {
+					start.await();
+					service.patchCustomer(id, objectMapper.readTree("{\"gadgets\":[{\"id\":\"" + phoneId
+							+ "\",\"gadget_name\":\"phone\"},{\"gadget_name\":\"laptop\"}]}"), read.version());
+					return null;
+				});
+				start.countDown();
+				boolean updated = succeeded(update);
+				boolean patched = succeeded(patch);
+
+				assertTrue(updated != patched, "exactly one write must win in round " + round);
+				CustomerView result = service.getCustomerView(id);
+				assertEquals(updated ? "replaced" : "racer", result.name());
+				assertEquals(patched ? List.of("phone", "laptop") : List.of("phone"),
+						result.gadgets().stream().map(GadgetView::gadgetName).toList());
+			}
+		}
+	}
+
+	private static boolean succeeded(Future<?> write) throws InterruptedException {
+		try {
+			write.get();
+			return true;
+		} catch (ExecutionException e) {
+			if (!(e.getCause() instanceof CustomerVersionMismatchException)) {
+				assertInstanceOf(OptimisticLockingFailureException.class, e.getCause());
+			}
+			return false;
+		}
+	}
+
+}
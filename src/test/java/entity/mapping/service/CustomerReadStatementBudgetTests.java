@@ -0,0 +1,147 @@
+package entity.mapping.service;
+
+import static entity.mapping.SqlStatementRecorder.assertWithinBudget;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entity.mapping.dto.CustomerPage;
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.Gadgets;
+import entity.mapping.entity.Person;
+import entity.mapping.repository.CustomerRepository;
+
+/**
+ * Puts a budget on the number of SQL statements the customer read paths issue, so that
+ * an N+1 select on person or gadgets fails the build instead of reaching production.
+ *
+ * Every call is serialized inside a transaction, so any lazy loading triggered by
+ * Jackson is counted against the budget.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=entity.mapping.SqlStatementRecorder")
+@ActiveProfiles("h2")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CustomerReadStatementBudgetTests {
+
+	private static final int CUSTOMERS = 12;
+
+	@Autowired
+	private CustomerService service;
+
+	@Autowired
+	private CustomerIngestService ingestService;
+
+	@Autowired
+	private CustomerRepository repo;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	private Integer firstId;
+
+	@BeforeAll
+	void seedCustomers() {
+		List<Customer> customers = new ArrayList<>();
+		for (int i = 0; i < CUSTOMERS; i++) {
+			Person person = new Person();
+			person.setGender(i % 2 == 0 ? "F" : "M");
+			List<Gadgets> gadgets = new ArrayList<>();
+			for (int j = 0; j < 3; j++) {
+				Gadgets gadget = new Gadgets();
+				gadget.setGadget_name("gadget-" + j);
+				gadget.setYears((float) j);
+				gadgets.add(gadget);
+			}
+			customers.add(new Customer(null, "customer-" + i, person, gadgets));
+		}
+		ingestService.ingest(customers.iterator());
+		firstId = customers.get(0).getId();
+	}
+
+	@Test
+	void getAllCustomersUsesOneStatement() {
+		String json = assertWithinBudget(1, () -> serializeInTransaction(() -> service.getAllCustomers()));
+		assertNotNull(json);
+	}
+
+	@Test
+	void getCustomerByIdUsesOneStatement() {
+		String json = assertWithinBudget(1, () -> serializeInTransaction(() -> service.getCustomerById(firstId)));
+		assertNotNull(json);
+	}
+
+	@Test
+	void customerViewsUseOneStatementAndMatchTheEntityJson() throws JsonProcessingException {
+		String views = assertWithinBudget(1, () -> serializeInTransaction(() -> service.getAllCustomerViews()));
+		String entities = serializeInTransaction(() -> service.getAllCustomers());
+		assertEquals(objectMapper.readTree(entities), objectMapper.readTree(views));
+	}
+
+	@Test
+	void customerViewByIdUsesOneStatementAndMatchesTheEntityJson() throws JsonProcessingException {
+		String view = assertWithinBudget(1, () -> serializeInTransaction(() -> service.getCustomerView(firstId)));
+		String entity = serializeInTransaction(() -> service.getCustomerById(firstId));
+		assertEquals(objectMapper.readTree(entity), objectMapper.readTree(view));
+		assertNull(service.getCustomerView(-1));
+	}
+
+	@Test
+	void customerPageUsesTwoStatements() {
+		String json = assertWithinBudget(2, () -> serializeInTransaction(() -> service.getCustomerPage(5, null)));
+		assertNotNull(json);
+	}
+
+	@Test
+	void lastCustomerPageUsesTwoStatements() {
+		CustomerPage first = service.getCustomerPage(CUSTOMERS - 1, null);
+		CustomerPage last = assertWithinBudget(2, () -> service.getCustomerPage(CUSTOMERS - 1, first.getNextPageToken()));
+		assertEquals(null, last.getNextPageToken());
+	}
+
+	@Test
+	void exportUsesOneStatementAndWritesEveryCustomerOnce() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long written = assertWithinBudget(1, () -> {
+			try {
+				return service.exportCustomers(out);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		long lines = out.toString(StandardCharsets.UTF_8).lines().count();
+		assertEquals(repo.count(), written);
+		assertEquals(written, lines);
+	}
+
+	private String serializeInTransaction(java.util.function.Supplier<Object> call) {
+		return transactionTemplate.execute(status -> {
+			try {
+				return objectMapper.writeValueAsString(call.get());
+			} catch (JsonProcessingException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+}
@@ -0,0 +1,152 @@
+package entity.mapping.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entity.mapping.dto.CustomerSearchPage;
+import entity.mapping.dto.CustomerView;
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.Person;
+import entity.mapping.repository.CustomerRepository;
+import entity.mapping.search.CustomerSearchIndex;
+import entity.mapping.search.MatchMode;
+import entity.mapping.search.SearchField;
+
+@SpringBootTest
+@ActiveProfiles("h2")
+class CustomerSearchTests {
+
+	@Autowired
+	private CustomerService service;
+
+	@Autowired
+	private CustomerRepository repo;
+
+	@Autowired
+	private CustomerSearchIndex searchIndex;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Unique name prefix, so customers added by other tests never match.
+	 */
+	private String prefix;
+
+	@BeforeEach
+	void waitForIndex() throws InterruptedException {
+		prefix = "zq" + UUID.randomUUID().toString().replace("-", "").substring(0, 8);
+		for (int i = 0; i < 100 && !searchIndex.isReady(); i++) {
+			Thread.sleep(50);
+		}
+		assertTrue(searchIndex.isReady());
+	}
+
+	@Test
+	void findsNamesByPrefixAndSubstringIgnoringCaseAndAccents() {
+		Integer smith = addCustomer(prefix + " Zoë  Smith", "+1 (555) 010-0001");
+		Integer smithers = addCustomer(prefix + " Ann Smithers", "555-010-0002");
+		addCustomer(prefix + " Bob Jones", "555 020 0003");
+
+		assertEquals(List.of(smith), ids(service.searchCustomers(prefix.toUpperCase() + " ZOE S", "name", "prefix", 20, null)));
+		assertEquals(List.of(smith, smithers), ids(service.searchCustomers("SMITH", "name", "contains", 20, null)).stream()
+				.filter(id -> id.equals(smith) || id.equals(smithers)).toList());
+		assertEquals(List.of(), ids(service.searchCustomers(prefix + " smith", "name", "prefix", 20, null)));
+	}
+
+	@Test
+	void findsPhoneNumbersByTheirDigits() {
+		String digits = "9" + (100000 + (int) (Math.random() * 900000));
+		Integer first = addCustomer(prefix, "(" + digits.substring(0, 3) + ") " + digits.substring(3) + "-11");
+		Integer second = addCustomer(prefix, digits + "22");
+
+		String formatted = digits.substring(0, 3) + "-" + digits.substring(3);
+		assertEquals(List.of(first, second), ids(service.searchCustomers(formatted, "phone", "prefix", 20, null)));
+		assertEquals(List.of(second), ids(service.searchCustomers(digits + "-2", "phone", "contains", 20, null)));
+	}
+
+	@Test
+	void pagesThroughMatchesInIdOrder() {
+		List<Integer> added = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			added.add(addCustomer(prefix + " page " + i, null));
+		}
+
+		List<Integer> found = new ArrayList<>();
+		String token = null;
+		do {
+			CustomerSearchPage page = service.searchCustomers(prefix, "name", "prefix", 2, token);
+			assertTrue(page.customers().size() <= 2);
+			found.addAll(ids(page));
+			token = page.nextPageToken();
+		} while (token != null);
+
+		assertEquals(added, found);
+	}
+
+	@Test
+	void indexFollowsUpdatesPatchesAndDeletes() throws Exception {
+		Integer id = addCustomer(prefix + " before", "555-0300");
+
+		Customer update = service.getCustomerById(id);
+		update.setName(prefix + " after");
+		service.updateCustomer(id, update);
+		assertEquals(List.of(), ids(service.searchCustomers(prefix + " before", "name", "prefix", 20, null)));
+		assertEquals(List.of(id), ids(service.searchCustomers(prefix + " after", "name", "prefix", 20, null)));
+
+		service.patchCustomer(id, objectMapper.readTree("{\"name\":\"" + prefix + " patched\"}"));
+		assertEquals(List.of(id), ids(service.searchCustomers(prefix + " patched", "name", "prefix", 20, null)));
+		assertEquals(List.of(), ids(service.searchCustomers(prefix + " after", "name", "prefix", 20, null)));
+
+		service.deleteCustomer(id);
+		assertEquals(List.of(), ids(service.searchCustomers(prefix, "name", "prefix", 20, null)));
+	}
+
+	@Test
+	void databaseQueriesMatchTheIndex() {
+		Integer id = addCustomer(prefix + " 100%_sure", "555-0400");
+		addCustomer(prefix + " 100xxsure", null);
+
+		String key = prefix + " 100%_";
+		assertEquals(List.of(id), searchIndex.search(SearchField.NAME, MatchMode.PREFIX, key, 0, 10));
+		assertEquals(List.of(id), repo.findIdsByNameKeyLike(MatchMode.PREFIX.likePattern(key), 0, Limit.of(10)));
+		assertEquals(List.of(id), repo.findIdsByNameKeyLike(MatchMode.CONTAINS.likePattern("0%_s"), 0, Limit.of(10)));
+	}
+
+	@Test
+	void rejectsQueriesWithoutSearchableCharacters() {
+		assertThrows(IllegalArgumentException.class, () -> service.searchCustomers("  ", "name", "prefix", 20, null));
+		assertThrows(IllegalArgumentException.class, () -> service.searchCustomers("abc", "phone", "prefix", 20, null));
+		assertThrows(IllegalArgumentException.class, () -> service.searchCustomers("abc", "email", "prefix", 20, null));
+		assertNull(service.searchCustomers(prefix, "name", "prefix", 20, null).nextPageToken());
+	}
+
+	private Integer addCustomer(String name, String phonenumber) {
+		Person person = new Person();
+		person.setGender("F");
+		Customer customer = new Customer(null, name, person, new ArrayList<>());
+		customer.setPhonenumber(phonenumber);
+		service.addCustomer(customer);
+		return customer.getId();
+	}
+
+	private static List<Integer> ids(CustomerSearchPage page) {
+		return page.customers().stream().map(CustomerView::id).toList();
+	}
+
+}
@@ -0,0 +1,97 @@
+package entity.mapping.service;
+
+import static entity.mapping.SqlStatementRecorder.assertWithinBudget;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entity.mapping.dto.CacheRegionUsage;
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.Gadgets;
+import entity.mapping.entity.Person;
+
+/**
+ * Verifies that customer lookups by ID are served from the second-level cache once the
+ * l2cache profile is active, and that updates and deletes invalidate the cached graph.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=entity.mapping.SqlStatementRecorder")
+@ActiveProfiles({ "h2", "l2cache" })
+class CustomerSecondLevelCacheTests {
+
+	@Autowired
+	private CustomerService service;
+
+	@Autowired
+	private CacheStatisticsService cacheStatisticsService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void repeatedLookupIsServedFromCache() {
+		Integer id = addCustomer("cached");
+		String first = serializeInTransaction(id);
+
+		String second = assertWithinBudget(0, () -> serializeInTransaction(id));
+
+		assertEquals(first, second);
+		long customerHits = cacheStatisticsService.getRegionStatistics().stream()
+				.filter(region -> region.getRegion().equals("customer"))
+				.mapToLong(CacheRegionUsage::getHits)
+				.sum();
+		assertTrue(customerHits > 0);
+	}
+
+	@Test
+	void updateAndDeleteInvalidateCachedCustomer() {
+		Integer id = addCustomer("before");
+		service.getCustomerById(id);
+		service.getCustomerById(id);
+
+		Person person = new Person();
+		person.setGender("M");
+		service.updateCustomer(id, new Customer(id, "after", person, new ArrayList<>()));
+		assertEquals("after", service.getCustomerById(id).getName());
+
+		service.deleteCustomer(id);
+		assertNull(service.getCustomerById(id));
+	}
+
+	private Integer addCustomer(String name) {
+		Person person = new Person();
+		person.setGender("F");
+		Gadgets gadget = new Gadgets();
+		gadget.setGadget_name("phone");
+		gadget.setYears(1f);
+		List<Gadgets> gadgets = new ArrayList<>(List.of(gadget));
+		Customer customer = new Customer(null, name, person, gadgets);
+		service.addCustomer(customer);
+		return customer.getId();
+	}
+
+	private String serializeInTransaction(Integer id) {
+		return transactionTemplate.execute(status -> {
+			try {
+				return objectMapper.writeValueAsString(service.getCustomerById(id));
+			} catch (JsonProcessingException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+}
@@ -0,0 +1,110 @@
+package entity.mapping.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import entity.mapping.bulkhead.BulkheadRejectedException;
+import entity.mapping.dto.BulkRecordResult;
+import entity.mapping.dto.CustomerIngestStatus;
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.Person;
+
+/**
+ * Verifies that asynchronously added customers are stored in the background, that their
+ * outcome can be looked up, and that shutdown writes out the queue.
+ */
+@SpringBootTest(properties = "customer.write-behind.max-delay=200ms")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class CustomerWriteBehindTests {
+
+	@Autowired
+	private CustomerWriteBehind writeBehind;
+
+	@Autowired
+	private CustomerService service;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void acceptsWith202AndReportsTheStoredCustomer() throws Exception {
+		String location = mockMvc.perform(post("/addCustomerAsync")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"async\",\"person\":{\"gender\":\"F\"},\"gadgets\":[]}"))
+				.andExpect(status().isAccepted())
+				.andExpect(jsonPath("$.status").value(CustomerIngestStatus.QUEUED))
+				.andReturn().getResponse().getHeader("Location");
+		assertNotNull(location);
+
+		UUID trackingId = UUID.fromString(location.substring(location.lastIndexOf('/') + 1));
+		CustomerIngestStatus stored = awaitOutcome(trackingId);
+		assertEquals(BulkRecordResult.INSERTED, stored.status());
+		assertEquals("async", service.getCustomerById(stored.customerId()).getName());
+
+		mockMvc.perform(get(location))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.customerId").value(stored.customerId()));
+		mockMvc.perform(get("/customerIngestStatus/" + UUID.randomUUID()))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(post("/addCustomerAsync").contentType(MediaType.APPLICATION_JSON).content("{\"name\":\"x\"}"))
+				.andExpect(status().isBadRequest())
+				.andExpect(header().doesNotExist("Location"));
+	}
+
+	@Test
+	void shutdownStoresEveryQueuedCustomerAndRejectsNewOnes() {
+		List<UUID> trackingIds = new ArrayList<>();
+		try {
+			for (int i = 0; i < 20; i++) {
+				trackingIds.add(writeBehind.submit(newCustomer("drained " + i)).trackingId());
+			}
+			writeBehind.stop();
+
+			for (UUID trackingId : trackingIds) {
+				assertEquals(BulkRecordResult.INSERTED, writeBehind.getStatus(trackingId).status());
+			}
+			assertThrows(BulkheadRejectedException.class, () -> writeBehind.submit(newCustomer("too late")));
+		} finally {
+			writeBehind.start();
+		}
+		assertNull(writeBehind.getStatus(UUID.randomUUID()));
+	}
+
+	private CustomerIngestStatus awaitOutcome(UUID trackingId) throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			CustomerIngestStatus status = writeBehind.getStatus(trackingId);
+			if (!CustomerIngestStatus.QUEUED.equals(status.status())) {
+				return status;
+			}
+			Thread.sleep(20);
+		}
+		throw new AssertionError("Customer was not written");
+	}
+
+	private static Customer newCustomer(String name) {
+		Person person = new Person();
+		person.setGender("F");
+		return new Customer(null, name, person, new ArrayList<>());
+	}
+
+}
@@ -0,0 +1,183 @@
+package entity.mapping.service;
+
+import static entity.mapping.SqlStatementRecorder.assertWithinBudget;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entity.mapping.dto.BulkDeleteRequest;
+import entity.mapping.entity.Customer;
+import entity.mapping.entity.Gadgets;
+import entity.mapping.entity.Person;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Puts a budget on the number of SQL statements the customer write paths issue, so that
+ * partial updates stay limited to the columns that actually change.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=entity.mapping.SqlStatementRecorder")
+@ActiveProfiles("h2")
+class CustomerWriteStatementBudgetTests {
+
+	@Autowired
+	private CustomerService service;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void patchingCustomerColumnsIssuesOneUpdate() {
+		Integer id = addCustomer(2);
+
+		Long version = service.getCustomerById(id).getVersion();
+
+		assertWithinBudget(1, () -> {
+			service.patchCustomer(id, json("{\"name\":\"patched\",\"phonenumber\":\"555-0100\"}"));
+			return null;
+		});
+
+		Customer customer = service.getCustomerById(id);
+		assertTrue(customer.getVersion() > version);
+		assertEquals("patched", customer.getName());
+		assertEquals("555-0100", customer.getPhonenumber());
+		assertEquals("F", customer.getPerson().getGender());
+	}
+
+	@Test
+	void patchingGenderUpdatesThePersonAndTheCustomerVersion() {
+		Integer id = addCustomer(2);
+		Long version = service.getCustomerById(id).getVersion();
+
+		assertWithinBudget(2, () -> {
+			service.patchCustomer(id, json("{\"person\":{\"gender\":\"M\"}}"));
+			return null;
+		});
+
+		Customer customer = service.getCustomerById(id);
+		assertEquals("M", customer.getPerson().getGender());
+		assertEquals("customer", customer.getName());
+		assertTrue(customer.getVersion() > version);
+	}
+
+	@Test
+	void patchingUnknownCustomerFails() {
+		assertThrows(EntityNotFoundException.class, () -> service.patchCustomer(-1, json("{\"name\":\"x\"}")));
+		assertThrows(EntityNotFoundException.class, () -> service.patchCustomer(-1, json("{\"person\":{\"gender\":\"M\"}}")));
+	}
+
+	@Test
+	void patchingUnknownFieldFails() {
+		Integer id = addCustomer(0);
+
+		assertThrows(IllegalArgumentException.class, () -> service.patchCustomer(id, json("{\"id\":5}")));
+	}
+
+	@Test
+	void editingOneOfManyGadgetsIssuesOneUpdate() {
+		Integer id = addCustomer(500);
+		Customer update = copyOf(service.getCustomerById(id));
+		update.getGadgets().get(42).setGadget_name("renamed");
+
+		// one select of the customer graph, one update of the edited gadget and one of the version
+		assertWithinBudget(3, () -> service.updateCustomer(id, update));
+
+		Customer updated = service.getCustomerById(id);
+		assertTrue(updated.getVersion() > 0);
+		List<Gadgets> gadgets = updated.getGadgets();
+		assertEquals(500, gadgets.size());
+		assertEquals(1, gadgets.stream().filter(gadget -> "renamed".equals(gadget.getGadget_name())).count());
+	}
+
+	@Test
+	void addingAndRemovingGadgetsWritesOnlyTheDifference() {
+		Integer id = addCustomer(3);
+		Customer update = copyOf(service.getCustomerById(id));
+		UUID removedId = update.getGadgets().remove(0).getId();
+		Gadgets added = new Gadgets();
+		added.setGadget_name("added");
+		update.getGadgets().add(added);
+
+		// one select, one insert, one delete and one update of the version
+		assertWithinBudget(4, () -> service.updateCustomer(id, update));
+
+		List<Gadgets> gadgets = service.getCustomerById(id).getGadgets();
+		assertEquals(3, gadgets.size());
+		assertEquals(0, gadgets.stream().filter(gadget -> removedId.equals(gadget.getId())).count());
+		assertEquals(1, gadgets.stream().filter(gadget -> "added".equals(gadget.getGadget_name())).count());
+	}
+
+	@Test
+	void deletingCustomerIssuesOneDeletePerTable() {
+		Integer id = addCustomer(500);
+
+		assertWithinBudget(3, () -> service.deleteCustomer(id));
+
+		assertNull(service.getCustomerById(id));
+		assertThrows(EntityNotFoundException.class, () -> service.deleteCustomer(id));
+	}
+
+	@Test
+	void bulkDeleteRemovesListedIdsAndRangesInChunks() {
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			ids.add(addCustomer(2));
+		}
+		Integer kept = addCustomer(2);
+
+		BulkDeleteRequest byIds = new BulkDeleteRequest();
+		byIds.setIds(List.of(ids.get(0), ids.get(1), -1));
+		assertEquals(2, service.deleteCustomers(byIds).getDeleted());
+
+		BulkDeleteRequest byRange = new BulkDeleteRequest();
+		byRange.setFromId(ids.get(2));
+		byRange.setToId(ids.get(4));
+		assertEquals(3, service.deleteCustomers(byRange).getDeleted());
+
+		for (Integer id : ids) {
+			assertNull(service.getCustomerById(id));
+		}
+		assertEquals(2, service.getCustomerById(kept).getGadgets().size());
+	}
+
+	private Customer copyOf(Customer customer) {
+		return objectMapper.convertValue(customer, Customer.class);
+	}
+
+	private Integer addCustomer(int gadgetCount) {
+		Person person = new Person();
+		person.setGender("F");
+		List<Gadgets> gadgets = new ArrayList<>();
+		for (int i = 0; i < gadgetCount; i++) {
+			Gadgets gadget = new Gadgets();
+			gadget.setGadget_name("gadget-" + i);
+			gadget.setYears((float) i);
+			gadgets.add(gadget);
+		}
+		Customer customer = new Customer(null, "customer", person, gadgets);
+		service.addCustomer(customer);
+		return customer.getId();
+	}
+
+	private JsonNode json(String content) {
+		try {
+			return objectMapper.readTree(content);
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+package entity.mapping.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OptimisticRetryTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final OptimisticRetry retry = new OptimisticRetry(3, Duration.ofMillis(1), Duration.ofMillis(2), registry);
+
+	@Test
+	void retriesConflictsUntilAnAttemptCommits() {
+		AtomicInteger attempts = new AtomicInteger();
+
+		String result = retry.execute("update", () -> {
+			if (attempts.incrementAndGet() < 3) {
+				throw new OptimisticLockingFailureException("conflict");
+			}
+			return "done";
+		});
+
+		assertEquals("done", result);
+		assertEquals(3, attempts.get());
+		assertEquals(2, conflicts("retried"));
+		assertEquals(0, conflicts("exhausted"));
+	}
+
+	@Test
+	void givesUpAfterMaxAttempts() {
+		AtomicInteger attempts = new AtomicInteger();
+
+		assertThrows(OptimisticLockingFailureException.class, () -> retry.execute("update", () -> {
+			attempts.incrementAndGet();
+			throw new OptimisticLockingFailureException("conflict");
+		}));
+
+		assertEquals(3, attempts.get());
+		assertEquals(2, conflicts("retried"));
+		assertEquals(1, conflicts("exhausted"));
+	}
+
+	@Test
+	void otherFailuresAreNotRetried() {
+		AtomicInteger attempts = new AtomicInteger();
+
+		assertThrows(IllegalStateException.class, () -> retry.execute("update", () -> {
+			attempts.incrementAndGet();
+			throw new IllegalStateException();
+		}));
+
+		assertEquals(1, attempts.get());
+	}
+
+	private double conflicts(String outcome) {
+		return registry.counter("customer.write.conflicts", "operation", "update", "outcome", outcome).count();
+	}
+
+}
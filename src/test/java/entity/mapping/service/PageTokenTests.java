@@ -0,0 +1,45 @@
+package entity.mapping.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+class PageTokenTests {
+
+	@Test
+	void roundTripsTheLastId() {
+		for (Integer id : new Integer[] { 1, 42, Integer.MAX_VALUE }) {
+			String token = PageToken.encode(id);
+			assertNotEquals(id.toString(), token);
+			assertEquals(id, PageToken.decode(token));
+		}
+	}
+
+	@Test
+	void missingTokenStartsAtTheFirstPage() {
+		assertEquals(0, PageToken.decode(null));
+		assertEquals(0, PageToken.decode(""));
+	}
+
+	@Test
+	void rejectsTamperedAndInvalidTokens() {
+		String token = PageToken.encode(42);
+
+		assertThrows(IllegalArgumentException.class, () -> PageToken.decode(token + "!"));
+		assertThrows(IllegalArgumentException.class, () -> PageToken.decode("42"));
+		assertThrows(IllegalArgumentException.class, () -> PageToken.decode(encode("v2:42")));
+		assertThrows(IllegalArgumentException.class, () -> PageToken.decode(encode("v1:")));
+		assertThrows(IllegalArgumentException.class, () -> PageToken.decode(encode("v1:42abc")));
+		assertThrows(IllegalArgumentException.class, () -> PageToken.decode(encode("v1:99999999999")));
+	}
+
+	private static String encode(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+}